@@ -0,0 +1,19 @@
+package rca.restapi.year2.userservice.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Multi-entry reads and writes against the shared cache tier, for callers that touch many keys at
+ * once (cache warming, batch lookups) and should not pay one round trip per entry.
+ */
+public interface CacheBatchOperations {
+
+    /**
+     * The cached values of {@code type} among {@code keys}; keys that are missing (or hold something
+     * else) are left out.
+     */
+    <K, V> Map<K, V> getAll(String cacheName, Collection<K> keys, Class<V> type);
+
+    void putAll(String cacheName, Map<?, ?> entries);
+}
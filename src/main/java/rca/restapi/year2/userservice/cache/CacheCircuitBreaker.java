@@ -0,0 +1,119 @@
+package rca.restapi.year2.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for the shared (Redis) cache. After {@code failureThreshold} consecutive
+ * failures it opens and callers skip Redis for {@code openDuration}, treating reads as misses.
+ * The first call after that is let through as a probe (half-open) while everyone else keeps
+ * skipping: a success closes the circuit and runs the recovery listeners, a failure opens it for
+ * another period.
+ */
+@Slf4j
+public class CacheCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+    private volatile long openedAt;
+
+    private final Counter failures;
+    private final Counter shortCircuited;
+
+    public CacheCircuitBreaker(int failureThreshold, Duration openDuration, MeterRegistry meterRegistry) {
+        this(failureThreshold, openDuration, meterRegistry, System::nanoTime);
+    }
+
+    CacheCircuitBreaker(int failureThreshold, Duration openDuration, MeterRegistry meterRegistry,
+                        LongSupplier nanoClock) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+
+        this.failures = Counter.builder("cache.remote.failures")
+                .description("Shared cache calls that failed or timed out")
+                .register(meterRegistry);
+        this.shortCircuited = Counter.builder("cache.remote.short.circuited")
+                .description("Shared cache calls skipped while the circuit was open")
+                .register(meterRegistry);
+        Gauge.builder("cache.remote.circuit.state", state, s -> s.get().ordinal())
+                .description("0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the caller may call Redis now. While open, the first caller after the open period
+     * becomes the probe; the caller must then report the outcome, whatever exception the call
+     * throws, or the circuit stays half-open.
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            log.info("Probing the shared cache");
+            return true;
+        }
+        shortCircuited.increment();
+        return false;
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.get() == State.HALF_OPEN && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            log.info("Shared cache recovered, circuit closed");
+            recoveryListeners.forEach(Runnable::run);
+        }
+    }
+
+    public void onFailure(RuntimeException e) {
+        failures.increment();
+        if (state.get() == State.HALF_OPEN) {
+            open(State.HALF_OPEN, e);
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(State.CLOSED, e);
+        }
+    }
+
+    public boolean isClosed() {
+        return state.get() == State.CLOSED;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Runs on the thread whose probe closed the circuit, e.g. to replay writes skipped meanwhile.
+     */
+    public void addRecoveryListener(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    private void open(State from, RuntimeException e) {
+        // Set before the state flips, so nobody sees the new state with the old timestamp
+        openedAt = nanoClock.getAsLong();
+        if (state.compareAndSet(from, State.OPEN)) {
+            log.warn("Shared cache unavailable, bypassing it for {} ms: {}", openNanos / 1_000_000, e.getMessage());
+        }
+    }
+}
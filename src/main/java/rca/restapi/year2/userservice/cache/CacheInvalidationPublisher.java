@@ -0,0 +1,103 @@
+package rca.restapi.year2.userservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Broadcasts L1 invalidations over Redis pub/sub. Messages are {@code origin|cache|key}, or
+ * {@code origin|cache} to clear a whole cache; the origin lets a node ignore its own messages.
+ * Publishing is best effort: the L1 TTL bounds staleness if a message is lost, and nothing is
+ * published while the {@link CacheCircuitBreaker} is open.
+ */
+@Slf4j
+public class CacheInvalidationPublisher {
+
+    private static final String SEPARATOR = "|";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final CacheCircuitBreaker circuitBreaker;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate, String channel,
+                                      CacheCircuitBreaker circuitBreaker) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish(nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+    }
+
+    /**
+     * One eviction message per key, sent in a single pipeline.
+     */
+    public void publishEvictAll(String cacheName, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (!circuitBreaker.isClosed()) {
+            log.debug("Shared cache unavailable, not publishing cache invalidations on {}", channel);
+            return;
+        }
+        byte[] channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                keys.forEach(key -> connection.publish(channelBytes,
+                        (nodeId + SEPARATOR + cacheName + SEPARATOR + key).getBytes(StandardCharsets.UTF_8)));
+                return null;
+            });
+            circuitBreaker.onSuccess();
+        } catch (DataAccessException e) {
+            circuitBreaker.onFailure(e);
+            log.warn("Could not publish {} cache invalidations on {}: {}", keys.size(), channel, e.getMessage());
+        }
+    }
+
+    public void publishClear(String cacheName) {
+        publish(nodeId + SEPARATOR + cacheName);
+    }
+
+    /**
+     * Parses a message from another node. Returns empty for our own messages and malformed ones.
+     */
+    Optional<Invalidation> parse(String message) {
+        String[] parts = message.split("\\" + SEPARATOR, 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return Optional.empty();
+        }
+        return Optional.of(new Invalidation(parts[1], parts.length == 3 ? parts[2] : null));
+    }
+
+    private void publish(String message) {
+        if (!circuitBreaker.isClosed()) {
+            log.debug("Shared cache unavailable, not publishing cache invalidation on {}", channel);
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, message);
+            circuitBreaker.onSuccess();
+        } catch (DataAccessException e) {
+            circuitBreaker.onFailure(e);
+            log.warn("Could not publish cache invalidation on {}: {}", channel, e.getMessage());
+        }
+    }
+
+    /**
+     * A remote invalidation; a null key means the whole cache.
+     */
+    record Invalidation(String cacheName, String key) {
+    }
+}
@@ -0,0 +1,78 @@
+package rca.restapi.year2.userservice.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-cache expiry policy ({@code cache.policies.<name>}), falling back to
+ * {@code cache.default-ttl}, {@code cache.ttl-jitter} and {@code cache.refresh-ahead}.
+ * <p>
+ * Jitter spreads expiry by up to {@code ±jitter} of the TTL so entries written together (warm-up,
+ * bulk jobs) do not expire in the same second. The offset is derived from a hash of the key rather
+ * than drawn at write time, so the Redis TTL and the expiry tracked for refresh-ahead agree
+ * without reading the TTL back.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "cache")
+public class CachePolicies {
+
+    private Duration defaultTtl = Duration.ofHours(1);
+
+    private double ttlJitter = 0.0;
+
+    // Fraction of the entry's life, at the end, during which a hit triggers an async reload
+    private double refreshAhead = 0.0;
+
+    private Map<String, Policy> policies = new HashMap<>();
+
+    /**
+     * Jittered TTL for {@code key} in {@code cacheName}.
+     */
+    public Duration ttl(String cacheName, Object key) {
+        Duration ttl = nominalTtl(cacheName);
+        double jitter = jitter(cacheName);
+        if (jitter <= 0) {
+            return ttl;
+        }
+        double factor = 1 + jitter * (2 * unitHash(String.valueOf(key)) - 1);
+        return Duration.ofMillis(Math.max(1, Math.round(ttl.toMillis() * factor)));
+    }
+
+    public Duration nominalTtl(String cacheName) {
+        Policy policy = policies.get(cacheName);
+        return policy != null && policy.getTtl() != null ? policy.getTtl() : defaultTtl;
+    }
+
+    public double refreshAhead(String cacheName) {
+        Policy policy = policies.get(cacheName);
+        return policy != null && policy.getRefreshAhead() != null ? policy.getRefreshAhead() : refreshAhead;
+    }
+
+    private double jitter(String cacheName) {
+        Policy policy = policies.get(cacheName);
+        return Math.min(1.0, policy != null && policy.getJitter() != null ? policy.getJitter() : ttlJitter);
+    }
+
+    // Uniform in [0, 1) for well-mixed keys
+    private static double unitHash(String key) {
+        long z = key.hashCode() * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        z ^= z >>> 31;
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+        private Duration ttl;
+        private Double jitter;
+        private Double refreshAhead;
+    }
+}
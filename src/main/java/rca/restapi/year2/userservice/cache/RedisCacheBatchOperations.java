@@ -0,0 +1,106 @@
+package rca.restapi.year2.userservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-gets ({@code MGET}) and pipelined writes straight to the Redis tier, using the same key
+ * layout ({@code cache::key}), value serializer and TTLs ({@link CachePolicies}) as the cache
+ * manager, so entries read and written here line up with the regular caches. The local tier is not
+ * touched; it fills on first read. Like the caches, this goes through the
+ * {@link CacheCircuitBreaker}: while it is open reads find nothing and writes are dropped.
+ */
+@Slf4j
+public class RedisCacheBatchOperations implements CacheBatchOperations {
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisSerializer<Object> valueSerializer;
+    private final CachePolicies cachePolicies;
+    private final CacheCircuitBreaker circuitBreaker;
+
+    public RedisCacheBatchOperations(StringRedisTemplate redisTemplate, RedisSerializer<Object> valueSerializer,
+                                     CachePolicies cachePolicies, CacheCircuitBreaker circuitBreaker) {
+        this.redisTemplate = redisTemplate;
+        this.valueSerializer = valueSerializer;
+        this.cachePolicies = cachePolicies;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public <K, V> Map<K, V> getAll(String cacheName, Collection<K> keys, Class<V> type) {
+        if (keys.isEmpty() || !circuitBreaker.tryAcquire()) {
+            return Map.of();
+        }
+        List<K> ordered = new ArrayList<>(keys);
+        byte[][] rawKeys = ordered.stream().map(key -> cacheKey(cacheName, key)).toArray(byte[][]::new);
+        List<byte[]> values;
+        try {
+            values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(rawKeys));
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(e);
+            log.debug("Multi-get on {} failed, treating it as all misses: {}", cacheName, e.getMessage());
+            return Map.of();
+        }
+
+        Map<K, V> found = new LinkedHashMap<>();
+        for (int i = 0; values != null && i < values.size(); i++) {
+            Object value = deserialize(cacheName, values.get(i));
+            if (type.isInstance(value)) {
+                found.put(ordered.get(i), type.cast(value));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void putAll(String cacheName, Map<?, ?> entries) {
+        if (entries.isEmpty() || !circuitBreaker.tryAcquire()) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                entries.forEach((key, value) -> connection.stringCommands().set(
+                        cacheKey(cacheName, key),
+                        valueSerializer.serialize(value),
+                        Expiration.from(cachePolicies.ttl(cacheName, key)),
+                        RedisStringCommands.SetOption.upsert()));
+                return null;
+            });
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(e);
+            throw e;
+        }
+    }
+
+    static byte[] cacheKey(String cacheName, Object key) {
+        return (cacheName + "::" + key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // One unreadable entry is a miss for that key, not a failed batch
+    private Object deserialize(String cacheName, byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return valueSerializer.deserialize(bytes);
+        } catch (SerializationException e) {
+            log.debug("Ignoring unreadable entry in {}: {}", cacheName, e.getMessage());
+            return null;
+        }
+    }
+}
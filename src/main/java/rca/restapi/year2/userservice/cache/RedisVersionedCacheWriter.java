@@ -0,0 +1,221 @@
+package rca.restapi.year2.userservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Version-checked writes to the Redis tier. Next to each entry ({@code cache::key}) sits its version
+ * ({@code cache::key::version}, components joined by {@code :}); a Lua script compares and writes
+ * both atomically, so no interleaving of nodes can leave an older value in place of a newer one.
+ * Single writes then update this node's local tier and broadcast the change; batched puts leave the
+ * local tiers alone, like {@link RedisCacheBatchOperations}, while batched evictions drop the keys
+ * from every local tier with one pipeline of broadcasts. While the {@link CacheCircuitBreaker} is open,
+ * or when the script fails, the entry is evicted through the cache manager instead, which queues the
+ * eviction until Redis is back (see {@link ResilientCache}).
+ */
+@Slf4j
+public class RedisVersionedCacheWriter implements VersionedCacheWriter {
+
+    // Versions are compared as numbers but stored as given: tostring() on large numbers loses digits
+    // A TTL of 0 means no expiry, as for the cache manager
+    private static final String HELPERS = """
+            local function parts(version)
+              local result = {}
+              for part in string.gmatch(version, '[^:]+') do
+                result[#result + 1] = part
+              end
+              return result
+            end
+            local function set(key, value, ttl)
+              if tonumber(ttl) > 0 then
+                redis.call('SET', key, value, 'PX', ttl)
+              else
+                redis.call('SET', key, value)
+              end
+            end
+            """;
+
+    // KEYS: entry, version; ARGV: value, ttl millis, version. Returns 1 if written, 0 if older
+    private static final byte[] PUT_IF_NEWER = (HELPERS + """
+            local recorded = redis.call('GET', KEYS[2])
+            if recorded then
+              local old, new = parts(recorded), parts(ARGV[3])
+              for i = 1, math.min(#old, #new) do
+                if tonumber(old[i]) > tonumber(new[i]) then
+                  return 0
+                end
+              end
+            end
+            set(KEYS[1], ARGV[1], ARGV[2])
+            set(KEYS[2], ARGV[3], ARGV[2])
+            return 1
+            """).getBytes(StandardCharsets.UTF_8);
+
+    // KEYS: entry, version; ARGV: floor, ttl millis. Raises the recorded version to the floor
+    private static final byte[] EVICT = (HELPERS + """
+            local merged = parts(ARGV[1])
+            local recorded = redis.call('GET', KEYS[2])
+            if recorded then
+              local old = parts(recorded)
+              for i = 1, math.min(#old, #merged) do
+                if tonumber(old[i]) > tonumber(merged[i]) then
+                  merged[i] = old[i]
+                end
+              end
+            end
+            redis.call('DEL', KEYS[1])
+            set(KEYS[2], table.concat(merged, ':'), ARGV[2])
+            return 1
+            """).getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisSerializer<Object> valueSerializer;
+    private final CachePolicies cachePolicies;
+    private final CacheCircuitBreaker circuitBreaker;
+    private final TwoTierCacheManager cacheManager;
+
+    public RedisVersionedCacheWriter(StringRedisTemplate redisTemplate, RedisSerializer<Object> valueSerializer,
+                                     CachePolicies cachePolicies, CacheCircuitBreaker circuitBreaker,
+                                     TwoTierCacheManager cacheManager) {
+        this.redisTemplate = redisTemplate;
+        this.valueSerializer = valueSerializer;
+        this.cachePolicies = cachePolicies;
+        this.circuitBreaker = circuitBreaker;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public boolean putIfNewer(String cacheName, Object key, Object value, long[] version) {
+        if (!circuitBreaker.tryAcquire()) {
+            evictQueued(cacheName, key);
+            return false;
+        }
+        Long stored;
+        try {
+            stored = redisTemplate.execute((RedisCallback<Long>) connection -> putIfNewer(connection,
+                    cacheName, key, value, version));
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(e);
+            log.debug("Versioned put on {} failed, evicting instead: {}", cacheName, e.getMessage());
+            evictQueued(cacheName, key);
+            return false;
+        }
+        if (stored == null || stored == 0) {
+            log.debug("Skipped stale write to {}::{} at version {}", cacheName, key, join(version));
+            return false;
+        }
+        cacheManager.syncLocal(cacheName, key, value);
+        return true;
+    }
+
+    @Override
+    public <V> void putAllIfNewer(String cacheName, Map<?, V> entries, Function<V, long[]> version) {
+        if (entries.isEmpty() || !circuitBreaker.tryAcquire()) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                entries.forEach((key, value) -> putIfNewer(connection, cacheName, key, value,
+                        version.apply(value)));
+                return null;
+            });
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void evict(String cacheName, Object key, long[] floor) {
+        if (!circuitBreaker.tryAcquire()) {
+            evictQueued(cacheName, key);
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> evict(connection, cacheName, key, floor));
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(e);
+            log.debug("Versioned eviction on {} failed, evicting plainly: {}", cacheName, e.getMessage());
+            evictQueued(cacheName, key);
+            return;
+        }
+        cacheManager.syncLocal(cacheName, key, null);
+    }
+
+    @Override
+    public void evictAll(String cacheName, Map<?, long[]> floors) {
+        if (floors.isEmpty()) {
+            return;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            floors.keySet().forEach(key -> evictQueued(cacheName, key));
+            return;
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                floors.forEach((key, floor) -> evict(connection, cacheName, key, floor));
+                return null;
+            });
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(e);
+            log.debug("Versioned eviction of {} entries on {} failed, evicting plainly: {}", floors.size(),
+                    cacheName, e.getMessage());
+            floors.keySet().forEach(key -> evictQueued(cacheName, key));
+            return;
+        }
+        cacheManager.syncLocalEvictions(cacheName, floors.keySet());
+    }
+
+    private Long evict(RedisConnection connection, String cacheName, Object key, long[] floor) {
+        return connection.scriptingCommands().eval(EVICT, ReturnType.INTEGER, 2,
+                RedisCacheBatchOperations.cacheKey(cacheName, key), versionKey(cacheName, key),
+                bytes(join(floor)), bytes(ttlMillis(cacheName, key)));
+    }
+
+    private Long putIfNewer(RedisConnection connection, String cacheName, Object key, Object value,
+                            long[] version) {
+        return connection.scriptingCommands().eval(PUT_IF_NEWER, ReturnType.INTEGER, 2,
+                RedisCacheBatchOperations.cacheKey(cacheName, key), versionKey(cacheName, key),
+                valueSerializer.serialize(value), bytes(ttlMillis(cacheName, key)), bytes(join(version)));
+    }
+
+    // Without the version check the safe move is to drop the entry; ResilientCache replays it later
+    private void evictQueued(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    // The version expires with its entry
+    private String ttlMillis(String cacheName, Object key) {
+        return String.valueOf(Math.max(0, cachePolicies.ttl(cacheName, key).toMillis()));
+    }
+
+    static byte[] versionKey(String cacheName, Object key) {
+        return (cacheName + "::" + key + "::version").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String join(long[] version) {
+        return Arrays.stream(version).mapToObj(String::valueOf).collect(Collectors.joining(":"));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
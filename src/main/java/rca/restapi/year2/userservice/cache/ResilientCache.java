@@ -0,0 +1,180 @@
+package rca.restapi.year2.userservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Guards a shared cache with a {@link CacheCircuitBreaker}. Failed or skipped reads are misses and
+ * failed or skipped writes are dropped, so callers fall through to the local tier or the loader
+ * instead of waiting on Redis. Evictions cannot be dropped (Redis would serve the old value once
+ * it is back), so they are remembered and replayed when the circuit closes; past
+ * {@code maxPendingEvictions} the whole cache is cleared instead. A value that cannot be decoded is
+ * a miss but not a failure, since Redis did answer; any other exception from the delegate counts as
+ * a failure, so a half-open probe always settles the circuit.
+ */
+@Slf4j
+public class ResilientCache implements Cache {
+
+    private final Cache delegate;
+    private final CacheCircuitBreaker circuitBreaker;
+    private final int maxPendingEvictions;
+    private final Set<Object> pendingEvictions = ConcurrentHashMap.newKeySet();
+    private volatile boolean pendingClear;
+
+    public ResilientCache(Cache delegate, CacheCircuitBreaker circuitBreaker, int maxPendingEvictions) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.maxPendingEvictions = maxPendingEvictions;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        if (!circuitBreaker.tryAcquire()) {
+            return null;
+        }
+        try {
+            ValueWrapper value = delegate.get(key);
+            circuitBreaker.onSuccess();
+            return value;
+        } catch (SerializationException e) {
+            circuitBreaker.onSuccess();
+            log.debug("Ignoring unreadable entry {}::{}: {}", getName(), key, e.getMessage());
+            return null;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(e);
+            log.debug("Cache read {}::{} failed, treating it as a miss: {}", getName(), key, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (!circuitBreaker.tryAcquire()) {
+            return;
+        }
+        try {
+            delegate.put(key, value);
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(e);
+            log.debug("Cache write {}::{} dropped: {}", getName(), key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (!circuitBreaker.tryAcquire()) {
+            remember(key);
+            return;
+        }
+        try {
+            delegate.evict(key);
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            remember(key);
+            circuitBreaker.onFailure(e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (!circuitBreaker.tryAcquire()) {
+            pendingClear = true;
+            return;
+        }
+        try {
+            delegate.clear();
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            pendingClear = true;
+            circuitBreaker.onFailure(e);
+        }
+    }
+
+    /**
+     * Applies the evictions skipped while Redis was unavailable. Whatever fails stays pending for
+     * the next recovery.
+     */
+    void replayPending() {
+        try {
+            if (pendingClear) {
+                delegate.clear();
+                pendingClear = false;
+                pendingEvictions.clear();
+                log.info("Cleared cache {} after an outage", getName());
+                return;
+            }
+            int replayed = 0;
+            for (Object key : pendingEvictions) {
+                delegate.evict(key);
+                pendingEvictions.remove(key);
+                replayed++;
+            }
+            if (replayed > 0) {
+                log.info("Replayed {} evictions on cache {} after an outage", replayed, getName());
+            }
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(e);
+        }
+    }
+
+    int pendingEvictions() {
+        return pendingEvictions.size();
+    }
+
+    private void remember(Object key) {
+        if (pendingClear) {
+            return;
+        }
+        if (pendingEvictions.size() >= maxPendingEvictions) {
+            pendingClear = true;
+            pendingEvictions.clear();
+        } else {
+            pendingEvictions.add(key);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package rca.restapi.year2.userservice.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps every cache of the shared (Redis) manager in a {@link ResilientCache}, all behind one
+ * {@link CacheCircuitBreaker}, and replays their skipped evictions when the circuit closes.
+ */
+public class ResilientCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final CacheCircuitBreaker circuitBreaker;
+    private final int maxPendingEvictions;
+    private final ConcurrentMap<String, ResilientCache> caches = new ConcurrentHashMap<>();
+
+    public ResilientCacheManager(CacheManager delegate, CacheCircuitBreaker circuitBreaker, int maxPendingEvictions) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.maxPendingEvictions = maxPendingEvictions;
+        circuitBreaker.addRecoveryListener(() -> caches.values().forEach(ResilientCache::replayPending));
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        ResilientCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = delegate.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> new ResilientCache(remote, circuitBreaker, maxPendingEvictions));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
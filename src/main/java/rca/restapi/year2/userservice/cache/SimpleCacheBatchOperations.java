@@ -0,0 +1,43 @@
+package rca.restapi.year2.userservice.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Entry-by-entry fallback used when the cache is not Redis-backed (e.g. the test profile).
+ */
+public class SimpleCacheBatchOperations implements CacheBatchOperations {
+
+    private final CacheManager cacheManager;
+
+    public SimpleCacheBatchOperations(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public <K, V> Map<K, V> getAll(String cacheName, Collection<K> keys, Class<V> type) {
+        Map<K, V> found = new LinkedHashMap<>();
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            for (K key : keys) {
+                Cache.ValueWrapper wrapper = cache.get(key);
+                if (wrapper != null && type.isInstance(wrapper.get())) {
+                    found.put(key, type.cast(wrapper.get()));
+                }
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void putAll(String cacheName, Map<?, ?> entries) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            entries.forEach(cache::put);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package rca.restapi.year2.userservice.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * In-process fallback used when the cache is not Redis-backed (e.g. the test profile). Versions
+ * live in a map; the check and the write happen under the entry's map lock.
+ */
+public class SimpleVersionedCacheWriter implements VersionedCacheWriter {
+
+    private final CacheManager cacheManager;
+    private final ConcurrentMap<String, long[]> versions = new ConcurrentHashMap<>();
+
+    public SimpleVersionedCacheWriter(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public boolean putIfNewer(String cacheName, Object key, Object value, long[] version) {
+        Cache cache = cacheManager.getCache(cacheName);
+        boolean[] stored = new boolean[1];
+        versions.compute(cacheName + "::" + key, (k, recorded) -> {
+            if (recorded != null && isOlder(version, recorded)) {
+                return recorded;
+            }
+            if (cache != null) {
+                cache.put(key, value);
+            }
+            stored[0] = true;
+            return version.clone();
+        });
+        return stored[0];
+    }
+
+    @Override
+    public <V> void putAllIfNewer(String cacheName, Map<?, V> entries, Function<V, long[]> version) {
+        entries.forEach((key, value) -> putIfNewer(cacheName, key, value, version.apply(value)));
+    }
+
+    @Override
+    public void evict(String cacheName, Object key, long[] floor) {
+        Cache cache = cacheManager.getCache(cacheName);
+        versions.compute(cacheName + "::" + key, (k, recorded) -> {
+            if (cache != null) {
+                cache.evict(key);
+            }
+            return recorded == null ? floor.clone() : max(recorded, floor);
+        });
+    }
+
+    @Override
+    public void evictAll(String cacheName, Map<?, long[]> floors) {
+        floors.forEach((key, floor) -> evict(cacheName, key, floor));
+    }
+
+    static boolean isOlder(long[] version, long[] recorded) {
+        for (int i = 0; i < Math.min(version.length, recorded.length); i++) {
+            if (recorded[i] > version[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long[] max(long[] recorded, long[] floor) {
+        long[] merged = recorded.clone();
+        for (int i = 0; i < Math.min(merged.length, floor.length); i++) {
+            merged[i] = Math.max(merged[i], floor[i]);
+        }
+        return merged;
+    }
+}
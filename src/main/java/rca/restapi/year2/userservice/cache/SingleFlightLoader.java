@@ -0,0 +1,361 @@
+package rca.restapi.year2.userservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Guards cache misses against stampedes:
+ * <ul>
+ *   <li>single flight per node: concurrent misses for a key share one loader call;</li>
+ *   <li>a Redis lease across nodes: the node holding {@code lock:<key>} loads, the others wait for
+ *   the value to show up in the cache (and load themselves if the lease holder is too slow);</li>
+ *   <li>refresh-ahead: a hit in the last {@code refresh-ahead} fraction of an entry's life (see
+ *   {@link CachePolicies}) returns the cached value and reloads it in the background;</li>
+ *   <li>probabilistic early refresh (XFetch): a hit on an entry this node loaded is occasionally
+ *   treated as a miss shortly before the entry expires, with a probability that grows as expiry
+ *   nears and with how long the load took, so hot keys are reloaded before they drop out.</li>
+ * </ul>
+ * Both refreshes only know about entries this node loaded. Keys are {@code <cache>:<key>}, which is
+ * how the expiry policy of a key is found. Lease failures (Redis down) never block a load; the
+ * loader just runs without the lease. Lease calls go through the shared cache's
+ * {@link CacheCircuitBreaker} when there is one, so while it is open loads skip the lease instead of
+ * each waiting out a command timeout.
+ */
+@Component
+@Slf4j
+public class SingleFlightLoader {
+
+    private static final String LEASE_PREFIX = "lock:";
+    private static final long LEASE_POLL_MILLIS = 25;
+    private static final int REFRESH_QUEUE_CAPACITY = 256;
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CachePolicies cachePolicies;
+    private final ExecutorService refreshExecutor;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<String, LoadStats> loadStats;
+    private final Counter coalescedWaiters;
+    private final Counter leaseWaits;
+    private final Counter earlyRefreshes;
+    private final Counter aheadRefreshes;
+    private CacheCircuitBreaker circuitBreaker;
+
+    // Defaults for use outside Spring: same tuning, but no Redis lease
+    @Value("${cache.stampede.lease.enabled:true}")
+    private boolean leaseEnabled = false;
+
+    @Value("${cache.stampede.lease.time:5s}")
+    private Duration leaseTime = Duration.ofSeconds(5);
+
+    @Value("${cache.stampede.lease.wait:2s}")
+    private Duration leaseWait = Duration.ofSeconds(2);
+
+    @Value("${cache.stampede.early-refresh.beta:1.0}")
+    private double beta = 1.0;
+
+    public SingleFlightLoader(StringRedisTemplate redisTemplate, CachePolicies cachePolicies,
+                              MeterRegistry meterRegistry,
+                              @Value("${cache.l1.maximum-size:10000}") long maximumTrackedKeys,
+                              @Value("${cache.refresh-ahead-threads:2}") int refreshThreads) {
+        this.redisTemplate = redisTemplate;
+        this.cachePolicies = cachePolicies;
+        // Background refreshes are optional work: drop them rather than queue without bound
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY), refreshThreadFactory());
+        this.loadStats = Caffeine.newBuilder()
+                .maximumSize(maximumTrackedKeys)
+                .build();
+        this.coalescedWaiters = Counter.builder("cache.load.coalesced")
+                .description("Cache misses that waited for a load already running on this node")
+                .register(meterRegistry);
+        this.leaseWaits = Counter.builder("cache.load.lease.waits")
+                .description("Cache misses that waited for another node holding the load lease")
+                .register(meterRegistry);
+        this.earlyRefreshes = Counter.builder("cache.load.early.refreshes")
+                .description("Hits treated as misses to refresh an entry before it expires")
+                .register(meterRegistry);
+        this.aheadRefreshes = Counter.builder("cache.load.ahead.refreshes")
+                .description("Hits that scheduled a background reload near the end of the entry's life")
+                .register(meterRegistry);
+    }
+
+    // Only registered with the Redis cache manager
+    @Autowired(required = false)
+    void setCircuitBreaker(CacheCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Loads the value for {@code key} once per node. {@code cached} re-reads the cache and is polled
+     * while another node holds the lease; {@code loader} computes and stores the value.
+     */
+    public <T> T load(String key, Supplier<T> cached, Supplier<T> loader) {
+        return load(key, cached, loader, value -> key);
+    }
+
+    /**
+     * As {@link #load(String, Supplier, Supplier)}, recording the load for early refresh under
+     * {@code refreshKey(value)} instead of {@code key}, for values loaded through a secondary key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(String key, Supplier<T> cached, Supplier<T> loader, Function<T, String> refreshKey) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing;
+        while ((existing = inFlight.putIfAbsent(key, flight)) != null) {
+            coalescedWaiters.increment();
+            Object value = await(existing);
+            // A background refresh that was skipped or failed completes empty; load ourselves
+            if (value != null) {
+                return (T) value;
+            }
+        }
+
+        try {
+            T value = loadWithLease(key, cached, loader, refreshKey);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * True when {@code key} was loaded by this node and is in the refresh-ahead window of its life.
+     */
+    public boolean shouldRefreshAhead(String key) {
+        LoadStats stats = loadStats.getIfPresent(key);
+        return stats != null && System.currentTimeMillis() >= stats.refreshAtMillis();
+    }
+
+    /**
+     * Reloads {@code key} in the background unless a load for it is already running here, or
+     * another node holds its lease. Failures are logged; the current entry stays until it expires.
+     */
+    public <T> void refreshAsync(String key, Supplier<T> loader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, flight) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> runRefresh(key, loader, flight));
+            aheadRefreshes.increment();
+        } catch (RejectedExecutionException e) {
+            // Refresh queue full (or shutting down): skip, the entry is still valid
+            inFlight.remove(key, flight);
+            flight.complete(null);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdown();
+    }
+
+    /**
+     * XFetch: true when {@code now - delta * beta * ln(rand) >= expiry} for an entry this node
+     * loaded, where delta is how long the load took.
+     */
+    public boolean shouldRefreshEarly(String key) {
+        LoadStats stats = loadStats.getIfPresent(key);
+        if (stats == null || beta <= 0) {
+            return false;
+        }
+        double random = ThreadLocalRandom.current().nextDouble();
+        long now = System.currentTimeMillis();
+        boolean refresh = now - stats.computeMillis() * beta * Math.log(random) >= stats.expiresAtMillis();
+        if (refresh) {
+            earlyRefreshes.increment();
+        }
+        return refresh;
+    }
+
+    private <T> T loadWithLease(String key, Supplier<T> cached, Supplier<T> loader,
+                                Function<T, String> refreshKey) {
+        String token = UUID.randomUUID().toString();
+        boolean leased = tryAcquireLease(key, token);
+        if (!leased && leaseEnabled) {
+            leaseWaits.increment();
+            T value = awaitOtherNode(cached);
+            if (value != null) {
+                return value;
+            }
+            log.debug("Lease holder for {} did not populate the cache in time, loading locally", key);
+        }
+
+        try {
+            return loadAndTrack(loader, refreshKey);
+        } finally {
+            if (leased) {
+                releaseLease(key, token);
+            }
+        }
+    }
+
+    private <T> void runRefresh(String key, Supplier<T> loader, CompletableFuture<Object> flight) {
+        String token = UUID.randomUUID().toString();
+        boolean leased = tryAcquireLease(key, token);
+        try {
+            if (!leased && leaseEnabled) {
+                // Another node is already reloading it
+                flight.complete(null);
+                return;
+            }
+            flight.complete(loadAndTrack(loader, value -> key));
+        } catch (RuntimeException e) {
+            flight.complete(null);
+            log.warn("Background refresh of {} failed: {}", key, e.getMessage());
+        } finally {
+            inFlight.remove(key, flight);
+            if (leased) {
+                releaseLease(key, token);
+            }
+        }
+    }
+
+    private <T> T loadAndTrack(Supplier<T> loader, Function<T, String> refreshKey) {
+        long start = System.currentTimeMillis();
+        T value = loader.get();
+        long end = System.currentTimeMillis();
+        if (value != null) {
+            String key = refreshKey.apply(value);
+            loadStats.put(key, loadStats(key, end - start, end));
+        }
+        return value;
+    }
+
+    // Keys are <cache>:<key>; the TTL matches the one the cache applied to the entry
+    private LoadStats loadStats(String key, long computeMillis, long loadedAt) {
+        int separator = key.indexOf(':');
+        String cacheName = separator < 0 ? key : key.substring(0, separator);
+        String cacheKey = separator < 0 ? key : key.substring(separator + 1);
+        long ttlMillis = cachePolicies.ttl(cacheName, cacheKey).toMillis();
+        double refreshAhead = cachePolicies.refreshAhead(cacheName);
+        long refreshAt = refreshAhead > 0
+                ? loadedAt + Math.round(ttlMillis * (1 - Math.min(1.0, refreshAhead)))
+                : Long.MAX_VALUE;
+        return new LoadStats(computeMillis, refreshAt, loadedAt + ttlMillis);
+    }
+
+    private <T> T awaitOtherNode(Supplier<T> cached) {
+        long deadline = System.currentTimeMillis() + leaseWait.toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(LEASE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            T value = cached.get();
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true when we hold the lease, or when Redis cannot be reached (or is being bypassed)
+     * and the caller should load without one. Returns false when leases are disabled.
+     */
+    private boolean tryAcquireLease(String key, String token) {
+        if (!leaseEnabled) {
+            return false;
+        }
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            return true;
+        }
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(LEASE_PREFIX + key, token, leaseTime);
+            onRedisSuccess();
+            return Boolean.TRUE.equals(acquired);
+        } catch (RuntimeException e) {
+            onRedisFailure(e);
+            log.warn("Could not acquire cache load lease for {}: {}", key, e.getMessage());
+            // Behave as if we held it so that we load instead of waiting on a lease nobody can see
+            return true;
+        }
+    }
+
+    // A lease we could not release expires after the lease time
+    private void releaseLease(String key, String token) {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(LEASE_PREFIX + key), token);
+            onRedisSuccess();
+        } catch (RuntimeException e) {
+            onRedisFailure(e);
+            log.debug("Could not release cache load lease for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void onRedisSuccess() {
+        if (circuitBreaker != null) {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    private void onRedisFailure(RuntimeException e) {
+        if (circuitBreaker != null) {
+            circuitBreaker.onFailure(e);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static ThreadFactory refreshThreadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record LoadStats(long computeMillis, long refreshAtMillis, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,187 @@
+package rca.restapi.year2.userservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A cache that keeps a small in-process copy (L1) of entries held in a shared cache (L2, Redis).
+ * Reads go L1 -> L2 -> loader; writes and evictions go to L2 first, then L1, and are broadcast so
+ * that other nodes drop their L1 copy. L1 keys are the string form of the cache key, which is
+ * also what Redis uses, so keys received from other nodes line up with local ones.
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache<String, Object> local;
+    private final org.springframework.cache.Cache remote;
+    private final CacheInvalidationPublisher publisher;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    public TwoTierCache(String name, Cache<String, Object> local, org.springframework.cache.Cache remote,
+                        CacheInvalidationPublisher publisher, MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.publisher = publisher;
+
+        this.l1Hits = requests(meterRegistry, "l1", "hit");
+        this.l1Misses = requests(meterRegistry, "l1", "miss");
+        this.l2Hits = requests(meterRegistry, "l2", "hit");
+        this.l2Misses = requests(meterRegistry, "l2", "miss");
+        hitRatio(meterRegistry, "l1", l1Hits, l1Misses);
+        hitRatio(meterRegistry, "l2", l2Hits, l2Misses);
+        FunctionCounter.builder("cache.tier.evictions", local, c -> c.stats().evictionCount())
+                .tag("cache", name)
+                .tag("tier", "l1")
+                .register(meterRegistry);
+        Gauge.builder("cache.tier.size", local, Cache::estimatedSize)
+                .tag("cache", name)
+                .tag("tier", "l1")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            l1Hits.increment();
+            return value;
+        }
+        l1Misses.increment();
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        local.put(localKey, wrapper.get());
+        return wrapper.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object cached = lookup(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null) {
+            remote.put(key, value);
+            local.put(localKey(key), value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        remote.put(key, value);
+        local.put(localKey(key), value);
+        publisher.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        publisher.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        publisher.publishClear(name);
+    }
+
+    /**
+     * Drops an entry from L1 only. Used when another node announced a change to the shared copy.
+     */
+    void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    /**
+     * Mirrors a write made to the shared copy behind this cache's back (a version-checked set, see
+     * {@link RedisVersionedCacheWriter}): updates L1 and tells other nodes to drop theirs.
+     */
+    void putLocal(Object key, Object value) {
+        if (value == null) {
+            local.invalidate(localKey(key));
+        } else {
+            local.put(localKey(key), value);
+        }
+        publisher.publishEvict(name, localKey(key));
+    }
+
+    /**
+     * {@link #putLocal} with a null value for many keys, broadcast in one pipeline.
+     */
+    void evictLocalAll(Collection<?> keys) {
+        List<String> localKeys = keys.stream().map(TwoTierCache::localKey).toList();
+        local.invalidateAll(localKeys);
+        publisher.publishEvictAll(name, localKeys);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter requests(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("cache.tier.requests")
+                .description("Cache lookups per tier and outcome")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void hitRatio(MeterRegistry meterRegistry, String tier, Counter hits, Counter misses) {
+        Gauge.builder("cache.tier.hit.ratio", () -> {
+                    double total = hits.count() + misses.count();
+                    return total == 0 ? 0.0 : hits.count() / total;
+                })
+                .description("Share of lookups answered by this tier")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,97 @@
+package rca.restapi.year2.userservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Puts a size- and TTL-bounded Caffeine cache in front of every cache of the wrapped (Redis)
+ * manager, and applies invalidations announced by other nodes to the local tier.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationPublisher publisher;
+    private final MeterRegistry meterRegistry;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager remoteCacheManager, CacheInvalidationPublisher publisher,
+                               MeterRegistry meterRegistry, long localMaximumSize, Duration localTtl) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.publisher = publisher;
+        this.meterRegistry = meterRegistry;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> new TwoTierCache(n, Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build(), remote, publisher, meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Brings the local tier in line with an entry written (or, for a null value, removed) directly
+     * in the shared tier, and broadcasts the change to the other nodes.
+     */
+    public void syncLocal(String cacheName, Object key, Object value) {
+        if (getCache(cacheName) instanceof TwoTierCache cache) {
+            cache.putLocal(key, value);
+        }
+    }
+
+    /**
+     * {@link #syncLocal} for many entries removed from the shared tier.
+     */
+    public void syncLocalEvictions(String cacheName, Collection<?> keys) {
+        if (getCache(cacheName) instanceof TwoTierCache cache) {
+            cache.evictLocalAll(keys);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        publisher.parse(new String(message.getBody(), StandardCharsets.UTF_8)).ifPresent(invalidation -> {
+            TwoTierCache cache = caches.get(invalidation.cacheName());
+            if (cache == null) {
+                return;
+            }
+            if (invalidation.key() == null) {
+                cache.clearLocal();
+            } else {
+                cache.evictLocal(invalidation.key());
+            }
+            log.debug("Applied remote invalidation {}::{}", invalidation.cacheName(), invalidation.key());
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package rca.restapi.year2.userservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import rca.restapi.year2.userservice.dto.UserAddressesDto;
+
+import java.util.function.Supplier;
+
+/**
+ * The {@code addresses} cache: one entry per user, keyed by email (the only thing an address
+ * request knows), holding the address list, the default address and the list's revision. A hit
+ * answers list, single-address and default-address reads without a query. Every address write
+ * evicts the entry; misses and refreshes go through {@link SingleFlightLoader}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserAddressCache {
+
+    public static final String ADDRESSES = "addresses";
+
+    private final CacheManager cacheManager;
+    private final SingleFlightLoader singleFlightLoader;
+
+    public UserAddressesDto get(String email, Supplier<UserAddressesDto> loader) {
+        String key = flightKey(email);
+        UserAddressesDto cached = cached(email);
+        if (cached != null) {
+            if (singleFlightLoader.shouldRefreshAhead(key)) {
+                singleFlightLoader.refreshAsync(key, () -> store(email, loader.get()));
+                return cached;
+            }
+            if (!singleFlightLoader.shouldRefreshEarly(key)) {
+                return cached;
+            }
+        }
+        return singleFlightLoader.load(key, () -> cached(email), () -> store(email, loader.get()));
+    }
+
+    /**
+     * Drops the user's cached addresses; inside a transaction this happens after commit.
+     */
+    public void evict(String email) {
+        AfterCommit.run(() -> {
+            addresses().evict(email);
+            log.debug("Evicted cached addresses for {}", email);
+        });
+    }
+
+    private static String flightKey(String email) {
+        return ADDRESSES + ":" + email;
+    }
+
+    private UserAddressesDto cached(String email) {
+        return addresses().get(email, UserAddressesDto.class);
+    }
+
+    private UserAddressesDto store(String email, UserAddressesDto value) {
+        addresses().put(email, value);
+        return value;
+    }
+
+    private Cache addresses() {
+        return cacheManager.getCache(ADDRESSES);
+    }
+}
@@ -0,0 +1,274 @@
+package rca.restapi.year2.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.repository.projection.UserIdentityView;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter over every normalized email and username, so lookups for accounts that
+ * do not exist (enumeration probes, logins and password resets for unknown emails, availability
+ * checks on register) are answered without a database query. A negative answer is definite; a
+ * positive one falls through to the database as before.
+ * <p>
+ * The filter is built by a streaming scan once the application is ready and answers "maybe" for
+ * everything until then. Registrations are added locally and broadcast to the other nodes over
+ * Redis pub/sub. A Bloom filter cannot forget, so deletions only mark it stale; the scheduled pass
+ * rebuilds it (dropping deleted accounts) when anything was removed or it outgrew its sizing.
+ * Additions that race with a rebuild are journaled and replayed into the new filter.
+ * <p>
+ * Pub/sub delivers at most once, and a node that misses a broadcast would rule that account out
+ * (a false negative). So the scheduled pass also rebuilds once the filter is older than
+ * {@code max-age} or the broadcast subscription was re-established after a drop, and retries
+ * broadcasts that failed to send.
+ */
+@Component
+@Slf4j
+public class UserExistenceFilter implements MessageListener, SubscriptionListener {
+
+    private static final String EMAIL_PREFIX = "e:";
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String SEPARATOR = "\n";
+    private static final long MIN_EXPECTED_INSERTIONS = 10_000;
+    // Longest a registering transaction may stay uncommitted and still be missed by a rebuild scan
+    private static final Duration JOURNAL_GRACE = Duration.ofMinutes(5);
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ConcurrentLinkedQueue<JournalEntry> journal = new ConcurrentLinkedQueue<>();
+    private final AtomicLong removalsSinceBuild = new AtomicLong();
+    private final ConcurrentLinkedQueue<JournalEntry> unsent = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final AtomicBoolean resubscribed = new AtomicBoolean();
+    private final Counter negatives;
+    private volatile BloomFilter filter;
+    private volatile long builtAt;
+
+    @Value("${user-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${user-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    @Value("${user-filter.broadcast-channel:}")
+    private String broadcastChannel = "";
+
+    @Value("${user-filter.max-age:1h}")
+    private Duration maxAge = Duration.ofHours(1);
+
+    public UserExistenceFilter(UserRepository userRepository, StringRedisTemplate redisTemplate,
+                               MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.negatives = Counter.builder("user.lookup.filter.negatives")
+                .description("Email/username lookups answered by the existence filter without a query")
+                .register(meterRegistry);
+        Gauge.builder("user.lookup.filter.insertions", this, f -> f.filter != null ? f.filter.insertions() : 0)
+                .description("Entries in the email/username existence filter")
+                .register(meterRegistry);
+    }
+
+    public boolean mightContainEmail(String email) {
+        return mightContain(EMAIL_PREFIX, email);
+    }
+
+    public boolean mightContainUsername(String username) {
+        return mightContain(USERNAME_PREFIX, username);
+    }
+
+    /**
+     * Records a new account on this node and tells the other nodes about it.
+     */
+    public void add(String email, String username) {
+        if (!enabled) {
+            return;
+        }
+        addLocal(email, username);
+        publish(email, username);
+    }
+
+    /**
+     * Records that an account was deleted. Its entries stay in the filter (false positives only)
+     * until the next rebuild.
+     */
+    public void recordRemoval() {
+        removalsSinceBuild.incrementAndGet();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${user-filter.rebuild-cron:0 40 * * * *}")
+    @Transactional(readOnly = true)
+    public void rebuildIfStale() {
+        if (!enabled) {
+            return;
+        }
+        resendUnsent();
+        BloomFilter current = filter;
+        if (current != null && removalsSinceBuild.get() == 0
+                && current.insertions() <= current.expectedInsertions()
+                && System.nanoTime() - builtAt < maxAge.toNanos()
+                && !resubscribed.get()) {
+            log.debug("User existence filter is up to date, skipping rebuild");
+            long expired = System.nanoTime() - JOURNAL_GRACE.toNanos();
+            journal.removeIf(entry -> entry.addedAt() < expired);
+            return;
+        }
+        rebuild();
+    }
+
+    void rebuild() {
+        long startedAt = System.nanoTime();
+        removalsSinceBuild.set(0);
+        resubscribed.set(false);
+        // Two entries per user, with headroom for growth until the next rebuild
+        BloomFilter next = new BloomFilter(Math.max(MIN_EXPECTED_INSERTIONS, userRepository.count() * 3),
+                falsePositiveRate);
+        try (Stream<UserIdentityView> identities = userRepository.streamAllIdentities()) {
+            identities.forEach(identity -> put(next, identity.getEmail(), identity.getUsername()));
+        } catch (DataAccessException e) {
+            log.warn("Could not build the user existence filter: {}", e.getMessage());
+            return;
+        }
+
+        long replayFrom = startedAt - JOURNAL_GRACE.toNanos();
+        swapLock.writeLock().lock();
+        try {
+            journal.removeIf(entry -> entry.addedAt() < replayFrom);
+            journal.forEach(entry -> put(next, entry.email(), entry.username()));
+            filter = next;
+            builtAt = startedAt;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        log.info("Built user existence filter: {} entries, {} KB, {} ms", next.insertions(),
+                next.sizeInBytes() / 1024, Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        addLocal(parts[1].isEmpty() ? null : parts[1], parts[2].isEmpty() ? null : parts[2]);
+    }
+
+    /**
+     * Broadcasts sent while this node was not subscribed are lost; a later subscription (the
+     * listener container recovering from a dropped connection) marks the filter for a rebuild.
+     */
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        if (!broadcastChannel.equals(new String(channel, StandardCharsets.UTF_8))) {
+            return;
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            log.info("Resubscribed to {}, rebuilding the user existence filter on the next pass", broadcastChannel);
+            resubscribed.set(true);
+        }
+    }
+
+    public String getBroadcastChannel() {
+        return broadcastChannel;
+    }
+
+    private boolean mightContain(String prefix, String value) {
+        BloomFilter current = filter;
+        if (!enabled || current == null || value == null) {
+            return true;
+        }
+        if (current.mightContain(prefix + normalize(value))) {
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    private void addLocal(String email, String username) {
+        swapLock.readLock().lock();
+        try {
+            journal.add(new JournalEntry(email, username, System.nanoTime()));
+            BloomFilter current = filter;
+            if (current != null) {
+                put(current, email, username);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void publish(String email, String username) {
+        if (broadcastChannel.isEmpty()) {
+            return;
+        }
+        JournalEntry entry = new JournalEntry(email, username, System.nanoTime());
+        if (!send(entry)) {
+            unsent.add(entry);
+        }
+    }
+
+    // Broadcasts older than max-age are dropped: every node has rebuilt since
+    private void resendUnsent() {
+        long expired = System.nanoTime() - maxAge.toNanos();
+        JournalEntry entry;
+        while ((entry = unsent.peek()) != null) {
+            if (entry.addedAt() >= expired && !send(entry)) {
+                return;
+            }
+            unsent.remove(entry);
+        }
+    }
+
+    private boolean send(JournalEntry entry) {
+        try {
+            redisTemplate.convertAndSend(broadcastChannel, String.join(SEPARATOR, nodeId,
+                    entry.email() != null ? entry.email() : "", entry.username() != null ? entry.username() : ""));
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Could not broadcast new account to the user existence filter: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static void put(BloomFilter target, String email, String username) {
+        if (email != null) {
+            target.put(EMAIL_PREFIX + normalize(email));
+        }
+        if (username != null) {
+            target.put(USERNAME_PREFIX + normalize(username));
+        }
+    }
+
+    static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record JournalEntry(String email, String username, long addedAt) {
+    }
+}
@@ -0,0 +1,242 @@
+package rca.restapi.year2.userservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import rca.restapi.year2.userservice.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code users} cache. Each profile is stored once, under its id; lookups by email go through
+ * a small {@code users-by-email} index (email -> id). An index entry is only trusted when the
+ * profile it points to still carries that email, so a stale index can cost a reload but never
+ * serve the wrong profile, and evicting the id entry is enough to make both lookups fresh.
+ * Misses, refresh-ahead and early refreshes go through {@link SingleFlightLoader}; bulk writes go through
+ * {@link CacheBatchOperations}.
+ * <p>
+ * Profiles are written with {@link VersionedCacheWriter}, versioned by (last update, address
+ * revision), so a write-through after an update and a reader storing what it loaded just before can
+ * land in any order and the newer profile still wins.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserProfileCache {
+
+    public static final String USERS = "users";
+    public static final String EMAIL_INDEX = "users-by-email";
+
+    private final CacheManager cacheManager;
+    private final SingleFlightLoader singleFlightLoader;
+    private final CacheBatchOperations cacheBatchOperations;
+    private final VersionedCacheWriter versionedCacheWriter;
+
+    public UserDto getById(Long id, Supplier<UserDto> loader) {
+        UserDto profile = cachedById(id);
+        if (profile != null && servesHit(profile, loader)) {
+            return profile;
+        }
+        return singleFlightLoader.load(flightKey(id), () -> cachedById(id), () -> store(loader.get()));
+    }
+
+    public UserDto getByEmail(String email, Supplier<UserDto> loader) {
+        UserDto profile = cachedByEmail(email);
+        if (profile != null) {
+            if (servesHit(profile, loader)) {
+                return profile;
+            }
+            return singleFlightLoader.load(flightKey(profile.getId()), () -> cachedByEmail(email),
+                    () -> store(loader.get()));
+        }
+        // Id unknown until loaded: coalesce on the email, track the entry for early refresh by id
+        return singleFlightLoader.load(EMAIL_INDEX + ":" + email, () -> cachedByEmail(email),
+                () -> store(loader.get()), loaded -> flightKey(loaded.getId()));
+    }
+
+    /**
+     * Profiles for many ids with one cache round trip: hits come back in one multi-get, the misses
+     * are loaded together by {@code loader} and written back in one pipeline. Ids without a user are
+     * left out; the result follows the order of {@code ids}. Reads here skip the local tier.
+     */
+    public List<UserDto> getAllByIds(Collection<Long> ids, Function<Collection<Long>, List<UserDto>> loader) {
+        Map<Long, UserDto> found = new HashMap<>(cacheBatchOperations.getAll(USERS, ids, UserDto.class));
+        Set<Long> misses = ids.stream()
+                .filter(id -> !found.containsKey(id))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (!misses.isEmpty()) {
+            List<UserDto> loaded = loader.apply(misses);
+            loaded.forEach(profile -> found.put(profile.getId(), profile));
+            try {
+                storeAll(loaded);
+            } catch (DataAccessException e) {
+                // The profiles are loaded either way; the next batch read just misses again
+                log.debug("Could not cache {} loaded profiles: {}", loaded.size(), e.getMessage());
+            }
+        }
+        return ids.stream()
+                .distinct()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Stores many profiles at once (profiles first, then their index entries), e.g. to warm the
+     * cache. Bypasses the local tier, which fills on first read.
+     */
+    public void storeAll(Collection<UserDto> profiles) {
+        Map<Long, UserDto> byId = new LinkedHashMap<>();
+        Map<String, Long> index = new LinkedHashMap<>();
+        for (UserDto profile : profiles) {
+            byId.put(profile.getId(), profile);
+            index.put(profile.getEmail(), profile.getId());
+        }
+        versionedCacheWriter.putAllIfNewer(USERS, byId, UserProfileCache::version);
+        cacheBatchOperations.putAll(EMAIL_INDEX, index);
+    }
+
+    /**
+     * Writes a freshly updated profile through to every tier, under its id and email, instead of
+     * evicting it. Inside a transaction this happens after commit; the profile must carry the
+     * committed {@code updatedAt}, or a reader's older copy may win.
+     */
+    public void put(UserDto profile) {
+        AfterCommit.run(() -> store(profile));
+    }
+
+    /**
+     * Drops the profile and its email index entry. Inside a transaction this happens after commit,
+     * so a concurrent reader cannot re-cache the pre-commit row after we evicted it.
+     */
+    public void evict(Long id, String email) {
+        AfterCommit.run(() -> doEvict(id, email));
+    }
+
+    /**
+     * Like {@link #evict(Long, String)}, and additionally refuses any later write of this profile
+     * with an address revision below {@code addressRevision}, e.g. one loaded before the addresses
+     * changed by a reader or a concurrent update.
+     */
+    public void evict(Long id, String email, long addressRevision) {
+        evict(id, email, null, addressRevision);
+    }
+
+    /**
+     * Like {@link #evict(Long, String)}, and additionally refuses any later write of this profile
+     * from before the committed row, versioned by ({@code updatedAt}, {@code addressRevision}). For
+     * updates that bump {@code updatedAt} without writing the profile through; {@code updatedAt}
+     * must be the flushed value.
+     */
+    public void evict(Long id, String email, LocalDateTime updatedAt, long addressRevision) {
+        long[] floor = {micros(updatedAt), addressRevision};
+        AfterCommit.run(() -> {
+            versionedCacheWriter.evict(USERS, id, floor);
+            doEvict(null, email);
+        });
+    }
+
+    /**
+     * Drops the profiles of users changed together by one statement at {@code updatedAt}, in one
+     * round trip, and refuses any later write of them from before that change. Email index entries
+     * are kept: the change must not have touched emails. Inside a transaction this happens after
+     * commit.
+     */
+    public void evictAll(Collection<Long> ids, LocalDateTime updatedAt) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        long[] floor = {micros(updatedAt), 0};
+        Map<Long, long[]> floors = new LinkedHashMap<>();
+        ids.forEach(id -> floors.put(id, floor));
+        AfterCommit.run(() -> versionedCacheWriter.evictAll(USERS, floors));
+    }
+
+    /**
+     * Whether a cached profile can be returned as is: near the end of its life it is returned while
+     * a background reload runs (refresh-ahead); false when XFetch picked this hit to reload inline.
+     */
+    private boolean servesHit(UserDto profile, Supplier<UserDto> loader) {
+        String key = flightKey(profile.getId());
+        if (singleFlightLoader.shouldRefreshAhead(key)) {
+            singleFlightLoader.refreshAsync(key, () -> store(loader.get()));
+            return true;
+        }
+        return !singleFlightLoader.shouldRefreshEarly(key);
+    }
+
+    private static String flightKey(Long id) {
+        return USERS + ":" + id;
+    }
+
+    private UserDto cachedById(Long id) {
+        return users().get(id, UserDto.class);
+    }
+
+    private UserDto cachedByEmail(String email) {
+        Long id = indexedId(email);
+        if (id == null) {
+            return null;
+        }
+        UserDto profile = cachedById(id);
+        return profile != null && email.equals(profile.getEmail()) ? profile : null;
+    }
+
+    private UserDto store(UserDto profile) {
+        if (versionedCacheWriter.putIfNewer(USERS, profile.getId(), profile, version(profile))) {
+            emailIndex().put(profile.getEmail(), profile.getId());
+        }
+        return profile;
+    }
+
+    // Micros, the database's precision, so a reloaded row compares equal to the entity it came from
+    static long[] version(UserDto profile) {
+        long addressRevision = profile.getAddressRevision() == null ? 0 : profile.getAddressRevision();
+        return new long[]{micros(profile.getUpdatedAt()), addressRevision};
+    }
+
+    private static long micros(LocalDateTime updatedAt) {
+        return updatedAt == null ? 0 : updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000
+                + updatedAt.getNano() / 1_000;
+    }
+
+    private void doEvict(Long id, String email) {
+        // Profile first: a reader that still finds the index entry then misses and reloads
+        if (id != null) {
+            users().evict(id);
+        }
+        if (email != null) {
+            emailIndex().evict(email);
+        }
+        log.debug("Evicted cached profile for user ID {} ({})", id, email);
+    }
+
+    private Long indexedId(String email) {
+        // JSON serialization may hand back an Integer for small ids
+        Cache.ValueWrapper wrapper = emailIndex().get(email);
+        return wrapper != null && wrapper.get() instanceof Number id ? id.longValue() : null;
+    }
+
+    private Cache users() {
+        return cacheManager.getCache(USERS);
+    }
+
+    private Cache emailIndex() {
+        return cacheManager.getCache(EMAIL_INDEX);
+    }
+}
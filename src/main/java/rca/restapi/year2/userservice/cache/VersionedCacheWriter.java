@@ -0,0 +1,35 @@
+package rca.restapi.year2.userservice.cache;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Version-checked writes, so a late write (a reader storing what it loaded before a commit, or two
+ * write-throughs finishing out of order) can never replace a fresher entry. Each entry carries a
+ * version of one or more components; a version is older than the recorded one when any of its
+ * components is smaller. The recorded version outlives evictions, which may raise it (a floor).
+ */
+public interface VersionedCacheWriter {
+
+    /**
+     * Stores the value unless a newer version of the entry has been recorded; true if stored.
+     */
+    boolean putIfNewer(String cacheName, Object key, Object value, long[] version);
+
+    /**
+     * {@link #putIfNewer} for many entries at once, e.g. a batch of loaded profiles.
+     */
+    <V> void putAllIfNewer(String cacheName, Map<?, V> entries, Function<V, long[]> version);
+
+    /**
+     * Drops the entry and raises its recorded version to at least {@code floor}, component by
+     * component, so nothing older than the change that caused the eviction can be stored again.
+     */
+    void evict(String cacheName, Object key, long[] floor);
+
+    /**
+     * {@link #evict} for many entries at once, e.g. after a bulk update, keyed by entry with each
+     * entry's floor.
+     */
+    void evictAll(String cacheName, Map<?, long[]> floors);
+}
@@ -0,0 +1,75 @@
+package rca.restapi.year2.userservice.cache.hibernate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Hibernate second-level cache in process memory, one bounded Caffeine cache per region. Entity,
+ * natural-id and query-result regions hold at most {@code hibernate.cache.caffeine.maximum_size}
+ * entries each and expire {@code hibernate.cache.caffeine.expire_after_write} (an ISO-8601 duration)
+ * after being written. The update-timestamps region is never bounded: losing a timestamp could
+ * serve a stale query result.
+ * <p>
+ * Local only, like the L1 of {@link rca.restapi.year2.userservice.cache.TwoTierCacheManager} but
+ * without its pub/sub: another node's writes show here once the entry expires, so keep the expiry
+ * as short as the L1 TTL.
+ */
+public class CaffeineRegionFactory extends RegionFactoryTemplate {
+
+    public static final String MAXIMUM_SIZE = "hibernate.cache.caffeine.maximum_size";
+    public static final String EXPIRE_AFTER_WRITE = "hibernate.cache.caffeine.expire_after_write";
+
+    private long maximumSize = 10_000;
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        Object size = configValues.get(MAXIMUM_SIZE);
+        if (size != null) {
+            maximumSize = Long.parseLong(size.toString());
+        }
+        Object expiry = configValues.get(EXPIRE_AFTER_WRITE);
+        if (expiry != null) {
+            expireAfterWrite = Duration.parse(expiry.toString());
+        }
+    }
+
+    @Override
+    protected void releaseFromUse() {
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return new CaffeineStorageAccess(bounded());
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return new CaffeineStorageAccess(bounded());
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        return new CaffeineStorageAccess(Caffeine.newBuilder().build());
+    }
+
+    private Cache<Object, Object> bounded() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package rca.restapi.year2.userservice.cache.hibernate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * One region's entries. Hibernate's access strategies do the locking and versioning on top; this
+ * only stores what they hand over.
+ */
+class CaffeineStorageAccess implements DomainDataStorageAccess {
+
+    private final Cache<Object, Object> cache;
+
+    CaffeineStorageAccess(Cache<Object, Object> cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        if (value == null) {
+            cache.invalidate(key);
+        } else {
+            cache.put(key, value);
+        }
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return cache.getIfPresent(key) != null;
+    }
+
+    @Override
+    public void evictData() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void evictData(Object key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void release() {
+        cache.invalidateAll();
+    }
+}
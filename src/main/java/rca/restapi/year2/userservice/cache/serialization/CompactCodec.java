@@ -0,0 +1,22 @@
+package rca.restapi.year2.userservice.cache.serialization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary encoding for one cached type. The tag identifies the type and its field layout on the wire:
+ * a layout change takes a new tag, so entries in the old layout read as misses (unknown tag) while
+ * other types stay cached. Tags are never reused, including retired ones.
+ * {@link CompactRedisSerializer#FORMAT_VERSION} covers the header only.
+ */
+public interface CompactCodec<T> {
+
+    byte tag();
+
+    Class<T> type();
+
+    void write(DataOutput out, T value) throws IOException;
+
+    T read(DataInput in) throws IOException;
+}
@@ -0,0 +1,165 @@
+package rca.restapi.year2.userservice.cache.serialization;
+
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary cache value serializer. Registered types are written by their {@link CompactCodec} behind
+ * a three byte header:
+ * <pre>
+ *   [format version][type tag][flags] payload
+ * </pre>
+ * Payloads of at least {@code compressionThreshold} bytes are LZ4 compressed (flag bit 0, payload
+ * prefixed with the raw length) when that actually saves space. Any other type goes through the
+ * JSON fallback serializer unchanged, so values written by the old JSON-only configuration, which
+ * always start with a printable character, remain readable. A value with an unknown format version
+ * or type tag reads as a cache miss and is simply reloaded; a truncated or corrupt value, compressed
+ * or not, fails with a {@link SerializationException}.
+ */
+@Slf4j
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    // The header layout; codec layout changes take a new tag instead (see CompactCodec)
+    public static final byte FORMAT_VERSION = 1;
+
+    static final int HEADER_LENGTH = 3;
+    static final byte FLAG_LZ4 = 0x01;
+    // Far above any cached value; a larger raw length header can only be corruption
+    static final int MAX_RAW_LENGTH = 4 * 1024 * 1024;
+    // LZ4 never expands by more than this, so neither can a valid header claim more
+    private static final int MAX_LZ4_RATIO = 255;
+
+    private final Map<Class<?>, CompactCodec<?>> codecsByType = new HashMap<>();
+    private final Map<Byte, CompactCodec<?>> codecsByTag = new HashMap<>();
+    private final RedisSerializer<Object> fallback;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor;
+    private final LZ4SafeDecompressor decompressor;
+
+    /**
+     * @param compressionThreshold payload size from which LZ4 is tried; 0 or less disables it
+     */
+    public CompactRedisSerializer(List<CompactCodec<?>> codecs, RedisSerializer<Object> fallback,
+                                  int compressionThreshold) {
+        for (CompactCodec<?> codec : codecs) {
+            if (codecsByTag.put(codec.tag(), codec) != null) {
+                throw new IllegalArgumentException("Duplicate codec tag " + codec.tag());
+            }
+            codecsByType.put(codec.type(), codec);
+        }
+        this.fallback = fallback;
+        this.compressionThreshold = compressionThreshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.safeDecompressor();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        CompactCodec<?> codec = codecsByType.get(value.getClass());
+        if (codec == null) {
+            return fallback.serialize(value);
+        }
+
+        byte[] payload = encode(codec, value);
+        byte flags = 0;
+        if (compressionThreshold > 0 && payload.length >= compressionThreshold) {
+            byte[] compressed = compress(payload);
+            if (compressed.length < payload.length) {
+                payload = compressed;
+                flags |= FLAG_LZ4;
+            }
+        }
+
+        byte[] bytes = new byte[HEADER_LENGTH + payload.length];
+        bytes[0] = FORMAT_VERSION;
+        bytes[1] = codec.tag();
+        bytes[2] = flags;
+        System.arraycopy(payload, 0, bytes, HEADER_LENGTH, payload.length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        // JSON (fallback or values cached before this serializer) always starts with a printable char
+        if (bytes[0] >= 0x20) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes[0] != FORMAT_VERSION || bytes.length < HEADER_LENGTH) {
+            log.debug("Ignoring cached value with unsupported format version {}", bytes[0]);
+            return null;
+        }
+        CompactCodec<?> codec = codecsByTag.get(bytes[1]);
+        if (codec == null) {
+            log.debug("Ignoring cached value with unknown type tag {}", bytes[1]);
+            return null;
+        }
+
+        try {
+            byte[] payload = (bytes[2] & FLAG_LZ4) != 0
+                    ? decompress(bytes)
+                    : Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length);
+            return codec.read(new DataInputStream(new ByteArrayInputStream(payload)));
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Could not decode cached " + codec.type().getSimpleName(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> byte[] encode(CompactCodec<T> codec, Object value) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            codec.write(out, (T) value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not encode " + codec.type().getSimpleName(), e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private byte[] compress(byte[] payload) {
+        byte[] compressed = new byte[Integer.BYTES + compressor.maxCompressedLength(payload.length)];
+        ByteBuffer.wrap(compressed).putInt(payload.length);
+        int length = compressor.compress(payload, 0, payload.length, compressed, Integer.BYTES,
+                compressed.length - Integer.BYTES);
+        return Arrays.copyOf(compressed, Integer.BYTES + length);
+    }
+
+    // Checks the raw length header before allocating; the safe decompressor bounds every read of the block
+    private byte[] decompress(byte[] bytes) throws IOException {
+        int compressedLength = bytes.length - HEADER_LENGTH - Integer.BYTES;
+        if (compressedLength <= 0) {
+            throw new IOException("Truncated compressed value of " + bytes.length + " bytes");
+        }
+        int rawLength = ByteBuffer.wrap(bytes, HEADER_LENGTH, Integer.BYTES).getInt();
+        if (rawLength < 0 || rawLength > MAX_RAW_LENGTH || rawLength > (long) compressedLength * MAX_LZ4_RATIO) {
+            throw new IOException("Invalid raw length " + rawLength + " for " + compressedLength + " compressed bytes");
+        }
+        byte[] payload = new byte[rawLength];
+        int length = decompressor.decompress(bytes, HEADER_LENGTH + Integer.BYTES, compressedLength, payload, 0);
+        if (length != rawLength) {
+            throw new IOException("Decompressed " + length + " bytes, header says " + rawLength);
+        }
+        return payload;
+    }
+}
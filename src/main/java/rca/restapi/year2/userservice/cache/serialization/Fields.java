@@ -0,0 +1,75 @@
+package rca.restapi.year2.userservice.cache.serialization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Null-aware primitives shared by the codecs. Every nullable field is a presence byte followed by
+ * the value when present.
+ */
+final class Fields {
+
+    private Fields() {
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    static Long readLong(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    // Booleans fit in the presence byte: 0 = null, 1 = false, 2 = true
+    static void writeBoolean(DataOutput out, Boolean value) throws IOException {
+        out.writeByte(value == null ? 0 : value ? 2 : 1);
+    }
+
+    static Boolean readBoolean(DataInput in) throws IOException {
+        byte b = in.readByte();
+        return b == 0 ? null : b == 2;
+    }
+
+    static void writeDateTime(DataOutput out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    static LocalDateTime readDateTime(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long seconds = in.readLong();
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+
+    // Enums travel by name so that reordering constants cannot change cached values
+    static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+        writeString(out, value != null ? value.name() : null);
+    }
+
+    static <E extends Enum<E>> E readEnum(DataInput in, Class<E> type) throws IOException {
+        String name = readString(in);
+        return name != null ? Enum.valueOf(type, name) : null;
+    }
+}
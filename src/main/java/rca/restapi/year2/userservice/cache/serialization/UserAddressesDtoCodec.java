@@ -0,0 +1,70 @@
+package rca.restapi.year2.userservice.cache.serialization;
+
+import rca.restapi.year2.userservice.dto.AddressDto;
+import rca.restapi.year2.userservice.dto.UserAddressesDto;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link UserAddressesDto}: ids, the address list, then the default address (if any). Addresses
+ * use the same layout as in {@link UserDtoCodec}, so changing it takes a new tag in both.
+ */
+public class UserAddressesDtoCodec implements CompactCodec<UserAddressesDto> {
+
+    static final byte TAG = 2;
+
+    @Override
+    public byte tag() {
+        return TAG;
+    }
+
+    @Override
+    public Class<UserAddressesDto> type() {
+        return UserAddressesDto.class;
+    }
+
+    @Override
+    public void write(DataOutput out, UserAddressesDto value) throws IOException {
+        Fields.writeLong(out, value.getUserId());
+        Fields.writeLong(out, value.getRevision());
+
+        List<AddressDto> addresses = value.getAddresses();
+        out.writeInt(addresses != null ? addresses.size() : -1);
+        if (addresses != null) {
+            for (AddressDto address : addresses) {
+                UserDtoCodec.writeAddress(out, address);
+            }
+        }
+
+        out.writeBoolean(value.getDefaultAddress() != null);
+        if (value.getDefaultAddress() != null) {
+            UserDtoCodec.writeAddress(out, value.getDefaultAddress());
+        }
+    }
+
+    @Override
+    public UserAddressesDto read(DataInput in) throws IOException {
+        UserAddressesDto value = UserAddressesDto.builder()
+                .userId(Fields.readLong(in))
+                .revision(Fields.readLong(in))
+                .build();
+
+        int count = in.readInt();
+        if (count >= 0) {
+            List<AddressDto> addresses = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                addresses.add(UserDtoCodec.readAddress(in));
+            }
+            value.setAddresses(addresses);
+        }
+
+        if (in.readBoolean()) {
+            value.setDefaultAddress(UserDtoCodec.readAddress(in));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,111 @@
+package rca.restapi.year2.userservice.cache.serialization;
+
+import rca.restapi.year2.userservice.dto.AddressDto;
+import rca.restapi.year2.userservice.dto.UserDto;
+import rca.restapi.year2.userservice.types.Role;
+import rca.restapi.year2.userservice.types.UserStatus;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link UserDto} with its embedded {@link AddressDto} list, fields in declaration order.
+ */
+public class UserDtoCodec implements CompactCodec<UserDto> {
+
+    // Tag 1 was the layout without updatedAt and addressRevision; such entries now read as misses
+    static final byte TAG = 3;
+
+    @Override
+    public byte tag() {
+        return TAG;
+    }
+
+    @Override
+    public Class<UserDto> type() {
+        return UserDto.class;
+    }
+
+    @Override
+    public void write(DataOutput out, UserDto user) throws IOException {
+        Fields.writeLong(out, user.getId());
+        Fields.writeString(out, user.getUsername());
+        Fields.writeString(out, user.getEmail());
+        Fields.writeString(out, user.getFirstName());
+        Fields.writeString(out, user.getLastName());
+        Fields.writeString(out, user.getPhone());
+        Fields.writeString(out, user.getAvatarUrl());
+        Fields.writeEnum(out, user.getRole());
+        Fields.writeEnum(out, user.getStatus());
+        Fields.writeBoolean(out, user.getEmailVerified());
+        Fields.writeDateTime(out, user.getCreatedAt());
+        Fields.writeDateTime(out, user.getUpdatedAt());
+        Fields.writeDateTime(out, user.getLastLoginAt());
+        Fields.writeLong(out, user.getAddressRevision());
+
+        List<AddressDto> addresses = user.getAddresses();
+        out.writeInt(addresses != null ? addresses.size() : -1);
+        if (addresses != null) {
+            for (AddressDto address : addresses) {
+                writeAddress(out, address);
+            }
+        }
+    }
+
+    @Override
+    public UserDto read(DataInput in) throws IOException {
+        UserDto user = UserDto.builder()
+                .id(Fields.readLong(in))
+                .username(Fields.readString(in))
+                .email(Fields.readString(in))
+                .firstName(Fields.readString(in))
+                .lastName(Fields.readString(in))
+                .phone(Fields.readString(in))
+                .avatarUrl(Fields.readString(in))
+                .role(Fields.readEnum(in, Role.class))
+                .status(Fields.readEnum(in, UserStatus.class))
+                .emailVerified(Fields.readBoolean(in))
+                .createdAt(Fields.readDateTime(in))
+                .updatedAt(Fields.readDateTime(in))
+                .lastLoginAt(Fields.readDateTime(in))
+                .addressRevision(Fields.readLong(in))
+                .build();
+
+        int count = in.readInt();
+        if (count >= 0) {
+            List<AddressDto> addresses = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                addresses.add(readAddress(in));
+            }
+            user.setAddresses(addresses);
+        }
+        return user;
+    }
+
+    static void writeAddress(DataOutput out, AddressDto address) throws IOException {
+        Fields.writeLong(out, address.getId());
+        Fields.writeString(out, address.getLabel());
+        Fields.writeString(out, address.getStreetAddress());
+        Fields.writeString(out, address.getCity());
+        Fields.writeString(out, address.getState());
+        Fields.writeString(out, address.getPostalCode());
+        Fields.writeString(out, address.getCountry());
+        Fields.writeBoolean(out, address.getIsDefault());
+    }
+
+    static AddressDto readAddress(DataInput in) throws IOException {
+        return AddressDto.builder()
+                .id(Fields.readLong(in))
+                .label(Fields.readString(in))
+                .streetAddress(Fields.readString(in))
+                .city(Fields.readString(in))
+                .state(Fields.readString(in))
+                .postalCode(Fields.readString(in))
+                .country(Fields.readString(in))
+                .isDefault(Fields.readBoolean(in))
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package rca.restapi.year2.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import rca.restapi.year2.userservice.datasource.ReadYourWritesTracker;
+import rca.restapi.year2.userservice.datasource.ReplicaRoutingDataSource;
+import rca.restapi.year2.userservice.datasource.ReplicationLagMonitor;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Two Hikari pools, {@code primary} ({@code spring.datasource}) and {@code replica}
+ * ({@code datasource.replica}), each with its own {@code hikaricp.*} metrics under its pool name,
+ * behind a {@link ReplicaRoutingDataSource}. Flyway migrates through the primary pool only.
+ * Without {@code datasource.replica.enabled} Spring Boot's single pool is used as before.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties, MeterRegistry meterRegistry) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        return named(pool, "primary", meterRegistry);
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties, MeterRegistry meterRegistry,
+                                              @Value("${datasource.replica.url}") String url,
+                                              @Value("${datasource.replica.username:}") String username,
+                                              @Value("${datasource.replica.password:}") String password) {
+        HikariDataSource pool = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username.isEmpty() ? properties.determineUsername() : username)
+                .password(password.isEmpty() ? properties.determinePassword() : password)
+                .build();
+        // A write that reaches the replica by mistake fails instead of being attempted
+        pool.setReadOnly(true);
+        return named(pool, "replica", meterRegistry);
+    }
+
+    @Bean
+    public ReplicationLagMonitor replicationLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                                       @Value("${datasource.replica.lag-query:}") String lagQuery,
+                                                       @Value("${datasource.replica.max-lag:2s}") Duration maxLag,
+                                                       MeterRegistry meterRegistry) {
+        return new ReplicationLagMonitor(replica,
+                lagQuery.isBlank() ? ReplicationLagMonitor.POSTGRES_LAG_QUERY : lagQuery, maxLag, meterRegistry);
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${datasource.replica.read-your-writes-window:5s}") Duration window,
+            @Value("${datasource.replica.max-lag:2s}") Duration maxLag,
+            @Value("${datasource.replica.read-your-writes-max-users:100000}") long maximumUsers) {
+        // A replica allowed to lag by max-lag may need that long to show the user's write
+        return new ReadYourWritesTracker(window.compareTo(maxLag) < 0 ? maxLag : window, maximumUsers);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicationLagMonitor lagMonitor, ReadYourWritesTracker readYourWrites,
+                                 MeterRegistry meterRegistry) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, lagMonitor,
+                readYourWrites, meterRegistry);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    // Set here rather than left to Spring Boot's binder, which skips pools that started before it ran
+    private static HikariDataSource named(HikariDataSource pool, String name, MeterRegistry meterRegistry) {
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
@@ -6,6 +6,12 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,18 +19,41 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import rca.restapi.year2.userservice.cache.CacheBatchOperations;
+import rca.restapi.year2.userservice.cache.CacheCircuitBreaker;
+import rca.restapi.year2.userservice.cache.CacheInvalidationPublisher;
+import rca.restapi.year2.userservice.cache.CachePolicies;
+import rca.restapi.year2.userservice.cache.RedisCacheBatchOperations;
+import rca.restapi.year2.userservice.cache.RedisVersionedCacheWriter;
+import rca.restapi.year2.userservice.cache.ResilientCacheManager;
+import rca.restapi.year2.userservice.cache.SimpleCacheBatchOperations;
+import rca.restapi.year2.userservice.cache.SimpleVersionedCacheWriter;
+import rca.restapi.year2.userservice.cache.TwoTierCacheManager;
+import rca.restapi.year2.userservice.cache.UserExistenceFilter;
+import rca.restapi.year2.userservice.cache.VersionedCacheWriter;
+import rca.restapi.year2.userservice.cache.serialization.CompactRedisSerializer;
+import rca.restapi.year2.userservice.cache.serialization.UserAddressesDtoCodec;
+import rca.restapi.year2.userservice.cache.serialization.UserDtoCodec;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CachePolicies.class)
 public class RedisConfig {
 
-        // Private helper method - NOT a bean, so it won't affect Spring MVC
-        private ObjectMapper createRedisObjectMapper() {
+        // Static helper - NOT a bean, so it won't affect Spring MVC
+        public static ObjectMapper createRedisObjectMapper() {
                 ObjectMapper objectMapper = new ObjectMapper();
                 objectMapper.registerModule(new JavaTimeModule());
                 objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
@@ -53,22 +82,131 @@ public class RedisConfig {
                 return template;
         }
 
+        // Local L1 in front of the Redis L2; see TwoTierCache. Off when spring.cache.type is not redis
+        // (e.g. the test profile), which falls back to Boot's auto-configured cache manager.
         @Bean
-        public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
-                // Use the ObjectMapper with type info for cache serialization
-                GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(
+        @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis", matchIfMissing = true)
+        public TwoTierCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                        RedisSerializer<Object> cacheValueSerializer,
+                        StringRedisTemplate stringRedisTemplate,
+                        MeterRegistry meterRegistry,
+                        CachePolicies cachePolicies,
+                        CacheCircuitBreaker cacheCircuitBreaker,
+                        @Value("${cache.l1.maximum-size:10000}") long localMaximumSize,
+                        @Value("${cache.l1.ttl:60s}") Duration localTtl,
+                        @Value("${cache.invalidation-channel:cache:invalidation}") String invalidationChannel,
+                        @Value("${cache.circuit-breaker.max-pending-evictions:1000}") int maxPendingEvictions) {
+                return new TwoTierCacheManager(
+                                new ResilientCacheManager(
+                                                redisCacheManager(redisConnectionFactory, cacheValueSerializer,
+                                                                cachePolicies),
+                                                cacheCircuitBreaker,
+                                                maxPendingEvictions),
+                                new CacheInvalidationPublisher(stringRedisTemplate, invalidationChannel,
+                                                cacheCircuitBreaker),
+                                meterRegistry,
+                                localMaximumSize,
+                                localTtl);
+        }
+
+        // While Redis is failing, reads skip it (L1 or the database answer) instead of each waiting
+        // out the command timeout; see ResilientCache
+        @Bean
+        @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis", matchIfMissing = true)
+        public CacheCircuitBreaker cacheCircuitBreaker(MeterRegistry meterRegistry,
+                        @Value("${cache.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                        @Value("${cache.circuit-breaker.open-duration:10s}") Duration openDuration) {
+                return new CacheCircuitBreaker(failureThreshold, openDuration, meterRegistry);
+        }
+
+        @Bean
+        @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis", matchIfMissing = true)
+        public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+                        RedisConnectionFactory redisConnectionFactory,
+                        TwoTierCacheManager cacheManager,
+                        UserExistenceFilter userExistenceFilter,
+                        @Value("${cache.invalidation-channel:cache:invalidation}") String invalidationChannel) {
+                RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+                container.setConnectionFactory(redisConnectionFactory);
+                container.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+                if (!userExistenceFilter.getBroadcastChannel().isEmpty()) {
+                        container.addMessageListener(userExistenceFilter,
+                                        new ChannelTopic(userExistenceFilter.getBroadcastChannel()));
+                }
+                return container;
+        }
+
+        // Bulk cache reads and writes (batch lookups, warm-up): MGET and pipelined SETs straight to Redis,
+        // with the cache manager's layout and TTLs
+        @Bean
+        @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis", matchIfMissing = true)
+        public CacheBatchOperations redisCacheBatchOperations(StringRedisTemplate stringRedisTemplate,
+                        RedisSerializer<Object> cacheValueSerializer,
+                        CachePolicies cachePolicies,
+                        CacheCircuitBreaker cacheCircuitBreaker) {
+                return new RedisCacheBatchOperations(stringRedisTemplate, cacheValueSerializer, cachePolicies,
+                                cacheCircuitBreaker);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(CacheBatchOperations.class)
+        public CacheBatchOperations simpleCacheBatchOperations(CacheManager cacheManager) {
+                return new SimpleCacheBatchOperations(cacheManager);
+        }
+
+        // Version-checked writes (write-through after updates): a Lua compare-and-set per entry, then the
+        // local tier is synced; see RedisVersionedCacheWriter
+        @Bean
+        @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis", matchIfMissing = true)
+        public VersionedCacheWriter redisVersionedCacheWriter(StringRedisTemplate stringRedisTemplate,
+                        RedisSerializer<Object> cacheValueSerializer,
+                        CachePolicies cachePolicies,
+                        CacheCircuitBreaker cacheCircuitBreaker,
+                        TwoTierCacheManager cacheManager) {
+                return new RedisVersionedCacheWriter(stringRedisTemplate, cacheValueSerializer, cachePolicies,
+                                cacheCircuitBreaker, cacheManager);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(VersionedCacheWriter.class)
+        public VersionedCacheWriter simpleVersionedCacheWriter(CacheManager cacheManager) {
+                return new SimpleVersionedCacheWriter(cacheManager);
+        }
+
+        // Cache values: compact binary for known DTOs (cache.serialization.format=compact), typed JSON
+        // for everything else and when the format is json
+        @Bean
+        public RedisSerializer<Object> cacheValueSerializer(
+                        @Value("${cache.serialization.format:compact}") String format,
+                        @Value("${cache.serialization.compression-threshold:1024}") int compressionThreshold) {
+                GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer(
                                 createRedisObjectMapper());
+                if ("json".equalsIgnoreCase(format)) {
+                        return json;
+                }
+                return new CompactRedisSerializer(List.of(new UserDtoCodec(), new UserAddressesDtoCodec()), json,
+                                compressionThreshold);
+        }
 
+        // Per-cache TTLs (cache.policies), jittered per key; see CachePolicies
+        private RedisCacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory,
+                        RedisSerializer<Object> serializer, CachePolicies cachePolicies) {
                 RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                                .entryTtl(Duration.ofHours(1))
+                                .entryTtl((key, value) -> cachePolicies.ttl(null, key))
                                 .serializeKeysWith(
                                                 RedisSerializationContext.SerializationPair
                                                                 .fromSerializer(new StringRedisSerializer()))
                                 .serializeValuesWith(
                                                 RedisSerializationContext.SerializationPair.fromSerializer(serializer))
                                 .disableCachingNullValues();
-                return RedisCacheManager.builder(redisConnectionFactory)
+                Map<String, RedisCacheConfiguration> perCache = new HashMap<>();
+                cachePolicies.getPolicies().keySet().forEach(name -> perCache.put(name,
+                                config.entryTtl((key, value) -> cachePolicies.ttl(name, key))));
+                RedisCacheManager cacheManager = RedisCacheManager.builder(redisConnectionFactory)
                                 .cacheDefaults(config)
+                                .withInitialCacheConfigurations(perCache)
                                 .build();
+                cacheManager.afterPropertiesSet();
+                return cacheManager;
         }
 }
@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import rca.restapi.year2.userservice.dto.AddressDto;
+import rca.restapi.year2.userservice.dto.UserAddressesDto;
 import rca.restapi.year2.userservice.dto.requests.CreateAddressRequest;
 import rca.restapi.year2.userservice.service.AddressService;
 
@@ -27,8 +28,11 @@ public class AddressController {
         String email = authentication.getName();
         log.info("Fetching addresses for user: {}", email);
 
-        List<AddressDto> addresses = addressService.getUserAddresses(email);
-        return ResponseEntity.ok(addresses);
+        // A matching If-None-Match gets a 304 without writing the body
+        UserAddressesDto addresses = addressService.getUserAddressList(email);
+        return ResponseEntity.ok()
+                .eTag(ETags.forAddresses(addresses))
+                .body(addresses.getAddresses());
     }
 
     @GetMapping("/{addressId}")
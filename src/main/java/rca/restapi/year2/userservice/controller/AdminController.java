@@ -1,18 +1,27 @@
 package rca.restapi.year2.userservice.controller;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import rca.restapi.year2.userservice.dto.CursorPageDto;
 import rca.restapi.year2.userservice.dto.UserDto;
+import rca.restapi.year2.userservice.dto.UserSummaryDto;
+import rca.restapi.year2.userservice.dto.requests.BulkStatusUpdateRequest;
+import rca.restapi.year2.userservice.dto.requests.UserExportFilter;
+import rca.restapi.year2.userservice.types.ExportFormat;
 import rca.restapi.year2.userservice.types.Role;
 import rca.restapi.year2.userservice.types.UserStatus;
+import rca.restapi.year2.userservice.service.UserExportService;
 import rca.restapi.year2.userservice.service.UserService;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -23,6 +32,7 @@ import java.util.Map;
 public class AdminController {
 
     private final UserService userService;
+    private final UserExportService userExportService;
 
     @GetMapping
     public ResponseEntity<Page<UserDto>> getAllUsers(Pageable pageable) {
@@ -31,6 +41,32 @@ public class AdminController {
         return ResponseEntity.ok(users);
     }
 
+    // Keyset mode: pass cursor= (empty) for the first page, then each page's nextCursor
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageDto<UserDto>> getUsersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        log.info("Admin: Fetching users by cursor");
+        CursorPageDto<UserDto> users = userService.getUsersAfter(cursor, limit, includeTotal);
+        return ResponseEntity.ok(users);
+    }
+
+    // Streams every matching user (NDJSON or CSV); see UserExportService
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "ndjson") String format,
+            UserExportFilter filter) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        log.info("Admin: Exporting users as {} with {}", exportFormat, filter);
+        StreamingResponseBody body = out -> userExportService.export(filter, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"users." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     @GetMapping("/{userId}")
     public ResponseEntity<UserDto> getUserById(@PathVariable Long userId) {
         log.info("Admin: Fetching user by ID: {}", userId);
@@ -38,10 +74,14 @@ public class AdminController {
         return ResponseEntity.ok(user);
     }
 
+    // Cursor-paginated like the keyset listing: pass each page's nextCursor to get the next one
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<UserDto>> getUsersByStatus(@PathVariable UserStatus status) {
+    public ResponseEntity<CursorPageDto<UserSummaryDto>> getUsersByStatus(
+            @PathVariable UserStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
         log.info("Admin: Fetching users by status: {}", status);
-        List<UserDto> users = userService.getUsersByStatus(status);
+        CursorPageDto<UserSummaryDto> users = userService.getUsersByStatus(status, cursor, limit);
         return ResponseEntity.ok(users);
     }
 
@@ -56,6 +96,18 @@ public class AdminController {
         return ResponseEntity.ok(user);
     }
 
+    @PutMapping("/status")
+    public ResponseEntity<Map<String, Object>> updateUsersStatus(
+            @Valid @RequestBody BulkStatusUpdateRequest request) {
+        log.info("Admin: Updating {} users' status to: {}", request.getUserIds().size(), request.getStatus());
+
+        int updated = userService.updateUsersStatus(request.getUserIds(), request.getStatus());
+        return ResponseEntity.ok(Map.of(
+                "status", request.getStatus(),
+                "requested", request.getUserIds().size(),
+                "updated", updated));
+    }
+
     @PutMapping("/{userId}/role")
     public ResponseEntity<UserDto> updateUserRole(
             @PathVariable Long userId,
@@ -50,10 +50,16 @@ public class AuthenticationController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<Map<String, String>> logout(Authentication authentication) {
+    public ResponseEntity<Map<String, String>> logout(
+            Authentication authentication,
+            @RequestParam(required = false) String deviceId) {
         String email = authentication.getName();
         log.info("Logout request received for: {}", email);
-        authenticationService.logout(email);
+        if (deviceId != null) {
+            authenticationService.logout(email, deviceId);
+        } else {
+            authenticationService.logout(email);
+        }
         return ResponseEntity.ok(Map.of("message", "Logged out successfully"));
     }
 
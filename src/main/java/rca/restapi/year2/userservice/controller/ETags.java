@@ -0,0 +1,39 @@
+package rca.restapi.year2.userservice.controller;
+
+import rca.restapi.year2.userservice.dto.UserAddressesDto;
+import rca.restapi.year2.userservice.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Strong ETags for per-user reads, built from version data the cached value already carries, so a
+ * conditional GET answered with 304 needs neither a query nor serialization. A profile changes
+ * with {@code updatedAt} (every save) or its address revision (every address write); the address
+ * list only with the revision. Ids are included because {@code /users/me} is one URL for everyone.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String forProfile(UserDto user) {
+        return String.format("\"u%d-%s-%d\"",
+                user.getId(), timestamp(user.getUpdatedAt()), revision(user.getAddressRevision()));
+    }
+
+    static String forAddresses(UserAddressesDto addresses) {
+        return String.format("\"a%d-%d\"", addresses.getUserId(), revision(addresses.getRevision()));
+    }
+
+    private static String timestamp(LocalDateTime time) {
+        if (time == null) {
+            return "0";
+        }
+        return Long.toHexString(time.toEpochSecond(ZoneOffset.UTC)) + "." + Integer.toHexString(time.getNano());
+    }
+
+    private static long revision(Long revision) {
+        return revision != null ? revision : 0L;
+    }
+}
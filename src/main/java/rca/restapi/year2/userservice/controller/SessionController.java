@@ -0,0 +1,52 @@
+package rca.restapi.year2.userservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import rca.restapi.year2.userservice.dto.DeviceSessionDto;
+import rca.restapi.year2.userservice.service.AuthenticationService;
+import rca.restapi.year2.userservice.service.SessionService;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/users/me/sessions")
+@RequiredArgsConstructor
+@Slf4j
+public class SessionController {
+
+    private final SessionService sessionService;
+    private final AuthenticationService authenticationService;
+
+    @GetMapping
+    public ResponseEntity<List<DeviceSessionDto>> getSessions(Authentication authentication) {
+        String email = authentication.getName();
+        log.info("Fetching sessions for user: {}", email);
+
+        List<DeviceSessionDto> sessions = sessionService.getSessions(email);
+        return ResponseEntity.ok(sessions);
+    }
+
+    @DeleteMapping("/{deviceId}")
+    public ResponseEntity<Map<String, String>> revokeSession(
+            Authentication authentication,
+            @PathVariable String deviceId) {
+        String email = authentication.getName();
+        log.info("Revoking session {} for user: {}", deviceId, email);
+
+        sessionService.revokeSession(email, deviceId);
+        return ResponseEntity.ok(Map.of("message", "Session revoked successfully"));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Map<String, String>> revokeAllSessions(Authentication authentication) {
+        String email = authentication.getName();
+        log.info("Revoking all sessions for user: {}", email);
+
+        authenticationService.logout(email);
+        return ResponseEntity.ok(Map.of("message", "All sessions revoked successfully"));
+    }
+}
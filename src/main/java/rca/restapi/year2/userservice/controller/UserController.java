@@ -26,8 +26,9 @@ public class UserController {
         String email = authentication.getName();
         log.info("Fetching current user profile: {}", email);
 
+        // A matching If-None-Match gets a 304 without writing the body
         UserDto user = userService.getUserByEmail(email);
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok().eTag(ETags.forProfile(user)).body(user);
     }
 
     @PutMapping("/me")
@@ -66,6 +67,6 @@ public class UserController {
         log.info("Fetching user by ID: {}", userId);
 
         UserDto user = userService.getUserById(userId);
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok().eTag(ETags.forProfile(user)).body(user);
     }
 }
\ No newline at end of file
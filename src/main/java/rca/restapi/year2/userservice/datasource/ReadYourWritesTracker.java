@@ -0,0 +1,31 @@
+package rca.restapi.year2.userservice.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Remembers who wrote recently, so that their own reads keep going to the primary until the replica
+ * has had time to catch up (the window). Per node: a user whose next request lands on another node
+ * is only covered by the lag guard there.
+ */
+public class ReadYourWritesTracker {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(Duration window, long maximumSize) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    public void recordWrite(String principal) {
+        recentWriters.put(principal, Boolean.TRUE);
+    }
+
+    public boolean isSticky(String principal) {
+        return recentWriters.getIfPresent(principal) != null;
+    }
+}
@@ -0,0 +1,120 @@
+package rca.restapi.year2.userservice.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work (including Spring Data's read methods) to the
+ * replica and everything else to the primary. A read-only transaction still uses the primary when
+ * the replica lags ({@link ReplicationLagMonitor}) or when the current user wrote within the
+ * read-your-writes window ({@link ReadYourWritesTracker}); committing a read-write transaction
+ * starts that window.
+ * <p>
+ * The route is picked when a connection is fetched, so this must sit behind a
+ * {@link LazyConnectionDataSourceProxy}: the transaction manager asks for a connection before the
+ * read-only flag of the new transaction is visible here, the proxy only fetches one on the first
+ * statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route { PRIMARY, REPLICA }
+
+    private final ReplicationLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWrites;
+    private final Counter readWrite;
+    private final Counter readOnly;
+    private final Counter sticky;
+    private final Counter lagging;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicationLagMonitor lagMonitor,
+                                    ReadYourWritesTracker readYourWrites, MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWrites = readYourWrites;
+        this.readWrite = routed(meterRegistry, Route.PRIMARY, "read-write");
+        this.readOnly = routed(meterRegistry, Route.REPLICA, "read-only");
+        this.sticky = routed(meterRegistry, Route.PRIMARY, "read-your-writes");
+        this.lagging = routed(meterRegistry, Route.PRIMARY, "replica-lagging");
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getResolvedDataSources().get(route(true)).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getResolvedDataSources().get(route(true)).getConnection(username, password);
+    }
+
+    // Also asked by unwrap() and friends, which must not count as routed connections
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return route(false);
+    }
+
+    private Route route(boolean fetching) {
+        String principal = currentPrincipal();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (fetching) {
+                readWrite.increment();
+                if (principal != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            readYourWrites.recordWrite(principal);
+                        }
+                    });
+                }
+            }
+            return Route.PRIMARY;
+        }
+        if (principal != null && readYourWrites.isSticky(principal)) {
+            count(fetching, sticky);
+            return Route.PRIMARY;
+        }
+        if (!lagMonitor.isReplicaUsable()) {
+            count(fetching, lagging);
+            return Route.PRIMARY;
+        }
+        count(fetching, readOnly);
+        return Route.REPLICA;
+    }
+
+    private static void count(boolean fetching, Counter counter) {
+        if (fetching) {
+            counter.increment();
+        }
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, Route route, String reason) {
+        return Counter.builder("datasource.routing")
+                .description("Connections fetched, by pool and the reason it was chosen")
+                .tag("pool", route.name().toLowerCase())
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
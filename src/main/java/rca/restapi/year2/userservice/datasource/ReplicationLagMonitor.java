@@ -0,0 +1,73 @@
+package rca.restapi.year2.userservice.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how far the replica is behind the primary and decides whether reads may go there. The
+ * replica is only used after a check found it within {@code datasource.replica.max-lag}; a failed
+ * check counts as lagging, so reads fall back to the primary until the replica answers again.
+ */
+@Slf4j
+public class ReplicationLagMonitor {
+
+    // Seconds behind the primary; 0 when everything received has been replayed, since the replay
+    // timestamp alone would make an idle primary look like a lagging replica
+    public static final String POSTGRES_LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())
+            END
+            """;
+
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final AtomicLong lagMillis = new AtomicLong(-1);
+    private volatile boolean usable;
+
+    public ReplicationLagMonitor(DataSource replica, String lagQuery, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        Gauge.builder("datasource.replica.lag", lagMillis, AtomicLong::get)
+                .description("Replication lag of the read replica in milliseconds, -1 when unknown")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval:1s}")
+    public void check() {
+        boolean wasUsable = usable;
+        try {
+            Number lag = replica.queryForObject(lagQuery, Number.class);
+            long millis = lag == null ? 0 : Math.round(lag.doubleValue() * 1000);
+            lagMillis.set(millis);
+            usable = millis <= maxLag.toMillis();
+        } catch (DataAccessException e) {
+            lagMillis.set(-1);
+            usable = false;
+            if (wasUsable) {
+                log.warn("Replica lag check failed, reading from the primary: {}", e.getMessage());
+            }
+        }
+        if (wasUsable && !usable && lagMillis.get() >= 0) {
+            log.warn("Replica is {} ms behind (limit {} ms), reading from the primary", lagMillis.get(), maxLag.toMillis());
+        } else if (!wasUsable && usable) {
+            log.info("Replica is {} ms behind, routing read-only transactions to it", lagMillis.get());
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+}
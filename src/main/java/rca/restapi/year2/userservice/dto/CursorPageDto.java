@@ -0,0 +1,22 @@
+package rca.restapi.year2.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is opaque and null on the last page;
+ * {@code estimatedTotal} is only filled in when asked for, and is an estimate.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> items;
+    private String nextCursor;
+    private Long estimatedTotal;
+}
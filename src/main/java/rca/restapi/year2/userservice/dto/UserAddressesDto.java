@@ -0,0 +1,19 @@
+package rca.restapi.year2.userservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserAddressesDto {
+    private Long userId;
+    private Long revision;
+    private List<AddressDto> addresses;
+    private AddressDto defaultAddress;
+}
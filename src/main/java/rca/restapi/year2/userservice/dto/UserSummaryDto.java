@@ -0,0 +1,31 @@
+package rca.restapi.year2.userservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import rca.restapi.year2.userservice.types.Role;
+import rca.restapi.year2.userservice.types.UserStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user as shown in admin listings; the full profile, addresses included, is {@link UserDto}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDto {
+    private Long id;
+    private String username;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private Role role;
+    private UserStatus status;
+    private Boolean emailVerified;
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+}
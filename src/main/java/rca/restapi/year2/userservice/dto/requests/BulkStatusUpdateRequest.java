@@ -0,0 +1,25 @@
+package rca.restapi.year2.userservice.dto.requests;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import rca.restapi.year2.userservice.types.UserStatus;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateRequest {
+    @NotEmpty(message = "At least one user ID is required")
+    @Size(max = 10000, message = "At most 10000 users can be updated at once")
+    private List<@NotNull Long> userIds;
+
+    @NotNull(message = "Status is required")
+    private UserStatus status;
+}
@@ -2,6 +2,7 @@ package rca.restapi.year2.userservice.dto.requests;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,4 +20,11 @@ public class LoginRequest {
 
     @NotBlank(message = "Password is required")
     private String password;
+
+    // Optional; logins without a device id share a single "default" session
+    @Size(max = 100, message = "Device ID must not exceed 100 characters")
+    private String deviceId;
+
+    @Size(max = 100, message = "Device name must not exceed 100 characters")
+    private String deviceName;
 }
\ No newline at end of file
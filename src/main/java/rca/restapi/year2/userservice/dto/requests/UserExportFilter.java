@@ -0,0 +1,29 @@
+package rca.restapi.year2.userservice.dto.requests;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import rca.restapi.year2.userservice.types.Role;
+import rca.restapi.year2.userservice.types.UserStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for the user export; unset fields do not filter. The created range is
+ * inclusive of {@code createdFrom} and exclusive of {@code createdTo}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserExportFilter {
+    private UserStatus status;
+    private Role role;
+    private Boolean verified;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+}
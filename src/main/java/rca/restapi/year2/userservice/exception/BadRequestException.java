@@ -0,0 +1,7 @@
+package rca.restapi.year2.userservice.exception;
+
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -8,7 +8,8 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "addresses")
+@Table(name = "addresses",
+        indexes = @Index(name = "idx_addresses_user_id", columnList = "user_id"))
 @EntityListeners(AuditingEntityListener.class)
 @Getter
 @Setter
@@ -0,0 +1,27 @@
+package rca.restapi.year2.userservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-device session record. Not a JPA entity: sessions are indexed in a Redis hash per user
+ * (see {@link rca.restapi.year2.userservice.service.SessionService}), the refresh token row in
+ * Postgres remains the source of truth for whether the session is still valid. The token itself is
+ * never copied here. Entries written before that still carry a {@code refreshToken} property, which
+ * is ignored.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceSession {
+    private String deviceId;
+    private String deviceName;
+    private LocalDateTime createdAt;
+}
@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "refresh_tokens",
-        indexes = @Index(name = "idx_token", columnList = "token"))
+        indexes = {
+                @Index(name = "idx_token", columnList = "token"),
+                @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id")
+        })
 @EntityListeners(AuditingEntityListener.class)
 @Getter
 @Setter
@@ -26,9 +29,13 @@ public class RefreshToken {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @Column(nullable = false, unique = true, length = 255)
+    // Not unique at the database level: refresh_tokens is range-partitioned on expires_at
+    @Column(nullable = false, length = 512)
     private String token;
 
+    @Column(name = "device_id", length = 100)
+    private String deviceId;
+
     @Column(name = "expires_at", nullable = false)
     private LocalDateTime expiresAt;
 
@@ -2,6 +2,11 @@ package rca.restapi.year2.userservice.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Check;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -11,14 +16,21 @@ import rca.restapi.year2.userservice.types.UserStatus;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 @Entity
 @Table(name = "users",
         indexes = {
-                @Index(name = "idx_email", columnList = "email"),
-                @Index(name = "idx_username", columnList = "username")
+                @Index(name = "idx_username", columnList = "username"),
+                @Index(name = "idx_users_status_created_at_id", columnList = "status, created_at, id"),
+                @Index(name = "idx_users_created_at_id", columnList = "created_at, id")
         })
+@Check(name = "ck_users_email_normalized", constraints = "email = lower(trim(email))")
+// Second-level cached, by id and by email (UserRepository.findByEmail); see CaffeineRegionFactory
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @EntityListeners(AuditingEntityListener.class)
 @Getter
 @Setter
@@ -34,6 +46,7 @@ public class User {
     @Column(nullable = false, unique = true, length = 50)
     private String username;
 
+    @NaturalId
     @Column(nullable = false, unique = true, length = 100)
     private String email;
 
@@ -81,6 +94,11 @@ public class User {
     @Column(name = "last_login_at")
     private LocalDateTime lastLoginAt;
 
+    // Bumped by every address change; versions the cached address list
+    @Column(name = "address_revision", nullable = false)
+    @Builder.Default
+    private Long addressRevision = 0L;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private Set<Address> addresses = new HashSet<>();
@@ -89,6 +107,20 @@ public class User {
     @Builder.Default
     private Set<RefreshToken> refreshTokens = new HashSet<>();
 
+    /**
+     * The form emails are stored and looked up in: trimmed and lower-cased, so that addresses
+     * differing only in case are the same account and lookups stay exact matches on the index.
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeEmail() {
+        email = normalizeEmail(email);
+    }
+
     // Helper methods
     public void addAddress(Address address) {
         addresses.add(address);
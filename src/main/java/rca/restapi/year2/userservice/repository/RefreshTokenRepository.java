@@ -5,8 +5,10 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import rca.restapi.year2.userservice.model.RefreshToken;
+import rca.restapi.year2.userservice.repository.projection.RefreshTokenView;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,10 +16,29 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
 
     Optional<RefreshToken> findByToken(String token);
 
+    @Query("SELECT new rca.restapi.year2.userservice.repository.projection.RefreshTokenView(" +
+            "rt.expiresAt, rt.revoked, rt.deviceId, u.id, u.username, u.email, u.role, u.status) " +
+            "FROM RefreshToken rt JOIN rt.user u WHERE rt.token = :token")
+    Optional<RefreshTokenView> findViewByToken(String token);
+
     @Modifying
     @Query("DELETE FROM RefreshToken rt WHERE rt.user.id = :userId")
     void deleteAllByUserId(Long userId);
 
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.user.id = :userId AND rt.deviceId = :deviceId")
+    int deleteByUserIdAndDeviceId(Long userId, String deviceId);
+
+    // The device's earlier sessions, keeping the token just issued to it
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.user.id = :userId AND rt.deviceId = :deviceId AND rt.token <> :token")
+    void deleteOtherDeviceTokens(Long userId, String deviceId, String token);
+
+    // Devices holding a live token, the one signed in longest ago first
+    @Query("SELECT rt.deviceId FROM RefreshToken rt WHERE rt.user.id = :userId AND rt.deviceId IS NOT NULL " +
+            "AND rt.revoked = false AND rt.expiresAt > :now GROUP BY rt.deviceId ORDER BY MAX(rt.createdAt)")
+    List<String> findActiveDeviceIds(Long userId, LocalDateTime now);
+
     @Modifying
     @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :now OR rt.revoked = true")
     void deleteExpiredAndRevokedTokens(LocalDateTime now);
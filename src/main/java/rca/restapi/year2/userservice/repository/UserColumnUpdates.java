@@ -0,0 +1,192 @@
+package rca.restapi.year2.userservice.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rca.restapi.year2.userservice.model.Address;
+import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.types.Role;
+import rca.restapi.year2.userservice.types.UserStatus;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Admin writes that change one column of {@code users}, each as a single statement that updates the
+ * row and returns it together with its addresses, instead of load, dirty-check, flush and a lazy
+ * load of the addresses. On PostgreSQL that is {@code UPDATE ... RETURNING} inside a CTE joined to
+ * {@code addresses}; H2 (tests) has no {@code RETURNING} and reads the updated rows back with
+ * {@code FINAL TABLE (UPDATE ...)}, also one statement.
+ * <p>
+ * Also the address revision bump: as a JPQL bulk update, Hibernate would invalidate the whole
+ * {@code User} second-level region, natural-id resolutions included, on every address write.
+ * <p>
+ * These statements bypass the persistence context: users they return are detached, and callers own
+ * the profile cache invalidation. {@code updated_at} is set by the caller so it can version the
+ * caches. Hibernate's second-level entries of the changed users are evicted here, after commit.
+ */
+@Repository
+public class UserColumnUpdates {
+
+    private static final String PROFILE_COLUMNS = """
+            u.id, u.username, u.email, u.first_name, u.last_name, u.phone, u.avatar_url, u.role,
+            u.status, u.email_verified, u.created_at, u.updated_at, u.last_login_at, u.address_revision,
+            a.id AS address_id, a.label, a.street_address, a.city, a.state, a.postal_code, a.country,
+            a.is_default, a.created_at AS address_created_at""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private volatile Boolean postgres;
+
+    public UserColumnUpdates(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Sets the status and {@code updated_at} of one user; the updated user with its addresses, or
+     * empty when there is no such user.
+     */
+    public Optional<User> updateStatus(Long id, UserStatus status, LocalDateTime updatedAt) {
+        return updateOne("status", status.name(), id, updatedAt);
+    }
+
+    /**
+     * Sets the role and {@code updated_at} of one user; the updated user with its addresses, or empty
+     * when there is no such user.
+     */
+    public Optional<User> updateRole(Long id, Role role, LocalDateTime updatedAt) {
+        return updateOne("role", role.name(), id, updatedAt);
+    }
+
+    /**
+     * Sets the status and {@code updated_at} of every listed user not already in that status, in one
+     * statement whatever the number of ids. Returns the ids of the users that changed.
+     */
+    public List<Long> updateStatuses(Collection<Long> ids, UserStatus status, LocalDateTime updatedAt) {
+        String update = "UPDATE users SET status = ?, updated_at = ? WHERE id = ANY(?) AND status <> ?";
+        String sql = isPostgres()
+                ? update + " RETURNING id"
+                : "SELECT id FROM FINAL TABLE (" + update + ")";
+        List<Long> updated = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setString(1, status.name());
+            statement.setTimestamp(2, Timestamp.valueOf(updatedAt));
+            statement.setArray(3, connection.createArrayOf("bigint", ids.toArray()));
+            statement.setString(4, status.name());
+            return statement;
+        }, (rs, rowNum) -> rs.getLong(1));
+        evictEntities(updated);
+        return updated;
+    }
+
+    /**
+     * Increments the address revision of one user, atomically so concurrent address writes never hand
+     * out the same revision; the new revision.
+     */
+    public long incrementAddressRevision(Long id) {
+        String update = "UPDATE users SET address_revision = address_revision + 1 WHERE id = ?";
+        String sql = isPostgres()
+                ? update + " RETURNING address_revision"
+                : "SELECT address_revision FROM FINAL TABLE (" + update + ")";
+        Long revision = jdbcTemplate.queryForObject(sql, Long.class, id);
+        evictEntities(List.of(id));
+        return revision;
+    }
+
+    // The column name is one of ours, never user input
+    private Optional<User> updateOne(String column, String value, Long id, LocalDateTime updatedAt) {
+        String update = "UPDATE users SET " + column + " = ?, updated_at = ? WHERE id = ?";
+        String sql = isPostgres()
+                ? "WITH u AS (" + update + " RETURNING *) SELECT " + PROFILE_COLUMNS
+                        + " FROM u LEFT JOIN addresses a ON a.user_id = u.id ORDER BY a.id"
+                : "SELECT " + PROFILE_COLUMNS + " FROM FINAL TABLE (" + update + ") u"
+                        + " LEFT JOIN addresses a ON a.user_id = u.id ORDER BY a.id";
+        User user = jdbcTemplate.query(sql, UserColumnUpdates::mapProfile, value, Timestamp.valueOf(updatedAt), id);
+        if (user != null) {
+            evictEntities(List.of(id));
+        }
+        return Optional.ofNullable(user);
+    }
+
+    // Emails are untouched, so the natural-id resolutions stay valid
+    private void evictEntities(Collection<Long> ids) {
+        Runnable evict = () -> ids.forEach(id -> entityManagerFactory.getCache().evict(User.class, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    private static User mapProfile(ResultSet rs) throws SQLException {
+        User user = null;
+        while (rs.next()) {
+            if (user == null) {
+                user = User.builder()
+                        .id(rs.getLong("id"))
+                        .username(rs.getString("username"))
+                        .email(rs.getString("email"))
+                        .firstName(rs.getString("first_name"))
+                        .lastName(rs.getString("last_name"))
+                        .phone(rs.getString("phone"))
+                        .avatarUrl(rs.getString("avatar_url"))
+                        .role(Role.valueOf(rs.getString("role")))
+                        .status(UserStatus.valueOf(rs.getString("status")))
+                        .emailVerified(rs.getBoolean("email_verified"))
+                        .createdAt(localDateTime(rs, "created_at"))
+                        .updatedAt(localDateTime(rs, "updated_at"))
+                        .lastLoginAt(localDateTime(rs, "last_login_at"))
+                        .addressRevision(rs.getLong("address_revision"))
+                        .addresses(new HashSet<>())
+                        .build();
+            }
+            long addressId = rs.getLong("address_id");
+            if (!rs.wasNull()) {
+                user.getAddresses().add(Address.builder()
+                        .id(addressId)
+                        .user(user)
+                        .label(rs.getString("label"))
+                        .streetAddress(rs.getString("street_address"))
+                        .city(rs.getString("city"))
+                        .state(rs.getString("state"))
+                        .postalCode(rs.getString("postal_code"))
+                        .country(rs.getString("country"))
+                        .isDefault(rs.getBoolean("is_default"))
+                        .createdAt(localDateTime(rs, "address_created_at"))
+                        .build());
+            }
+        }
+        return user;
+    }
+
+    private static LocalDateTime localDateTime(ResultSet rs, String column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private boolean isPostgres() {
+        Boolean cached = postgres;
+        if (cached == null) {
+            cached = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            postgres = cached;
+        }
+        return Boolean.TRUE.equals(cached);
+    }
+}
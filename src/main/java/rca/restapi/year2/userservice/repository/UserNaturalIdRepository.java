@@ -0,0 +1,17 @@
+package rca.restapi.year2.userservice.repository;
+
+import rca.restapi.year2.userservice.model.User;
+
+import java.util.Optional;
+
+/**
+ * Entity lookups by email through Hibernate's natural-id API, which answers from the second-level
+ * cache when it can. Query methods never consult that cache; see {@link UserRepository}.
+ */
+public interface UserNaturalIdRepository {
+
+    /**
+     * The user with this email, normalized first (see {@link User#normalizeEmail}).
+     */
+    Optional<User> findByEmail(String email);
+}
@@ -1,30 +1,135 @@
 package rca.restapi.year2.userservice.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.repository.projection.UserCredentialsView;
+import rca.restapi.year2.userservice.repository.projection.UserIdentityView;
+import rca.restapi.year2.userservice.repository.projection.UserKeyView;
+import rca.restapi.year2.userservice.repository.projection.UserSummaryView;
 import rca.restapi.year2.userservice.types.UserStatus;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+// Query methods run read-only, which routes them to the replica when there is one
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByEmail(String email);
+@Transactional(readOnly = true)
+public interface UserRepository extends JpaRepository<User, Long>, UserNaturalIdRepository {
 
-    Optional<User> findByUsername(String username);
+    // Emails are stored normalized (User.normalizeEmail). Lookups by email take whatever the client
+    // sent and normalize it the same way, so they stay equality matches on the unique email index.
+    // findByEmail (UserNaturalIdRepository) also goes through the second-level cache, which is local
+    // and may hold a copy another node has since changed: read paths only. Anything that modifies
+    // the user loads it with findForUpdateByEmail. The queries below always hit the database.
+
+    default Optional<User> findForUpdateByEmail(String email) {
+        return findForUpdateByNormalizedEmail(User.normalizeEmail(email));
+    }
+
+    default Optional<UserCredentialsView> findCredentialsByEmail(String email) {
+        return findCredentialsByNormalizedEmail(User.normalizeEmail(email));
+    }
+
+    default Optional<User> findWithAddressesByEmail(String email) {
+        return findWithAddressesByNormalizedEmail(User.normalizeEmail(email));
+    }
+
+    default boolean existsByEmail(String email) {
+        return existsByNormalizedEmail(User.normalizeEmail(email));
+    }
+
+    // Read-modify-write: the current row, locked until commit, so neither a stale cached copy nor a
+    // concurrent writer (two logins counting failed attempts) can overwrite a newer change
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Transactional
+    @Query("SELECT u FROM User u WHERE u.email = :email")
+    Optional<User> findForUpdateByNormalizedEmail(String email);
+
+    // Only columns in idx_users_login, so Postgres answers it with an index-only scan
+    @Query("SELECT new rca.restapi.year2.userservice.repository.projection.UserCredentialsView(" +
+            "u.email, u.password, u.role) FROM User u WHERE u.email = :email")
+    Optional<UserCredentialsView> findCredentialsByNormalizedEmail(String email);
+
+    // Profile reads: the user and its addresses in one query, usable outside a request (cache refresh)
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.addresses WHERE u.email = :email")
+    Optional<User> findWithAddressesByNormalizedEmail(String email);
+
+    @Query("SELECT COUNT(u) > 0 FROM User u WHERE u.email = :email")
+    boolean existsByNormalizedEmail(String email);
+
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.addresses WHERE u.id = :id")
+    Optional<User> findWithAddressesById(Long id);
 
-    boolean existsByEmail(String email);
+    Optional<User> findByUsername(String username);
 
     boolean existsByUsername(String username);
 
-    List<User> findByStatus(UserStatus status);
+    // Listing columns only, a page at a time, newest first; keyset on idx_users_status_created_at_id
+    // (see findKeysAfter for the shape of the seek)
+    @Query("SELECT new rca.restapi.year2.userservice.repository.projection.UserSummaryView(" +
+            "u.id, u.username, u.email, u.firstName, u.lastName, u.role, u.status, u.emailVerified, u.createdAt) " +
+            "FROM User u WHERE u.status = :status ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserSummaryView> findSummariesByStatus(UserStatus status, Limit limit);
+
+    @Query("SELECT new rca.restapi.year2.userservice.repository.projection.UserSummaryView(" +
+            "u.id, u.username, u.email, u.firstName, u.lastName, u.role, u.status, u.emailVerified, u.createdAt) " +
+            "FROM User u WHERE u.status = :status " +
+            "AND u.createdAt <= :createdAt AND (u.createdAt < :createdAt OR u.id < :id) " +
+            "ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserSummaryView> findSummariesByStatusAfter(UserStatus status, LocalDateTime createdAt, Long id,
+                                                     Limit limit);
 
     @Query("SELECT u FROM User u WHERE u.emailVerified = false AND u.createdAt < :cutoffDate")
     List<User> findUnverifiedUsersBefore(java.time.LocalDateTime cutoffDate);
 
     @Query("SELECT COUNT(u) FROM User u WHERE u.status = :status")
     long countByStatus(UserStatus status);
+
+    // Admin listing: page the ids only, the profiles come from the cache
+    @Query("SELECT u.id FROM User u")
+    Page<Long> findAllIds(Pageable pageable);
+
+    // Keyset pagination, newest first, on idx_users_created_at_id. The redundant createdAt <= bound
+    // is what lets Postgres start the index scan at the cursor instead of filtering up to it.
+    @Query("SELECT new rca.restapi.year2.userservice.repository.projection.UserKeyView(u.id, u.createdAt) " +
+            "FROM User u ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserKeyView> findFirstKeys(Limit limit);
+
+    @Query("SELECT new rca.restapi.year2.userservice.repository.projection.UserKeyView(u.id, u.createdAt) " +
+            "FROM User u WHERE u.createdAt <= :createdAt AND (u.createdAt < :createdAt OR u.id < :id) " +
+            "ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserKeyView> findKeysAfter(LocalDateTime createdAt, Long id, Limit limit);
+
+    // Planner statistics, not a count: -1 until the table has been analyzed. Postgres only.
+    @Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = CAST('users' AS regclass)",
+            nativeQuery = true)
+    long estimateCount();
+
+    @Query("SELECT u.id FROM User u WHERE u.lastLoginAt IS NOT NULL ORDER BY u.lastLoginAt DESC")
+    List<Long> findRecentlyActiveUserIds(Pageable pageable);
+
+
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.addresses WHERE u.id IN :ids")
+    List<User> findAllWithAddressesByIdIn(Collection<Long> ids);
+
+    // Must be consumed inside a transaction and closed; rows are fetched in chunks, not all at once
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new rca.restapi.year2.userservice.repository.projection.UserIdentityView(u.email, u.username) " +
+            "FROM User u")
+    Stream<UserIdentityView> streamAllIdentities();
 }
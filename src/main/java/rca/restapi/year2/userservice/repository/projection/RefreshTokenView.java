@@ -0,0 +1,29 @@
+package rca.restapi.year2.userservice.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import rca.restapi.year2.userservice.types.Role;
+import rca.restapi.year2.userservice.types.UserStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token state joined with the owner's authority data, loaded in a single statement
+ * by {@link rca.restapi.year2.userservice.repository.RefreshTokenRepository#findViewByToken(String)}.
+ */
+@Getter
+@AllArgsConstructor
+public class RefreshTokenView {
+    private LocalDateTime expiresAt;
+    private Boolean revoked;
+    private String deviceId;
+    private Long userId;
+    private String username;
+    private String email;
+    private Role role;
+    private UserStatus status;
+
+    public boolean isExpired() {
+        return LocalDateTime.now().isAfter(expiresAt);
+    }
+}
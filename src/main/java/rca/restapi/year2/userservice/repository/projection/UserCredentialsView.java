@@ -0,0 +1,18 @@
+package rca.restapi.year2.userservice.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import rca.restapi.year2.userservice.types.Role;
+
+/**
+ * What authentication needs from a user, loaded by
+ * {@link rca.restapi.year2.userservice.repository.UserRepository#findCredentialsByEmail(String)}
+ * straight from the covering login index.
+ */
+@Getter
+@AllArgsConstructor
+public class UserCredentialsView {
+    private String email;
+    private String password;
+    private Role role;
+}
@@ -0,0 +1,15 @@
+package rca.restapi.year2.userservice.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The unique login identifiers of a user, streamed by
+ * {@link rca.restapi.year2.userservice.repository.UserRepository#streamAllIdentities()}.
+ */
+@Getter
+@AllArgsConstructor
+public class UserIdentityView {
+    private String email;
+    private String username;
+}
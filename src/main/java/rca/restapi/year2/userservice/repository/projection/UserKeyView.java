@@ -0,0 +1,17 @@
+package rca.restapi.year2.userservice.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user's position in the admin listing order, {@code (createdAt, id)}; see
+ * {@link rca.restapi.year2.userservice.repository.UserRepository#findKeysAfter}.
+ */
+@Getter
+@AllArgsConstructor
+public class UserKeyView {
+    private Long id;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,26 @@
+package rca.restapi.year2.userservice.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import rca.restapi.year2.userservice.types.Role;
+import rca.restapi.year2.userservice.types.UserStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The listing columns of a user, without addresses or credentials, loaded a page at a time by
+ * {@link rca.restapi.year2.userservice.repository.UserRepository#findSummariesByStatus}.
+ */
+@Getter
+@AllArgsConstructor
+public class UserSummaryView {
+    private Long id;
+    private String username;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private Role role;
+    private UserStatus status;
+    private Boolean emailVerified;
+    private LocalDateTime createdAt;
+}
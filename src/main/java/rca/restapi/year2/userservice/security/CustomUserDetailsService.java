@@ -7,8 +7,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import rca.restapi.year2.userservice.model.User;
 import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.repository.projection.UserCredentialsView;
+import rca.restapi.year2.userservice.types.Role;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -21,7 +22,7 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
+        UserCredentialsView user = userRepository.findCredentialsByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
         return new org.springframework.security.core.userdetails.User(
@@ -31,11 +32,24 @@ public class CustomUserDetailsService implements UserDetailsService {
                 true,
                 true,
                 true,
-                getAuthorities(user)
+                getAuthorities(user.getRole())
         );
     }
 
-    private Collection<? extends GrantedAuthority> getAuthorities(User user) {
-        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
+    /**
+     * Builds a principal from authority data the caller already holds (e.g. a refresh token
+     * projection), without another lookup. The password is left blank: such a principal is only
+     * used to issue tokens, never to authenticate credentials.
+     */
+    public UserDetails toUserDetails(String email, Role role) {
+        return new org.springframework.security.core.userdetails.User(
+                email,
+                "",
+                getAuthorities(role)
+        );
+    }
+
+    private Collection<? extends GrantedAuthority> getAuthorities(Role role) {
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()));
     }
 }
\ No newline at end of file
@@ -15,6 +15,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -79,6 +80,8 @@ public class JwtService {
                 .map(authority -> authority.getAuthority().replace("ROLE_", ""))
                 .collect(Collectors.toList());
         claims.put("roles", roles);
+        // Unique id so that sessions opened in the same second on different devices get distinct tokens
+        claims.put(Claims.ID, UUID.randomUUID().toString());
         return createToken(claims, userDetails.getUsername(), refreshTokenExpiration);
     }
 
@@ -95,7 +98,8 @@ public class JwtService {
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
             final String username = extractUsername(token);
-            boolean isValid = (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+            // Tokens issued before emails were stored lower-cased may carry the email as typed
+            boolean isValid = (username.equalsIgnoreCase(userDetails.getUsername()) && !isTokenExpired(token));
             if (isValid) {
                 log.debug("Token validated successfully for user: {}", username);
             } else {
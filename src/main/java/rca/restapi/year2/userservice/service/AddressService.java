@@ -4,14 +4,19 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rca.restapi.year2.userservice.cache.UserAddressCache;
+import rca.restapi.year2.userservice.cache.UserProfileCache;
 import rca.restapi.year2.userservice.dto.AddressDto;
+import rca.restapi.year2.userservice.dto.UserAddressesDto;
 import rca.restapi.year2.userservice.dto.requests.CreateAddressRequest;
 import rca.restapi.year2.userservice.exception.ResourceNotFoundException;
 import rca.restapi.year2.userservice.model.Address;
 import rca.restapi.year2.userservice.model.User;
 import rca.restapi.year2.userservice.repository.AddressRepository;
+import rca.restapi.year2.userservice.repository.UserColumnUpdates;
 import rca.restapi.year2.userservice.repository.UserRepository;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,34 +27,31 @@ public class AddressService {
 
     private final AddressRepository addressRepository;
     private final UserRepository userRepository;
+    private final UserColumnUpdates userColumnUpdates;
+    private final UserProfileCache userProfileCache;
+    private final UserAddressCache userAddressCache;
 
     public List<AddressDto> getUserAddresses(String email) {
-        log.info("Fetching addresses for user: {}", email);
+        return getUserAddressList(email).getAddresses();
+    }
 
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    /**
+     * The address list with its revision, for conditional GETs.
+     */
+    public UserAddressesDto getUserAddressList(String email) {
+        log.info("Fetching addresses for user: {}", email);
 
-        return addressRepository.findByUserId(user.getId())
-                .stream()
-                .map(this::mapToAddressDto)
-                .collect(Collectors.toList());
+        return loadAddresses(email);
     }
 
     public AddressDto getAddressById(String email, Long addressId) {
         log.info("Fetching address {} for user: {}", addressId, email);
 
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        Address address = addressRepository.findById(addressId)
+        // Only the user's own addresses are in the list, so ownership needs no extra check
+        return loadAddresses(email).getAddresses().stream()
+                .filter(address -> address.getId().equals(addressId))
+                .findFirst()
                 .orElseThrow(() -> new ResourceNotFoundException("Address not found"));
-
-        // Verify address belongs to user
-        if (!address.getUser().getId().equals(user.getId())) {
-            throw new ResourceNotFoundException("Address not found");
-        }
-
-        return mapToAddressDto(address);
     }
 
     @Transactional
@@ -59,11 +61,12 @@ public class AddressService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        // If this is set as default, unset other defaults
+        // If this is set as default, unset other defaults; flushed first, since at most one default
+        // per user is allowed at any time (uq_addresses_user_default)
         if (Boolean.TRUE.equals(request.getIsDefault())) {
             List<Address> existingAddresses = addressRepository.findByUserId(user.getId());
             existingAddresses.forEach(addr -> addr.setIsDefault(false));
-            addressRepository.saveAll(existingAddresses);
+            addressRepository.saveAllAndFlush(existingAddresses);
         }
 
         Address address = Address.builder()
@@ -78,6 +81,7 @@ public class AddressService {
                 .build();
 
         address = addressRepository.save(address);
+        addressesChanged(user);
         log.info("Address created successfully for user: {}", email);
 
         return mapToAddressDto(address);
@@ -106,7 +110,7 @@ public class AddressService {
                     addr.setIsDefault(false);
                 }
             });
-            addressRepository.saveAll(existingAddresses);
+            addressRepository.saveAllAndFlush(existingAddresses);
         }
 
         // Update address fields
@@ -119,6 +123,7 @@ public class AddressService {
         address.setIsDefault(request.getIsDefault() != null ? request.getIsDefault() : false);
 
         address = addressRepository.save(address);
+        addressesChanged(user);
         log.info("Address updated successfully for user: {}", email);
 
         return mapToAddressDto(address);
@@ -140,6 +145,7 @@ public class AddressService {
         }
 
         addressRepository.delete(address);
+        addressesChanged(user);
         log.info("Address deleted successfully for user: {}", email);
     }
 
@@ -161,11 +167,12 @@ public class AddressService {
         // Unset all other defaults
         List<Address> existingAddresses = addressRepository.findByUserId(user.getId());
         existingAddresses.forEach(addr -> addr.setIsDefault(false));
-        addressRepository.saveAll(existingAddresses);
+        addressRepository.saveAllAndFlush(existingAddresses);
 
         // Set this as default
         address.setIsDefault(true);
         address = addressRepository.save(address);
+        addressesChanged(user);
 
         log.info("Default address set successfully for user: {}", email);
         return mapToAddressDto(address);
@@ -174,13 +181,42 @@ public class AddressService {
     public AddressDto getDefaultAddress(String email) {
         log.info("Fetching default address for user: {}", email);
 
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        AddressDto address = loadAddresses(email).getDefaultAddress();
+        if (address == null) {
+            throw new ResourceNotFoundException("No default address found");
+        }
+        return address;
+    }
 
-        Address address = addressRepository.findByUserIdAndIsDefaultTrue(user.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("No default address found"));
+    private UserAddressesDto loadAddresses(String email) {
+        // Evictions use the stored (normalized) email
+        return userAddressCache.get(User.normalizeEmail(email), () -> {
+            User user = userRepository.findWithAddressesByEmail(email)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+            List<AddressDto> addresses = user.getAddresses().stream()
+                    .sorted(Comparator.comparing(Address::getId))
+                    .map(this::mapToAddressDto)
+                    .collect(Collectors.toList());
+
+            return UserAddressesDto.builder()
+                    .userId(user.getId())
+                    .revision(user.getAddressRevision())
+                    .addresses(addresses)
+                    .defaultAddress(addresses.stream()
+                            .filter(address -> Boolean.TRUE.equals(address.getIsDefault()))
+                            .findFirst()
+                            .orElse(null))
+                    .build();
+        });
+    }
 
-        return mapToAddressDto(address);
+    // Bumps the revision and drops both cached copies of the list (profiles embed it too); the
+    // profile cache then refuses any copy older than the new revision
+    private void addressesChanged(User user) {
+        long revision = userColumnUpdates.incrementAddressRevision(user.getId());
+        userAddressCache.evict(user.getEmail());
+        userProfileCache.evict(user.getId(), user.getEmail(), revision);
     }
 
     private AddressDto mapToAddressDto(Address address) {
@@ -5,10 +5,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rca.restapi.year2.userservice.cache.UserExistenceFilter;
+import rca.restapi.year2.userservice.cache.UserProfileCache;
 import rca.restapi.year2.userservice.dto.*;
 import rca.restapi.year2.userservice.dto.requests.LoginRequest;
 import rca.restapi.year2.userservice.dto.requests.RefreshTokenRequest;
@@ -21,12 +24,14 @@ import rca.restapi.year2.userservice.model.RefreshToken;
 import rca.restapi.year2.userservice.model.User;
 import rca.restapi.year2.userservice.repository.RefreshTokenRepository;
 import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.repository.projection.RefreshTokenView;
 import rca.restapi.year2.userservice.security.CustomUserDetailsService;
 import rca.restapi.year2.userservice.security.JwtService;
 import rca.restapi.year2.userservice.types.Role;
 import rca.restapi.year2.userservice.types.UserStatus;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -39,6 +44,9 @@ public class AuthenticationService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final CustomUserDetailsService userDetailsService;
+    private final SessionService sessionService;
+    private final UserProfileCache userProfileCache;
+    private final UserExistenceFilter userExistenceFilter;
 
     @Value("${security.rate-limit.login-attempts:5}")
     private int maxLoginAttempts;
@@ -50,12 +58,14 @@ public class AuthenticationService {
     public AuthResponse register(RegisterRequest request) {
         log.info("Registering new user: {}", request.getEmail());
 
-        // Check if user already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
+        // Check if user already exists; the filter answers most of these without a query
+        if (userExistenceFilter.mightContainEmail(request.getEmail())
+                && userRepository.existsByEmail(request.getEmail())) {
             throw new ResourceAlreadyExistsException("Email already registered");
         }
 
-        if (userRepository.existsByUsername(request.getUsername())) {
+        if (userExistenceFilter.mightContainUsername(request.getUsername())
+                && userRepository.existsByUsername(request.getUsername())) {
             throw new ResourceAlreadyExistsException("Username already taken");
         }
 
@@ -74,6 +84,9 @@ public class AuthenticationService {
                 .build();
 
         user = userRepository.save(user);
+        userExistenceFilter.add(user.getEmail(), user.getUsername());
+        // Clears any index entry left behind by a previous account with this email
+        userProfileCache.evict(user.getId(), user.getEmail());
         log.info("User registered successfully: {}", user.getEmail());
 
         // Generate tokens
@@ -82,7 +95,8 @@ public class AuthenticationService {
         String refreshToken = jwtService.generateRefreshToken(userDetails);
 
         // Save refresh token
-        saveRefreshToken(user, refreshToken);
+        saveRefreshToken(user, refreshToken, SessionService.DEFAULT_DEVICE_ID);
+        sessionService.openSession(user.getId(), SessionService.DEFAULT_DEVICE_ID, null);
 
         return buildAuthResponse(accessToken, refreshToken, user);
     }
@@ -91,7 +105,9 @@ public class AuthenticationService {
     public AuthResponse login(LoginRequest request) {
         log.info("Login attempt for user: {}", request.getEmail());
 
-        User user = userRepository.findByEmail(request.getEmail())
+        User user = Optional.of(request.getEmail())
+                .filter(userExistenceFilter::mightContainEmail)
+                .flatMap(userRepository::findForUpdateByEmail)
                 .orElseThrow(() -> new UnauthorizedException("Invalid credentials"));
 
         // Check if account is locked
@@ -101,32 +117,14 @@ public class AuthenticationService {
         }
 
         try {
-            // Authenticate
+            // Authenticate; only a credential failure counts towards the lockout
             authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             request.getEmail(),
                             request.getPassword()
                     )
             );
-
-            // Reset failed attempts on successful login
-            user.resetFailedLoginAttempts();
-            user.setLastLoginAt(LocalDateTime.now());
-            userRepository.save(user);
-
-            // Generate tokens
-            UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
-            String accessToken = jwtService.generateAccessToken(userDetails);
-            String refreshToken = jwtService.generateRefreshToken(userDetails);
-
-            // Revoke old refresh tokens and save new one
-            refreshTokenRepository.deleteAllByUserId(user.getId());
-            saveRefreshToken(user, refreshToken);
-
-            log.info("User logged in successfully: {}", user.getEmail());
-            return buildAuthResponse(accessToken, refreshToken, user);
-
-        } catch (Exception e) {
+        } catch (AuthenticationException e) {
             // Increment failed attempts
             user.incrementFailedLoginAttempts();
 
@@ -142,32 +140,59 @@ public class AuthenticationService {
             userRepository.save(user);
             throw new UnauthorizedException("Invalid credentials");
         }
+
+        // Reset failed attempts on successful login
+        user.resetFailedLoginAttempts();
+        user.setLastLoginAt(LocalDateTime.now());
+        // Flush so auditing stamps updatedAt, below which no cached copy may be stored again
+        userRepository.saveAndFlush(user);
+        userProfileCache.evict(user.getId(), user.getEmail(), user.getUpdatedAt(), user.getAddressRevision());
+
+        // Generate tokens
+        UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
+        String accessToken = jwtService.generateAccessToken(userDetails);
+        String refreshToken = jwtService.generateRefreshToken(userDetails);
+
+        // Replace this device's session only; other devices stay logged in
+        String deviceId = request.getDeviceId() != null ? request.getDeviceId() : SessionService.DEFAULT_DEVICE_ID;
+        saveRefreshToken(user, refreshToken, deviceId);
+        sessionService.openSession(user.getId(), deviceId, request.getDeviceName());
+
+        log.info("User logged in successfully: {}", user.getEmail());
+        return buildAuthResponse(accessToken, refreshToken, user);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public AuthResponse refreshToken(RefreshTokenRequest request) {
         String refreshTokenValue = request.getRefreshToken();
 
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(refreshTokenValue)
+        // Token state and the owner's authority data come back in one joined query
+        RefreshTokenView refreshToken = refreshTokenRepository.findViewByToken(refreshTokenValue)
                 .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
 
         if (refreshToken.isExpired() || refreshToken.getRevoked()) {
             throw new UnauthorizedException("Refresh token expired or revoked");
         }
 
-        User user = refreshToken.getUser();
-        UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
+        UserDetails userDetails = userDetailsService.toUserDetails(refreshToken.getEmail(), refreshToken.getRole());
 
         String newAccessToken = jwtService.generateAccessToken(userDetails);
+        sessionService.touch(refreshToken.getUserId(), refreshToken.getDeviceId());
 
-        log.info("Token refreshed for user: {}", user.getEmail());
+        log.info("Token refreshed for user: {}", refreshToken.getEmail());
 
         return AuthResponse.builder()
                 .accessToken(newAccessToken)
                 .refreshToken(refreshTokenValue)
                 .tokenType("Bearer")
                 .expiresIn(900000L) // 15 minutes
-                .user(mapToUserDto(user))
+                .user(UserDto.builder()
+                        .id(refreshToken.getUserId())
+                        .username(refreshToken.getUsername())
+                        .email(refreshToken.getEmail())
+                        .role(refreshToken.getRole())
+                        .status(refreshToken.getStatus())
+                        .build())
                 .build();
     }
 
@@ -176,22 +201,31 @@ public class AuthenticationService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        refreshTokenRepository.deleteAllByUserId(user.getId());
+        sessionService.revokeAllSessions(user.getId());
         log.info("User logged out: {}", email);
     }
 
-    private void saveRefreshToken(User user, String token) {
+    @Transactional
+    public void logout(String email, String deviceId) {
+        sessionService.revokeSession(email, deviceId);
+        log.info("User logged out from device {}: {}", deviceId, email);
+    }
+
+    // Replaces the device's previous token, so there is one session per (user, device)
+    private void saveRefreshToken(User user, String token, String deviceId) {
         LocalDateTime expiresAt = LocalDateTime.now()
                 .plusSeconds(jwtService.getRefreshTokenExpiration() / 1000);
 
         RefreshToken refreshToken = RefreshToken.builder()
                 .user(user)
                 .token(token)
+                .deviceId(deviceId)
                 .expiresAt(expiresAt)
                 .revoked(false)
                 .build();
 
         refreshTokenRepository.save(refreshToken);
+        refreshTokenRepository.deleteOtherDeviceTokens(user.getId(), deviceId, token);
     }
 
     private AuthResponse buildAuthResponse(String accessToken, String refreshToken, User user) {
@@ -0,0 +1,180 @@
+package rca.restapi.year2.userservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import rca.restapi.year2.userservice.cache.UserProfileCache;
+import rca.restapi.year2.userservice.dto.UserDto;
+import rca.restapi.year2.userservice.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms the {@code users} cache at startup with the most recently active users (by
+ * {@code last_login_at}), so a fresh deploy does not serve its first minutes from the database.
+ * <p>
+ * Runs as a lifecycle phase ahead of Eureka registration (phase 0) and the web server, so the
+ * instance neither registers nor answers health checks until warm-up is done. Users are loaded in
+ * batches on a small pool and written with pipelined Redis sets. Warm-up stops at the time budget
+ * and never fails startup: whatever is not warmed is loaded on demand as before.
+ * <p>
+ * Since the web server is not up yet, progress is logged at every quarter of the batches; the
+ * {@code cachewarmup} endpoint reports the outcome once the instance serves requests.
+ */
+@Service
+@ConditionalOnProperty(name = "cache.warmup.enabled", havingValue = "true")
+@Slf4j
+public class CacheWarmer implements SmartLifecycle {
+
+    static final int PHASE = -100;
+
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final UserProfileCache userProfileCache;
+    private final CacheWarmupProgress progress = new CacheWarmupProgress();
+    private volatile boolean running;
+
+    @Value("${cache.warmup.max-users:5000}")
+    private int maxUsers;
+
+    @Value("${cache.warmup.batch-size:200}")
+    private int batchSize;
+
+    @Value("${cache.warmup.parallelism:4}")
+    private int parallelism;
+
+    @Value("${cache.warmup.time-budget:20s}")
+    private Duration timeBudget;
+
+    public CacheWarmer(UserRepository userRepository, UserService userService, UserProfileCache userProfileCache) {
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.userProfileCache = userProfileCache;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        warm();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    public CacheWarmupProgress getProgress() {
+        return progress;
+    }
+
+    void warm() {
+        Instant start = Instant.now();
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        progress.start(start);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, warmupThreads());
+        try {
+            List<Long> ids = userRepository.findRecentlyActiveUserIds(PageRequest.of(0, maxUsers));
+            List<List<Long>> batches = partition(ids);
+            progress.plan(ids.size(), batches.size());
+            log.info("Warming user cache: {} users in {} batches, budget {}", ids.size(), batches.size(), timeBudget);
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Long> batch : batches) {
+                futures.add(executor.submit(() -> warmBatch(batch, deadline)));
+            }
+
+            CacheWarmupProgress.State outcome = awaitAll(futures, deadline);
+            progress.finish(outcome, Instant.now());
+            CacheWarmupProgress.Snapshot result = progress.snapshot();
+            log.info("User cache warm-up {}: {}/{} users in {} ms", outcome, result.warmedUsers(),
+                    result.targetUsers(), result.durationMillis());
+        } catch (RuntimeException e) {
+            progress.finish(CacheWarmupProgress.State.FAILED, Instant.now());
+            log.warn("User cache warm-up failed, continuing with a cold cache: {}", e.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void warmBatch(List<Long> batch, long deadline) {
+        if (System.nanoTime() >= deadline) {
+            return;
+        }
+        List<UserDto> profiles = userService.loadProfiles(batch);
+        userProfileCache.storeAll(profiles);
+        int completed = progress.batchCompleted(profiles.size());
+        logProgress(completed);
+    }
+
+    private void logProgress(int completedBatches) {
+        CacheWarmupProgress.Snapshot snapshot = progress.snapshot();
+        int total = snapshot.totalBatches();
+        // Once per quarter: the batch that crosses 25%, 50% and 75% (the end is logged by warm())
+        if (completedBatches < total
+                && completedBatches * 4L / total > (completedBatches - 1) * 4L / total) {
+            log.info("User cache warm-up: {}/{} batches, {}/{} users, {} ms", completedBatches, total,
+                    snapshot.warmedUsers(), snapshot.targetUsers(), snapshot.durationMillis());
+        }
+    }
+
+    private CacheWarmupProgress.State awaitAll(List<Future<?>> futures, long deadline) {
+        for (Future<?> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return CacheWarmupProgress.State.BUDGET_EXCEEDED;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CacheWarmupProgress.State.FAILED;
+            } catch (ExecutionException e) {
+                // One failed batch (e.g. a Redis hiccup) should not stop the others
+                log.warn("User cache warm-up batch failed: {}", e.getCause().getMessage());
+            }
+        }
+        return System.nanoTime() < deadline
+                ? CacheWarmupProgress.State.COMPLETED
+                : CacheWarmupProgress.State.BUDGET_EXCEEDED;
+    }
+
+    private List<List<Long>> partition(List<Long> ids) {
+        List<List<Long>> batches = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            batches.add(ids.subList(i, Math.min(i + batchSize, ids.size())));
+        }
+        return batches;
+    }
+
+    private static ThreadFactory warmupThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "cache-warmup-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
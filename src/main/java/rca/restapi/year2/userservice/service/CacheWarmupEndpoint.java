@@ -0,0 +1,26 @@
+package rca.restapi.year2.userservice.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code GET /actuator/cachewarmup}: outcome of the startup cache warm-up. Warm-up runs before the
+ * web server starts, so over HTTP this only ever shows the final result; progress while it runs is
+ * logged by {@link CacheWarmer}.
+ */
+@Component
+@Endpoint(id = "cachewarmup")
+@ConditionalOnProperty(name = "cache.warmup.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class CacheWarmupEndpoint {
+
+    private final CacheWarmer cacheWarmer;
+
+    @ReadOperation
+    public CacheWarmupProgress.Snapshot progress() {
+        return cacheWarmer.getProgress().snapshot();
+    }
+}
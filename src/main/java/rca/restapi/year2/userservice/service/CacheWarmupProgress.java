@@ -0,0 +1,54 @@
+package rca.restapi.year2.userservice.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of the startup cache warm-up, shared between the warm-up threads, their progress log
+ * and the {@code cachewarmup} Actuator endpoint.
+ */
+public class CacheWarmupProgress {
+
+    public enum State { PENDING, RUNNING, COMPLETED, BUDGET_EXCEEDED, FAILED }
+
+    private final AtomicInteger warmedUsers = new AtomicInteger();
+    private final AtomicInteger completedBatches = new AtomicInteger();
+    private volatile State state = State.PENDING;
+    private volatile int targetUsers;
+    private volatile int totalBatches;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    void start(Instant now) {
+        startedAt = now;
+        state = State.RUNNING;
+    }
+
+    void plan(int users, int batches) {
+        targetUsers = users;
+        totalBatches = batches;
+    }
+
+    // Returns the number of batches completed so far
+    int batchCompleted(int users) {
+        warmedUsers.addAndGet(users);
+        return completedBatches.incrementAndGet();
+    }
+
+    void finish(State finalState, Instant now) {
+        finishedAt = now;
+        state = finalState;
+    }
+
+    public Snapshot snapshot() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        Long durationMillis = startedAt != null ? Duration.between(startedAt, end).toMillis() : null;
+        return new Snapshot(state, targetUsers, warmedUsers.get(), totalBatches, completedBatches.get(),
+                startedAt, durationMillis);
+    }
+
+    public record Snapshot(State state, int targetUsers, int warmedUsers, int totalBatches,
+                           int completedBatches, Instant startedAt, Long durationMillis) {
+    }
+}
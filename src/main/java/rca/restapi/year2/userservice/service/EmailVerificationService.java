@@ -4,11 +4,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rca.restapi.year2.userservice.cache.UserExistenceFilter;
+import rca.restapi.year2.userservice.cache.UserProfileCache;
 import rca.restapi.year2.userservice.exception.ResourceNotFoundException;
 import rca.restapi.year2.userservice.exception.UnauthorizedException;
 import rca.restapi.year2.userservice.model.User;
 import rca.restapi.year2.userservice.repository.UserRepository;
 
+import java.util.Optional;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -16,6 +20,8 @@ public class EmailVerificationService {
 
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final UserProfileCache userProfileCache;
+    private final UserExistenceFilter userExistenceFilter;
 
     /**
      * Send verification email to user
@@ -48,7 +54,7 @@ public class EmailVerificationService {
             throw new UnauthorizedException("Invalid or expired verification token");
         }
 
-        User user = userRepository.findByEmail(email)
+        User user = userRepository.findForUpdateByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         if (user.getEmailVerified()) {
@@ -57,7 +63,9 @@ public class EmailVerificationService {
         }
 
         user.setEmailVerified(true);
-        userRepository.save(user);
+        // Flush so auditing stamps updatedAt, below which no cached copy may be stored again
+        userRepository.saveAndFlush(user);
+        userProfileCache.evict(user.getId(), user.getEmail(), user.getUpdatedAt(), user.getAddressRevision());
 
         log.info("Email verified successfully for user: {}", email);
     }
@@ -68,7 +76,9 @@ public class EmailVerificationService {
     public void resendVerificationEmail(String email) {
         log.info("Resending verification email to: {}", email);
 
-        User user = userRepository.findByEmail(email)
+        User user = Optional.of(email)
+                .filter(userExistenceFilter::mightContainEmail)
+                .flatMap(userRepository::findByEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         if (user.getEmailVerified()) {
@@ -0,0 +1,33 @@
+package rca.restapi.year2.userservice.service;
+
+import rca.restapi.year2.userservice.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Continuation token for the admin user listing: the {@code (createdAt, id)} of the last user
+ * returned, base64url-encoded so clients treat it as opaque.
+ */
+record KeysetCursor(LocalDateTime createdAt, long id) {
+
+    private static final String SEPARATOR = "|";
+
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static KeysetCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
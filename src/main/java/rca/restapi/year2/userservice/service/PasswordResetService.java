@@ -5,6 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rca.restapi.year2.userservice.cache.UserExistenceFilter;
+import rca.restapi.year2.userservice.cache.UserProfileCache;
 import rca.restapi.year2.userservice.dto.requests.PasswordResetConfirm;
 import rca.restapi.year2.userservice.dto.requests.PasswordResetRequest;
 import rca.restapi.year2.userservice.exception.ResourceNotFoundException;
@@ -12,6 +14,8 @@ import rca.restapi.year2.userservice.exception.UnauthorizedException;
 import rca.restapi.year2.userservice.model.User;
 import rca.restapi.year2.userservice.repository.UserRepository;
 
+import java.util.Optional;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -20,6 +24,8 @@ public class PasswordResetService {
     private final UserRepository userRepository;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
+    private final UserProfileCache userProfileCache;
+    private final UserExistenceFilter userExistenceFilter;
 
     /**
      * Request password reset - sends email with reset link
@@ -28,8 +34,10 @@ public class PasswordResetService {
     public void requestPasswordReset(PasswordResetRequest request) {
         log.info("Password reset requested for email: {}", request.getEmail());
 
-        // Find user by email
-        User user = userRepository.findByEmail(request.getEmail())
+        // Find user by email (unknown emails are usually rejected by the filter without a query)
+        User user = Optional.of(request.getEmail())
+                .filter(userExistenceFilter::mightContainEmail)
+                .flatMap(userRepository::findByEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         // Send password reset email
@@ -68,12 +76,14 @@ public class PasswordResetService {
         }
 
         // Find user
-        User user = userRepository.findByEmail(email)
+        User user = userRepository.findForUpdateByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         // Update password
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        userRepository.save(user);
+        // Flush so auditing stamps updatedAt, below which no cached copy may be stored again
+        userRepository.saveAndFlush(user);
+        userProfileCache.evict(user.getId(), user.getEmail(), user.getUpdatedAt(), user.getAddressRevision());
 
         // Invalidate token
         emailService.invalidatePasswordResetToken(request.getToken());
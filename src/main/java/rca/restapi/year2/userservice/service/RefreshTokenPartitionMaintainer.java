@@ -0,0 +1,201 @@
+package rca.restapi.year2.userservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the weekly range partitions of {@code refresh_tokens} (see V2__partition_refresh_tokens.sql)
+ * in shape: creates partitions ahead of time and drops partitions whose tokens have all expired.
+ * Dropping a partition is a metadata operation, so retention never issues a large DELETE.
+ * <p>
+ * Tokens outside every weekly partition, e.g. issued while this job was not running, land in the
+ * default partition. Such rows are moved into their weekly partition when it is created and
+ * reported through the {@code refresh_tokens.default.rows} gauge, which should stay at 0.
+ */
+@Service
+@ConditionalOnProperty(name = "refresh-tokens.partitioning.enabled", havingValue = "true")
+@Slf4j
+public class RefreshTokenPartitionMaintainer {
+
+    static final String PARENT_TABLE = "refresh_tokens";
+    static final String PARTITION_PREFIX = PARENT_TABLE + "_p";
+    static final String DEFAULT_PARTITION = PARENT_TABLE + "_default";
+
+    static final String COUNT_DEFAULT_ROWS_SQL = "SELECT COUNT(*) FROM " + DEFAULT_PARTITION;
+
+    // Arbitrary key so that only one instance runs maintenance at a time
+    private static final long ADVISORY_LOCK_KEY = 0x5245465245534bL;
+
+    private static final String LIST_PARTITIONS_SQL = """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = ?
+            """;
+
+    private static final String ESTIMATE_ROWS_SQL = """
+            SELECT COALESCE(SUM(GREATEST(c.reltuples, 0)), 0)::bigint
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong partitionCount = new AtomicLong();
+    private final AtomicLong estimatedRows = new AtomicLong();
+    private final AtomicLong defaultRows = new AtomicLong();
+    private final Counter partitionsCreated;
+    private final Counter partitionsDropped;
+
+    @Value("${refresh-tokens.partitioning.weeks-ahead:4}")
+    private int weeksAhead;
+
+    public RefreshTokenPartitionMaintainer(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        Gauge.builder("refresh_tokens.partitions", partitionCount, AtomicLong::get)
+                .description("Number of refresh_tokens partitions")
+                .register(meterRegistry);
+        Gauge.builder("refresh_tokens.rows", estimatedRows, AtomicLong::get)
+                .description("Estimated rows across refresh_tokens partitions (pg_class.reltuples)")
+                .register(meterRegistry);
+        Gauge.builder("refresh_tokens.default.rows", defaultRows, AtomicLong::get)
+                .description("Rows in the refresh_tokens default partition; non-zero means partitions are missing")
+                .register(meterRegistry);
+        this.partitionsCreated = Counter.builder("refresh_tokens.partitions.created")
+                .register(meterRegistry);
+        this.partitionsDropped = Counter.builder("refresh_tokens.partitions.dropped")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${refresh-tokens.partitioning.cron:0 15 * * * *}")
+    @Transactional
+    public void maintainPartitions() {
+        try {
+            Boolean locked = jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                log.debug("Refresh token partition maintenance already running on another instance");
+                return;
+            }
+            maintain(LocalDate.now());
+        } catch (DataAccessException e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            log.error("Refresh token partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    void maintain(LocalDate today) {
+        LocalDate currentWeek = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        TreeSet<LocalDate> existing = findPartitionWeeks();
+        boolean strayRows = countDefaultRows() > 0;
+
+        for (int i = 0; i <= weeksAhead; i++) {
+            LocalDate week = currentWeek.plusWeeks(i);
+            if (!existing.contains(week)) {
+                createPartition(week, strayRows);
+                existing.add(week);
+            }
+        }
+
+        // A partition only holds tokens expiring before its upper bound, so once that bound has
+        // passed every row in it is expired and the whole partition can go.
+        for (LocalDate week : List.copyOf(existing)) {
+            if (!week.plusWeeks(1).isAfter(today)) {
+                dropPartition(week);
+                existing.remove(week);
+            }
+        }
+
+        if (strayRows) {
+            jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE expires_at < ?", currentWeek);
+            long remaining = countDefaultRows();
+            if (remaining > 0) {
+                log.warn("{} refresh tokens in {} are outside every weekly partition", remaining, DEFAULT_PARTITION);
+            }
+        }
+
+        partitionCount.set(existing.size());
+        Long rows = jdbcTemplate.queryForObject(ESTIMATE_ROWS_SQL, Long.class, PARENT_TABLE);
+        estimatedRows.set(rows != null ? rows : 0L);
+    }
+
+    private TreeSet<LocalDate> findPartitionWeeks() {
+        TreeSet<LocalDate> weeks = new TreeSet<>();
+        jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class, PARENT_TABLE)
+                .forEach(name -> parseWeek(name).ifPresent(weeks::add));
+        return weeks;
+    }
+
+    private long countDefaultRows() {
+        Long rows = jdbcTemplate.queryForObject(COUNT_DEFAULT_ROWS_SQL, Long.class);
+        defaultRows.set(rows != null ? rows : 0L);
+        return defaultRows.get();
+    }
+
+    // The new range may not overlap rows left in the default partition, so those move over with it
+    private void createPartition(LocalDate week, boolean strayRows) {
+        if (strayRows) {
+            jdbcTemplate.execute(String.format(
+                    "CREATE TEMP TABLE refresh_tokens_moved AS WITH moved AS (DELETE FROM %s "
+                            + "WHERE expires_at >= '%s' AND expires_at < '%s' RETURNING *) SELECT * FROM moved",
+                    DEFAULT_PARTITION, week, week.plusWeeks(1)));
+        }
+        String sql = String.format(
+                "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                partitionName(week), PARENT_TABLE, week, week.plusWeeks(1));
+        jdbcTemplate.execute(sql);
+        if (strayRows) {
+            jdbcTemplate.execute("INSERT INTO " + PARENT_TABLE + " SELECT * FROM refresh_tokens_moved");
+            jdbcTemplate.execute("DROP TABLE refresh_tokens_moved");
+        }
+        partitionsCreated.increment();
+        log.info("Created refresh token partition {}", partitionName(week));
+    }
+
+    private void dropPartition(LocalDate week) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(week));
+        partitionsDropped.increment();
+        log.info("Dropped expired refresh token partition {}", partitionName(week));
+    }
+
+    static String partitionName(LocalDate week) {
+        return PARTITION_PREFIX + week.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    static Optional<LocalDate> parseWeek(String partitionName) {
+        if (partitionName == null || !partitionName.startsWith(PARTITION_PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(LocalDate.parse(
+                    partitionName.substring(PARTITION_PREFIX.length()), DateTimeFormatter.BASIC_ISO_DATE));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package rca.restapi.year2.userservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import rca.restapi.year2.userservice.dto.DeviceSessionDto;
+import rca.restapi.year2.userservice.exception.ResourceNotFoundException;
+import rca.restapi.year2.userservice.model.DeviceSession;
+import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.repository.RefreshTokenRepository;
+import rca.restapi.year2.userservice.repository.UserRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-device sessions. The refresh tokens, one per (user, device) via {@code refresh_tokens.device_id},
+ * are the sessions: replacing a device's session, the per-user cap and revoking a device are settled
+ * against that table, so they hold when Redis has lost its data. Redis is only an index on top, a
+ * hash (device id -> {@link DeviceSession}) carrying device names and a sorted set of device ids
+ * scored by last use, which orders listing and eviction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SessionService {
+
+    public static final String DEFAULT_DEVICE_ID = "default";
+
+    private static final String SESSIONS_KEY_PREFIX = "user:sessions:";
+    private static final String LAST_USED_KEY_PREFIX = "user:sessions:last-used:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+
+    @Value("${security.sessions.max-per-user:5}")
+    private int maxSessionsPerUser;
+
+    /**
+     * Records a new session for the device, whose refresh token the caller has just saved in place of
+     * the device's previous one, evicting the least recently used devices once the user is over the
+     * cap. Indexing in Redis is best effort.
+     */
+    @Transactional
+    public void openSession(Long userId, String deviceId, String deviceName) {
+        List<String> devices = refreshTokenRepository.findActiveDeviceIds(userId, LocalDateTime.now());
+        int excess = devices.size() - maxSessionsPerUser;
+        if (excess > 0) {
+            List<String> evictionOrder = evictionOrder(userId, deviceId, devices);
+            for (String evictedDeviceId : evictionOrder.subList(0, Math.min(excess, evictionOrder.size()))) {
+                removeSession(userId, evictedDeviceId);
+                log.info("Evicted least recently used session {} for user ID: {}", evictedDeviceId, userId);
+            }
+        }
+
+        DeviceSession session = DeviceSession.builder()
+                .deviceId(deviceId)
+                .deviceName(deviceName)
+                .createdAt(LocalDateTime.now())
+                .build();
+        try {
+            redisTemplate.opsForHash().put(sessionsKey(userId), deviceId, session);
+            redisTemplate.opsForZSet().add(lastUsedKey(userId), deviceId, System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            log.warn("Could not index session {} for user ID {}: {}", deviceId, userId, e.getMessage());
+        }
+    }
+
+    // Least recently used first; devices missing from the index (Redis lost them) go before any
+    // indexed one, longest signed in first
+    private List<String> evictionOrder(Long userId, String currentDeviceId, List<String> devices) {
+        List<String> order = new ArrayList<>(devices);
+        order.remove(currentDeviceId);
+        try {
+            Set<Object> byLastUse = redisTemplate.opsForZSet().range(lastUsedKey(userId), 0, -1);
+            if (byLastUse != null) {
+                List<String> indexed = byLastUse.stream()
+                        .map(Object::toString)
+                        .filter(order::contains)
+                        .toList();
+                order.removeAll(indexed);
+                order.addAll(indexed);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not read session last-used times for user ID {}: {}", userId, e.getMessage());
+        }
+        return order;
+    }
+
+    /**
+     * Marks the device as used. Best effort: the session index only drives eviction order, so a
+     * Redis hiccup here must not fail the caller.
+     */
+    public void touch(Long userId, String deviceId) {
+        if (deviceId == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForZSet().add(lastUsedKey(userId), deviceId, System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            log.warn("Could not update session last-used time for user ID {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * The user's live sessions, from the refresh tokens, most recently used first. Names and last-used
+     * times come from the Redis index; devices it does not know, or all of them when Redis is
+     * unavailable, are listed after, without them.
+     */
+    @Transactional(readOnly = true)
+    public List<DeviceSessionDto> getSessions(String email) {
+        log.info("Fetching sessions for user: {}", email);
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        // Most recently signed in first
+        List<String> devices = new ArrayList<>(
+                refreshTokenRepository.findActiveDeviceIds(user.getId(), LocalDateTime.now()));
+        Collections.reverse(devices);
+        List<DeviceSessionDto> sessions = new ArrayList<>();
+        if (devices.isEmpty()) {
+            return sessions;
+        }
+
+        try {
+            Set<ZSetOperations.TypedTuple<Object>> byLastUse =
+                    redisTemplate.opsForZSet().reverseRangeWithScores(lastUsedKey(user.getId()), 0, -1);
+            if (byLastUse != null && !byLastUse.isEmpty()) {
+                List<Object> deviceIds = byLastUse.stream()
+                        .map(ZSetOperations.TypedTuple::getValue)
+                        .toList();
+                List<Object> records = redisTemplate.opsForHash().multiGet(sessionsKey(user.getId()), deviceIds);
+
+                int i = 0;
+                for (ZSetOperations.TypedTuple<Object> entry : byLastUse) {
+                    Object record = records.get(i++);
+                    String deviceId = String.valueOf(entry.getValue());
+                    if (devices.remove(deviceId)) {
+                        DeviceSession session = record instanceof DeviceSession indexed ? indexed
+                                : DeviceSession.builder().deviceId(deviceId).build();
+                        sessions.add(mapToDeviceSessionDto(session, entry.getScore()));
+                    }
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not read the session index for user ID {}: {}", user.getId(), e.getMessage());
+        }
+
+        devices.forEach(deviceId -> sessions.add(DeviceSessionDto.builder().deviceId(deviceId).build()));
+        return sessions;
+    }
+
+    @Transactional
+    public void revokeSession(String email, String deviceId) {
+        log.info("Revoking session {} for user: {}", deviceId, email);
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        if (!removeSession(user.getId(), deviceId)) {
+            throw new ResourceNotFoundException("Session not found");
+        }
+    }
+
+    @Transactional
+    public void revokeAllSessions(Long userId) {
+        refreshTokenRepository.deleteAllByUserId(userId);
+        try {
+            redisTemplate.delete(List.of(sessionsKey(userId), lastUsedKey(userId)));
+        } catch (DataAccessException e) {
+            log.warn("Could not clear the session index for user ID {}: {}", userId, e.getMessage());
+        }
+        log.info("All sessions revoked for user ID: {}", userId);
+    }
+
+    private boolean removeSession(Long userId, String deviceId) {
+        int deleted = refreshTokenRepository.deleteByUserIdAndDeviceId(userId, deviceId);
+        try {
+            redisTemplate.opsForHash().delete(sessionsKey(userId), deviceId);
+            redisTemplate.opsForZSet().remove(lastUsedKey(userId), deviceId);
+        } catch (DataAccessException e) {
+            log.warn("Could not remove session {} from the index for user ID {}: {}", deviceId, userId, e.getMessage());
+        }
+        return deleted > 0;
+    }
+
+    private String sessionsKey(Long userId) {
+        return SESSIONS_KEY_PREFIX + userId;
+    }
+
+    private String lastUsedKey(Long userId) {
+        return LAST_USED_KEY_PREFIX + userId;
+    }
+
+    private DeviceSessionDto mapToDeviceSessionDto(DeviceSession session, Double lastUsedMillis) {
+        LocalDateTime lastUsedAt = lastUsedMillis == null ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(lastUsedMillis.longValue()), ZoneId.systemDefault());
+        return DeviceSessionDto.builder()
+                .deviceId(session.getDeviceId())
+                .deviceName(session.getDeviceName())
+                .createdAt(session.getCreatedAt())
+                .lastUsedAt(lastUsedAt)
+                .build();
+    }
+}
@@ -0,0 +1,212 @@
+package rca.restapi.year2.userservice.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import rca.restapi.year2.userservice.dto.requests.UserExportFilter;
+import rca.restapi.year2.userservice.types.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the user directory straight from a JDBC cursor to the response, one row at a time:
+ * no entities, no DTOs, no list of rows, so memory use does not depend on the number of users.
+ * Postgres only keeps a server-side cursor (fetching {@code export.fetch-size} rows per round trip)
+ * inside a transaction, hence the read-only transaction around the query.
+ */
+@Service
+@Slf4j
+public class UserExportService {
+
+    // Never the password
+    private static final String[] COLUMNS = {
+            "id", "username", "email", "first_name", "last_name", "phone", "role", "status",
+            "email_verified", "created_at", "updated_at", "last_login_at"
+    };
+
+    private static final JsonFactory JSON = new JsonFactoryBuilder()
+            .rootValueSeparator((String) null)
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${export.fetch-size:1000}")
+    private int fetchSize;
+
+    public UserExportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Writes every user matching {@code filter}, ordered by id, to {@code out}. Returns the number
+     * of rows written.
+     */
+    public long export(UserExportFilter filter, ExportFormat format, OutputStream out) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT " + String.join(", ", COLUMNS) + " FROM users" + where(filter, params) + " ORDER BY id";
+        long[] rows = new long[1];
+
+        try (RowSink sink = format == ExportFormat.CSV ? new CsvSink(out) : new NdjsonSink(out)) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                return statement;
+            }, (RowCallbackHandler) resultSet -> {
+                sink.write(resultSet);
+                rows[0]++;
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Exported {} users as {}", rows[0], format);
+        return rows[0];
+    }
+
+    private static String where(UserExportFilter filter, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getStatus() != null) {
+            conditions.add("status = ?");
+            params.add(filter.getStatus().name());
+        }
+        if (filter.getRole() != null) {
+            conditions.add("role = ?");
+            params.add(filter.getRole().name());
+        }
+        if (filter.getVerified() != null) {
+            conditions.add("email_verified = ?");
+            params.add(filter.getVerified());
+        }
+        if (filter.getCreatedFrom() != null) {
+            conditions.add("created_at >= ?");
+            params.add(Timestamp.valueOf(filter.getCreatedFrom()));
+        }
+        if (filter.getCreatedTo() != null) {
+            conditions.add("created_at < ?");
+            params.add(Timestamp.valueOf(filter.getCreatedTo()));
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    // Timestamps as ISO-8601 local date-times, like the JSON API
+    private static String text(ResultSet resultSet, int column) throws SQLException {
+        Object value = resultSet.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        return value == null ? null : value.toString();
+    }
+
+    private interface RowSink extends AutoCloseable {
+        void write(ResultSet resultSet) throws SQLException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * One JSON object per line; ids are numbers, the verified flag a boolean, the rest strings.
+     */
+    private static final class NdjsonSink implements RowSink {
+
+        private final JsonGenerator generator;
+
+        NdjsonSink(OutputStream out) throws IOException {
+            this.generator = JSON.createGenerator(out);
+        }
+
+        @Override
+        public void write(ResultSet resultSet) throws SQLException {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField(COLUMNS[0], resultSet.getLong(1));
+                for (int i = 1; i < COLUMNS.length; i++) {
+                    if (COLUMNS[i].equals("email_verified")) {
+                        generator.writeBooleanField(COLUMNS[i], resultSet.getBoolean(i + 1));
+                    } else {
+                        generator.writeStringField(COLUMNS[i], text(resultSet, i + 1));
+                    }
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    /**
+     * RFC 4180: a header row, fields quoted only when they contain a separator, quote or line break.
+     */
+    private static final class CsvSink implements RowSink {
+
+        private final Writer writer;
+
+        CsvSink(OutputStream out) throws IOException {
+            this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet resultSet) throws SQLException {
+            try {
+                for (int i = 0; i < COLUMNS.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(escape(text(resultSet, i + 1)));
+                }
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -2,13 +2,16 @@ package rca.restapi.year2.userservice.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rca.restapi.year2.userservice.cache.UserAddressCache;
+import rca.restapi.year2.userservice.cache.UserExistenceFilter;
+import rca.restapi.year2.userservice.cache.UserProfileCache;
 import rca.restapi.year2.userservice.dto.*;
 import rca.restapi.year2.userservice.dto.requests.ChangePasswordRequest;
 import rca.restapi.year2.userservice.dto.requests.UpdateProfileRequest;
@@ -17,11 +20,18 @@ import rca.restapi.year2.userservice.exception.UnauthorizedException;
 import rca.restapi.year2.userservice.model.Address;
 import rca.restapi.year2.userservice.model.User;
 import rca.restapi.year2.userservice.repository.AddressRepository;
+import rca.restapi.year2.userservice.repository.UserColumnUpdates;
 import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.repository.projection.UserKeyView;
+import rca.restapi.year2.userservice.repository.projection.UserSummaryView;
 import rca.restapi.year2.userservice.types.Role;
 import rca.restapi.year2.userservice.types.UserStatus;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,32 +39,52 @@ import java.util.stream.Collectors;
 @Slf4j
 public class UserService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 200;
+
     private final UserRepository userRepository;
+    private final UserColumnUpdates userColumnUpdates;
     private final AddressRepository addressRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserProfileCache userProfileCache;
+    private final UserAddressCache userAddressCache;
+    private final UserExistenceFilter userExistenceFilter;
 
-    @Cacheable(value = "users", key = "#email")
     public UserDto getUserByEmail(String email) {
-        log.info("Fetching user by email: {}", email);
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        return mapToUserDto(user);
+        // The email index is keyed by the stored (normalized) email
+        return userProfileCache.getByEmail(User.normalizeEmail(email), () -> {
+            log.info("Fetching user by email: {}", email);
+            User user = userRepository.findWithAddressesByEmail(email)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+            return mapToUserDto(user);
+        });
     }
 
-    @Cacheable(value = "users", key = "#id")
     public UserDto getUserById(Long id) {
-        log.info("Fetching user by ID: {}", id);
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        return mapToUserDto(user);
+        return userProfileCache.getById(id, () -> {
+            log.info("Fetching user by ID: {}", id);
+            User user = userRepository.findWithAddressesById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+            return mapToUserDto(user);
+        });
+    }
+
+    /**
+     * Loads profiles straight from the database, addresses included, without going through the
+     * cache. Used to warm it.
+     */
+    @Transactional(readOnly = true)
+    public List<UserDto> loadProfiles(Collection<Long> ids) {
+        return userRepository.findAllWithAddressesByIdIn(ids)
+                .stream()
+                .map(this::mapToUserDto)
+                .collect(Collectors.toList());
     }
 
     @Transactional
-    @CacheEvict(value = "users", key = "#email")
     public UserDto updateProfile(String email, UpdateProfileRequest request) {
         log.info("Updating profile for user: {}", email);
 
-        User user = userRepository.findByEmail(email)
+        User user = userRepository.findForUpdateByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         if (request.getFirstName() != null) {
@@ -70,18 +100,20 @@ public class UserService {
             user.setAvatarUrl(request.getAvatarUrl());
         }
 
-        user = userRepository.save(user);
+        // Flush so auditing stamps updatedAt, which versions the cached copy
+        user = userRepository.saveAndFlush(user);
+        UserDto profile = mapToUserDto(user);
+        userProfileCache.put(profile);
         log.info("Profile updated successfully for user: {}", email);
 
-        return mapToUserDto(user);
+        return profile;
     }
 
     @Transactional
-    @CacheEvict(value = "users", key = "#email")
     public void changePassword(String email, ChangePasswordRequest request) {
         log.info("Changing password for user: {}", email);
 
-        User user = userRepository.findByEmail(email)
+        User user = userRepository.findForUpdateByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         // Verify current password
@@ -91,13 +123,14 @@ public class UserService {
 
         // Update password
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        userRepository.save(user);
+        // Flush so auditing stamps updatedAt, below which no cached copy may be stored again
+        userRepository.saveAndFlush(user);
+        userProfileCache.evict(user.getId(), user.getEmail(), user.getUpdatedAt(), user.getAddressRevision());
 
         log.info("Password changed successfully for user: {}", email);
     }
 
     @Transactional
-    @CacheEvict(value = "users", key = "#email")
     public void deleteAccount(String email) {
         log.info("Deleting account for user: {}", email);
 
@@ -105,52 +138,118 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         userRepository.delete(user);
+        userProfileCache.evict(user.getId(), user.getEmail());
+        userAddressCache.evict(user.getEmail());
+        userExistenceFilter.recordRemoval();
         log.info("Account deleted successfully for user: {}", email);
     }
 
     // Admin methods
     public Page<UserDto> getAllUsers(Pageable pageable) {
         log.info("Fetching all users with pagination");
-        return userRepository.findAll(pageable)
-                .map(this::mapToUserDto);
+        Page<Long> ids = userRepository.findAllIds(pageable);
+        return new PageImpl<>(getUsersByIds(ids.getContent()), pageable, ids.getTotalElements());
     }
 
-    public List<UserDto> getUsersByStatus(UserStatus status) {
-        log.info("Fetching users by status: {}", status);
-        return userRepository.findByStatus(status)
-                .stream()
-                .map(this::mapToUserDto)
-                .collect(Collectors.toList());
+    /**
+     * One page of users, newest first, after {@code cursor} (null or empty for the first page). Seeks
+     * on {@code (createdAt, id)} instead of skipping rows, so any page costs the same; the total is
+     * only estimated, and only when asked for.
+     */
+    public CursorPageDto<UserDto> getUsersAfter(String cursor, int limit, boolean includeTotal) {
+        int size = cursorPageSize(limit);
+        log.info("Fetching {} users after cursor", size);
+        List<UserKeyView> keys;
+        if (cursor == null || cursor.isEmpty()) {
+            keys = userRepository.findFirstKeys(Limit.of(size + 1));
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            keys = userRepository.findKeysAfter(after.createdAt(), after.id(), Limit.of(size + 1));
+        }
+
+        CursorPageDto<UserDto> page = cursorPage(keys, size,
+                key -> new KeysetCursor(key.getCreatedAt(), key.getId()),
+                rows -> getUsersByIds(rows.stream().map(UserKeyView::getId).toList()));
+        page.setEstimatedTotal(includeTotal ? estimateUserCount() : null);
+        return page;
     }
 
+    /**
+     * Profiles for the given ids, in that order: cache hits in one round trip, misses with one
+     * {@code IN} query, written back in one pipeline. Unknown ids are skipped.
+     */
+    public List<UserDto> getUsersByIds(Collection<Long> ids) {
+        log.info("Fetching {} users by ID", ids.size());
+        return userProfileCache.getAllByIds(ids, this::loadProfiles);
+    }
+
+    /**
+     * One page of users with {@code status}, newest first, after {@code cursor} (null or empty for
+     * the first page). Only the listing columns are read; see {@link #getUserById} for a full profile.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<UserSummaryDto> getUsersByStatus(UserStatus status, String cursor, int limit) {
+        int size = cursorPageSize(limit);
+        log.info("Fetching {} users by status: {}", size, status);
+        List<UserSummaryView> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = userRepository.findSummariesByStatus(status, Limit.of(size + 1));
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = userRepository.findSummariesByStatusAfter(status, after.createdAt(), after.id(),
+                    Limit.of(size + 1));
+        }
+
+        return cursorPage(rows, size,
+                row -> new KeysetCursor(row.getCreatedAt(), row.getId()),
+                page -> page.stream().map(this::mapToUserSummaryDto).collect(Collectors.toList()));
+    }
+
+    /**
+     * One {@code UPDATE ... RETURNING} that also reads back the addresses, then a write-through of
+     * the profile; see {@link UserColumnUpdates}.
+     */
     @Transactional
-    @CacheEvict(value = "users", key = "#userId")
     public UserDto updateUserStatus(Long userId, UserStatus status) {
         log.info("Updating status for user ID {}: {}", userId, status);
 
-        User user = userRepository.findById(userId)
+        User user = userColumnUpdates.updateStatus(userId, status, now())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        user.setStatus(status);
-        user = userRepository.save(user);
+        UserDto profile = mapToUserDto(user);
+        userProfileCache.put(profile);
 
         log.info("Status updated successfully for user ID: {}", userId);
-        return mapToUserDto(user);
+        return profile;
+    }
+
+    /**
+     * Sets the status of many users with one statement and drops their cached profiles with one
+     * pipeline. Users already in {@code status} and unknown ids are left alone. Returns the number
+     * of users changed.
+     */
+    @Transactional
+    public int updateUsersStatus(Collection<Long> userIds, UserStatus status) {
+        log.info("Updating status of {} users to: {}", userIds.size(), status);
+
+        LocalDateTime updatedAt = now();
+        List<Long> updated = userColumnUpdates.updateStatuses(userIds, status, updatedAt);
+        userProfileCache.evictAll(updated, updatedAt);
+
+        log.info("Status updated for {} of {} users", updated.size(), userIds.size());
+        return updated.size();
     }
 
     @Transactional
-    @CacheEvict(value = "users", key = "#userId")
     public UserDto updateUserRole(Long userId, Role role) {
         log.info("Updating role for user ID {}: {}", userId, role);
 
-        User user = userRepository.findById(userId)
+        User user = userColumnUpdates.updateRole(userId, role, now())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        user.setRole(role);
-        user = userRepository.save(user);
+        UserDto profile = mapToUserDto(user);
+        userProfileCache.put(profile);
 
         log.info("Role updated successfully for user ID: {}", userId);
-        return mapToUserDto(user);
+        return profile;
     }
 
     @Transactional
@@ -161,10 +260,39 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         userRepository.delete(user);
+        userProfileCache.evict(user.getId(), user.getEmail());
+        userAddressCache.evict(user.getEmail());
+        userExistenceFilter.recordRemoval();
         log.info("User deleted successfully by admin: {}", userId);
     }
 
+    private static int cursorPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    // rows holds up to size + 1 entries; the extra one only tells whether there is a next page
+    private static <R, T> CursorPageDto<T> cursorPage(List<R> rows, int size, Function<R, KeysetCursor> position,
+                                                      Function<List<R>, List<T>> items) {
+        boolean hasNext = rows.size() > size;
+        List<R> page = hasNext ? rows.subList(0, size) : rows;
+        return CursorPageDto.<T>builder()
+                .items(items.apply(page))
+                .nextCursor(hasNext ? position.apply(page.get(size - 1)).encode() : null)
+                .build();
+    }
+
+    // Planner estimate; exact count only until the table has been analyzed
+    private long estimateUserCount() {
+        long estimate = userRepository.estimateCount();
+        return estimate >= 0 ? estimate : userRepository.count();
+    }
+
     // Helper method
+    // The database keeps micros; the cached profile must carry exactly what was stored
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
     private UserDto mapToUserDto(User user) {
         List<AddressDto> addressDtos = user.getAddresses().stream()
                 .map(this::mapToAddressDto)
@@ -182,11 +310,27 @@ public class UserService {
                 .status(user.getStatus())
                 .emailVerified(user.getEmailVerified())
                 .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
                 .lastLoginAt(user.getLastLoginAt())
+                .addressRevision(user.getAddressRevision())
                 .addresses(addressDtos)
                 .build();
     }
 
+    private UserSummaryDto mapToUserSummaryDto(UserSummaryView user) {
+        return UserSummaryDto.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .role(user.getRole())
+                .status(user.getStatus())
+                .emailVerified(user.getEmailVerified())
+                .createdAt(user.getCreatedAt())
+                .build();
+    }
+
     private AddressDto mapToAddressDto(Address address) {
         return AddressDto.builder()
                 .id(address.getId())
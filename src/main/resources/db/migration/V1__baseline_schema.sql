@@ -0,0 +1,48 @@
+-- Baseline schema, matching the JPA mappings in rca.restapi.year2.userservice.model.
+-- Existing databases created by Hibernate are baselined at this version (see spring.flyway.baseline-*).
+
+CREATE TABLE IF NOT EXISTS users (
+    id                    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username              VARCHAR(50)  NOT NULL UNIQUE,
+    email                 VARCHAR(100) NOT NULL UNIQUE,
+    password              VARCHAR(255) NOT NULL,
+    first_name            VARCHAR(50),
+    last_name             VARCHAR(50),
+    phone                 VARCHAR(20),
+    avatar_url            VARCHAR(255),
+    role                  VARCHAR(20)  NOT NULL,
+    status                VARCHAR(20)  NOT NULL,
+    email_verified        BOOLEAN      NOT NULL,
+    failed_login_attempts INTEGER,
+    account_locked_until  TIMESTAMP(6),
+    created_at            TIMESTAMP(6) NOT NULL,
+    updated_at            TIMESTAMP(6),
+    last_login_at         TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_email ON users (email);
+CREATE INDEX IF NOT EXISTS idx_username ON users (username);
+
+CREATE TABLE IF NOT EXISTS addresses (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id        BIGINT       NOT NULL REFERENCES users (id),
+    label          VARCHAR(50),
+    street_address VARCHAR(255) NOT NULL,
+    city           VARCHAR(100) NOT NULL,
+    state          VARCHAR(100),
+    postal_code    VARCHAR(20),
+    country        VARCHAR(100) NOT NULL,
+    is_default     BOOLEAN      NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    BIGINT       NOT NULL REFERENCES users (id),
+    token      VARCHAR(255) NOT NULL UNIQUE,
+    expires_at TIMESTAMP(6) NOT NULL,
+    revoked    BOOLEAN      NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_token ON refresh_tokens (token);
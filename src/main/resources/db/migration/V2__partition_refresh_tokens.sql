@@ -0,0 +1,57 @@
+-- Range-partition refresh_tokens by expires_at, one partition per ISO week (Monday 00:00 to Monday 00:00).
+-- Expired tokens are then removed by dropping whole partitions (RefreshTokenPartitionMaintainer)
+-- instead of a large DELETE that bloats the table and keeps autovacuum busy.
+--
+-- The primary key has to include the partition key, so token uniqueness can no longer be enforced
+-- table-wide; tokens are signed JWTs carrying their own issue and expiry time, and lookups go through
+-- the (partitioned) token index.
+
+CREATE SEQUENCE refresh_token_id_seq;
+
+CREATE TABLE refresh_tokens_partitioned (
+    id         BIGINT       NOT NULL DEFAULT nextval('refresh_token_id_seq'),
+    user_id    BIGINT       NOT NULL REFERENCES users (id),
+    token      VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    revoked    BOOLEAN      NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id, expires_at)
+) PARTITION BY RANGE (expires_at);
+
+-- Cover the current week plus the refresh token lifetime (7 days) with headroom; the maintainer
+-- keeps creating partitions ahead of time from here on.
+DO $$
+DECLARE
+    week_start DATE := date_trunc('week', now())::date;
+    i INTEGER;
+BEGIN
+    FOR i IN 0..4 LOOP
+        EXECUTE format(
+                'CREATE TABLE refresh_tokens_p%s PARTITION OF refresh_tokens_partitioned FOR VALUES FROM (%L) TO (%L)',
+                to_char(week_start + i * 7, 'YYYYMMDD'),
+                week_start + i * 7,
+                week_start + (i + 1) * 7);
+    END LOOP;
+END $$;
+
+-- Catches tokens no weekly partition covers, so a stalled maintainer degrades to a growing default
+-- partition (watched through the refresh_tokens.default.rows gauge) instead of failing every login.
+CREATE TABLE refresh_tokens_default PARTITION OF refresh_tokens_partitioned DEFAULT;
+
+-- Only live tokens are worth carrying over.
+INSERT INTO refresh_tokens_partitioned (id, user_id, token, expires_at, revoked, created_at)
+SELECT id, user_id, token, expires_at, revoked, created_at
+FROM refresh_tokens
+WHERE expires_at >= date_trunc('week', now())
+  AND revoked = false;
+
+SELECT setval('refresh_token_id_seq', COALESCE((SELECT MAX(id) FROM refresh_tokens), 0) + 1, false);
+
+DROP TABLE refresh_tokens;
+
+ALTER TABLE refresh_tokens_partitioned RENAME TO refresh_tokens;
+ALTER TABLE refresh_tokens RENAME CONSTRAINT refresh_tokens_partitioned_pkey TO refresh_tokens_pkey;
+ALTER SEQUENCE refresh_token_id_seq OWNED BY refresh_tokens.id;
+
+CREATE INDEX idx_token ON refresh_tokens (token);
+CREATE INDEX idx_refresh_tokens_user_id ON refresh_tokens (user_id);
@@ -0,0 +1,6 @@
+-- Refresh tokens are issued per device (see SessionService); the per-user session index itself
+-- lives in Redis, the column lets a refresh find its session without scanning.
+ALTER TABLE refresh_tokens ADD COLUMN device_id VARCHAR(100);
+
+-- Refresh tokens now carry a jti claim, which pushes long e-mail addresses past 255 characters.
+ALTER TABLE refresh_tokens ALTER COLUMN token TYPE VARCHAR(512);
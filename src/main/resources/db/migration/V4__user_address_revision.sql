@@ -0,0 +1,3 @@
+-- Version of a user's address list, bumped by every address write (see AddressService); it versions
+-- the cached list so readers can tell which revision they were served.
+ALTER TABLE users ADD COLUMN address_revision BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,20 @@
+-- Indexes shaped for the queries the service actually runs (see UserRepository, AddressRepository).
+-- Checked against real plans in SchemaIndexPlanIntegrationTest.
+
+-- Address lists and the default-address lookup (findByUserId, findByUserIdAndIsDefaultTrue) and the
+-- address fetch joins. The partial unique index also enforces at most one default address per user;
+-- AddressService flushes the old default off before setting a new one.
+CREATE INDEX idx_addresses_user_id ON addresses (user_id);
+CREATE UNIQUE INDEX uq_addresses_user_default ON addresses (user_id) WHERE is_default;
+
+-- Admin listings and counts by status.
+CREATE INDEX idx_users_status ON users (status);
+
+-- The unverified-user purge (findUnverifiedUsersBefore) only ever looks at the few unverified rows.
+CREATE INDEX idx_users_unverified_created_at ON users (created_at) WHERE email_verified = false;
+
+-- Credential lookups (login and every authenticated request, see CustomUserDetailsService) read
+-- email, password and role only, which this index covers: an index-only scan, no heap visit. It
+-- also serves every other lookup by email, so the plain email index is redundant.
+CREATE INDEX idx_users_login ON users (email) INCLUDE (password, role);
+DROP INDEX IF EXISTS idx_email;
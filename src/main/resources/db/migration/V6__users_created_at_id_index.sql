@@ -0,0 +1,3 @@
+-- Keyset pagination of the admin user listing seeks on (created_at, id), newest first
+-- (UserRepository.findKeysAfter).
+CREATE INDEX idx_users_created_at_id ON users (created_at, id);
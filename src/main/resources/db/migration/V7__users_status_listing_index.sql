@@ -0,0 +1,4 @@
+-- Users by status are now listed a page at a time, newest first (UserRepository.findSummariesByStatus).
+-- Leading on status, this index also serves the counts by status, so it replaces idx_users_status.
+CREATE INDEX idx_users_status_created_at_id ON users (status, created_at, id);
+DROP INDEX IF EXISTS idx_users_status;
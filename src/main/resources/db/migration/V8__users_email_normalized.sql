@@ -0,0 +1,9 @@
+-- Emails are now stored trimmed and lower-cased (User.normalizeEmail), and every lookup normalizes
+-- its argument the same way. A case-insensitive lookup is therefore an equality match on the
+-- existing unique email index (and idx_users_login); no lower(email) index or citext column needed.
+--
+-- Fails if two accounts' emails differ only in case: those have to be merged by hand first.
+UPDATE users SET email = lower(trim(email)) WHERE email <> lower(trim(email));
+
+-- Holds every writer to the normalized form, so the plain unique index stays case-insensitive
+ALTER TABLE users ADD CONSTRAINT ck_users_email_normalized CHECK (email = lower(trim(email)));
@@ -0,0 +1,118 @@
+package rca.restapi.year2.userservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import rca.restapi.year2.userservice.cache.serialization.CompactRedisSerializer;
+import rca.restapi.year2.userservice.cache.serialization.UserDtoCodec;
+import rca.restapi.year2.userservice.config.RedisConfig;
+import rca.restapi.year2.userservice.dto.AddressDto;
+import rca.restapi.year2.userservice.dto.UserDto;
+import rca.restapi.year2.userservice.types.Role;
+import rca.restapi.year2.userservice.types.UserStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode latency of cached profiles: typed JSON (previous cache serializer) against the
+ * compact binary serializer, with and without LZ4. Payload sizes are printed during setup.
+ * <p>
+ * Not part of the test suite; after {@code mvn test-compile}, run {@link #main} (or
+ * {@code org.openjdk.jmh.Main CacheSerializerBenchmark}) on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"json", "compact", "compact-lz4"})
+    public String serializer;
+
+    @Param({"1", "20"})
+    public int addresses;
+
+    private RedisSerializer<Object> redisSerializer;
+    private UserDto user;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer(
+                RedisConfig.createRedisObjectMapper());
+        redisSerializer = switch (serializer) {
+            case "json" -> json;
+            case "compact" -> new CompactRedisSerializer(List.of(new UserDtoCodec()), json, 0);
+            default -> new CompactRedisSerializer(List.of(new UserDtoCodec()), json, 256);
+        };
+        user = buildUser(addresses);
+        encoded = redisSerializer.serialize(user);
+        System.out.printf("%n[%s, %d addresses] %d bytes%n", serializer, addresses, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return redisSerializer.serialize(user);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return redisSerializer.deserialize(encoded);
+    }
+
+    private static UserDto buildUser(int addressCount) {
+        List<AddressDto> addressList = new ArrayList<>();
+        for (int i = 0; i < addressCount; i++) {
+            addressList.add(AddressDto.builder()
+                    .id((long) i + 1)
+                    .label("Address " + i)
+                    .streetAddress(i + " Main St")
+                    .city("New York")
+                    .state("NY")
+                    .postalCode("10001")
+                    .country("USA")
+                    .isDefault(i == 0)
+                    .build());
+        }
+        return UserDto.builder()
+                .id(42L)
+                .username("johndoe")
+                .email("john@example.com")
+                .firstName("John")
+                .lastName("Doe")
+                .phone("+1234567890")
+                .avatarUrl("https://cdn.example.com/avatars/42.png")
+                .role(Role.USER)
+                .status(UserStatus.ACTIVE)
+                .emailVerified(true)
+                .createdAt(LocalDateTime.now().minusDays(30))
+                .lastLoginAt(LocalDateTime.now())
+                .addresses(addressList)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheSerializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,55 @@
+package rca.restapi.year2.userservice.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("BloomFilter Unit Tests")
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Should never miss a value that was put")
+    void testMightContain_NoFalseNegatives() {
+        // Given
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+
+        // When/Then
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i + "@example.com")).isTrue();
+        }
+        assertThat(filter.insertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    @DisplayName("Should stay close to the configured false-positive rate")
+    void testMightContain_FalsePositiveRate() {
+        // Given
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("probe" + i + "@example.org")) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    @DisplayName("Should reject invalid sizing")
+    void testConstructor_InvalidArguments() {
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
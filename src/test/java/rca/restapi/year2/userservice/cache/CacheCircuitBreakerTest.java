@@ -0,0 +1,97 @@
+package rca.restapi.year2.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("CacheCircuitBreaker Unit Tests")
+class CacheCircuitBreakerTest {
+
+    private static final RedisConnectionFailureException DOWN = new RedisConnectionFailureException("down");
+
+    private AtomicLong clock;
+    private SimpleMeterRegistry meterRegistry;
+    private CacheCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new CacheCircuitBreaker(3, Duration.ofSeconds(10), meterRegistry, clock::get);
+    }
+
+    @Test
+    @DisplayName("Should open after consecutive failures and skip calls while open")
+    void testOnFailure_OpensAtThreshold() {
+        // Given - a success in between resets the count
+        circuitBreaker.onFailure(DOWN);
+        circuitBreaker.onFailure(DOWN);
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure(DOWN);
+        circuitBreaker.onFailure(DOWN);
+        assertThat(circuitBreaker.isClosed()).isTrue();
+
+        // When
+        circuitBreaker.onFailure(DOWN);
+
+        // Then
+        assertThat(circuitBreaker.getState()).isEqualTo(CacheCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+        assertThat(meterRegistry.get("cache.remote.short.circuited").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.remote.circuit.state").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should let a single probe through after the open period and close on success")
+    void testTryAcquire_HalfOpenProbe() {
+        // Given
+        AtomicInteger recoveries = new AtomicInteger();
+        circuitBreaker.addRecoveryListener(recoveries::incrementAndGet);
+        open();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        // When
+        boolean probe = circuitBreaker.tryAcquire();
+        boolean other = circuitBreaker.tryAcquire();
+        circuitBreaker.onSuccess();
+
+        // Then
+        assertThat(probe).isTrue();
+        assertThat(other).isFalse();
+        assertThat(circuitBreaker.isClosed()).isTrue();
+        assertThat(recoveries.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reopen for another period when the probe fails")
+    void testOnFailure_ProbeFailureReopens() {
+        // Given
+        open();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+
+        // When
+        circuitBreaker.onFailure(DOWN);
+
+        // Then
+        assertThat(circuitBreaker.getState()).isEqualTo(CacheCircuitBreaker.State.OPEN);
+        clock.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.onFailure(DOWN);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package rca.restapi.year2.userservice.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("CachePolicies Unit Tests")
+class CachePoliciesTest {
+
+    private CachePolicies cachePolicies;
+
+    @BeforeEach
+    void setUp() {
+        cachePolicies = new CachePolicies();
+        cachePolicies.setDefaultTtl(Duration.ofHours(1));
+        CachePolicies.Policy users = new CachePolicies.Policy();
+        users.setTtl(Duration.ofMinutes(30));
+        users.setJitter(0.1);
+        users.setRefreshAhead(0.2);
+        cachePolicies.getPolicies().put("users", users);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the defaults for caches without a policy")
+    void testDefaults() {
+        assertThat(cachePolicies.ttl("other", 1L)).isEqualTo(Duration.ofHours(1));
+        assertThat(cachePolicies.refreshAhead("other")).isZero();
+        assertThat(cachePolicies.refreshAhead("users")).isEqualTo(0.2);
+    }
+
+    @Test
+    @DisplayName("Should spread TTLs within the jitter band, the same for the same key")
+    void testTtl_Jitter() {
+        // When
+        Set<Duration> ttls = new HashSet<>();
+        for (long id = 1; id <= 1_000; id++) {
+            Duration ttl = cachePolicies.ttl("users", id);
+            assertThat(ttl).isBetween(Duration.ofMinutes(27), Duration.ofMinutes(33));
+            ttls.add(ttl);
+        }
+
+        // Then
+        assertThat(ttls).hasSizeGreaterThan(900);
+        assertThat(cachePolicies.ttl("users", 42L)).isEqualTo(cachePolicies.ttl("users", "42"));
+    }
+}
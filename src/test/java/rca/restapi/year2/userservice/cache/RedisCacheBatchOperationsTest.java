@@ -0,0 +1,98 @@
+package rca.restapi.year2.userservice.cache;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.protocol.ProtocolVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import rca.restapi.year2.userservice.cache.serialization.CompactRedisSerializer;
+import rca.restapi.year2.userservice.cache.serialization.UserDtoCodec;
+import rca.restapi.year2.userservice.config.RedisConfig;
+import rca.restapi.year2.userservice.dto.UserDto;
+import rca.restapi.year2.userservice.util.StubRedisServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("RedisCacheBatchOperations Tests")
+class RedisCacheBatchOperationsTest {
+
+    private StubRedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private CacheCircuitBreaker circuitBreaker;
+    private RedisCacheBatchOperations batchOperations;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StubRedisServer();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("127.0.0.1", server.getPort()),
+                LettuceClientConfiguration.builder()
+                        .commandTimeout(Duration.ofSeconds(2))
+                        .clientOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build())
+                        .build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        circuitBreaker = new CacheCircuitBreaker(5, Duration.ofSeconds(10), new SimpleMeterRegistry());
+        batchOperations = new RedisCacheBatchOperations(
+                new StringRedisTemplate(connectionFactory),
+                new CompactRedisSerializer(List.of(new UserDtoCodec()),
+                        new GenericJackson2JsonRedisSerializer(RedisConfig.createRedisObjectMapper()), 1024),
+                new CachePolicies(),
+                circuitBreaker);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connectionFactory.destroy();
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Should write a batch in one pipeline and read it back with one MGET")
+    void testPutAllThenGetAll_RoundTrip() {
+        // Given
+        batchOperations.putAll("users", Map.of(
+                1L, UserDto.builder().id(1L).email("one@example.com").build(),
+                2L, UserDto.builder().id(2L).email("two@example.com").build()));
+        assertThat(server.contains("users::1")).isTrue();
+        int before = server.commandCount();
+
+        // When
+        Map<Long, UserDto> found = batchOperations.getAll("users", List.of(1L, 404L, 2L), UserDto.class);
+
+        // Then
+        assertThat(found).containsOnlyKeys(1L, 2L);
+        assertThat(found.get(2L).getEmail()).isEqualTo("two@example.com");
+        assertThat(server.commandCount() - before).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should find nothing, without calling Redis, while the circuit is open")
+    void testGetAll_CircuitOpen() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.onFailure(new RedisConnectionFailureException("down"));
+        }
+        int before = server.commandCount();
+
+        // When
+        Map<Long, UserDto> found = batchOperations.getAll("users", List.of(1L), UserDto.class);
+
+        // Then
+        assertThat(found).isEmpty();
+        assertThat(server.commandCount()).isEqualTo(before);
+    }
+}
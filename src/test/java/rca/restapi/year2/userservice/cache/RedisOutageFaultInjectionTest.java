@@ -0,0 +1,262 @@
+package rca.restapi.year2.userservice.cache;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.protocol.ProtocolVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import rca.restapi.year2.userservice.config.RedisConfig;
+import rca.restapi.year2.userservice.dto.AddressDto;
+import rca.restapi.year2.userservice.dto.UserDto;
+import rca.restapi.year2.userservice.util.StubRedisServer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The real cache stack (L1, circuit breaker, Spring's Redis cache, Lettuce, the load lease) against a
+ * local stand-in Redis that can be made to hang.
+ */
+@DisplayName("Redis outage fault injection")
+class RedisOutageFaultInjectionTest {
+
+    private static final Duration COMMAND_TIMEOUT = Duration.ofMillis(200);
+    private static final Duration OPEN_DURATION = Duration.ofMillis(300);
+
+    private StubRedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private CacheCircuitBreaker circuitBreaker;
+    private RedisSerializer<Object> serializer;
+    private Cache cache;
+    private UserProfileCache userProfileCache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new StubRedisServer();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("127.0.0.1", server.getPort()),
+                LettuceClientConfiguration.builder()
+                        .commandTimeout(COMMAND_TIMEOUT)
+                        .clientOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build())
+                        .build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        // Connect up front: on a cold JVM the handshake alone can outlast the command timeout, and the
+        // first cache call must not pay for it
+        for (int attempt = 1; ; attempt++) {
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                connection.ping();
+                break;
+            } catch (RedisConnectionFailureException e) {
+                if (attempt == 5) {
+                    throw e;
+                }
+            }
+        }
+
+        serializer = new RedisConfig().cacheValueSerializer("compact", 1024);
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl(Duration.ofMinutes(5))
+                        .serializeValuesWith(RedisSerializationContext.SerializationPair
+                                .fromSerializer(serializer)))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new CacheCircuitBreaker(2, OPEN_DURATION, meterRegistry);
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(
+                new ResilientCacheManager(redisCacheManager, circuitBreaker, 100),
+                new CacheInvalidationPublisher(new StringRedisTemplate(connectionFactory), "cache:invalidation",
+                        circuitBreaker),
+                meterRegistry, 100, Duration.ofMinutes(1));
+        cache = cacheManager.getCache("users");
+
+        SingleFlightLoader singleFlightLoader = new SingleFlightLoader(new StringRedisTemplate(connectionFactory),
+                new CachePolicies(), meterRegistry, 100, 1);
+        ReflectionTestUtils.setField(singleFlightLoader, "leaseEnabled", true);
+        singleFlightLoader.setCircuitBreaker(circuitBreaker);
+        userProfileCache = new UserProfileCache(cacheManager, singleFlightLoader,
+                new SimpleCacheBatchOperations(cacheManager), new SimpleVersionedCacheWriter(cacheManager));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.resume();
+        connectionFactory.destroy();
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Should serve L1 and the loader within the timeout while Redis hangs, then stop waiting on it")
+    void testHangingRedis_DegradesThenShortCircuits() {
+        // Given
+        cache.put("1", "one");
+        assertThat(server.contains("users::1")).isTrue();
+        server.pause();
+
+        // When - the first misses each wait out one command timeout and open the circuit
+        long start = System.nanoTime();
+        Object cached = cache.get("1").get();
+        String loaded = cache.get("2", () -> "two");
+        long degradedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        String bypassed = cache.get("3", () -> "three");
+        long bypassedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Then
+        assertThat(cached).isEqualTo("one");
+        assertThat(loaded).isEqualTo("two");
+        assertThat(degradedMillis).isLessThan(2_000);
+        assertThat(circuitBreaker.getState()).isEqualTo(CacheCircuitBreaker.State.OPEN);
+        assertThat(bypassed).isEqualTo("three");
+        assertThat(bypassedMillis).isLessThan(COMMAND_TIMEOUT.toMillis());
+    }
+
+    @Test
+    @DisplayName("Should close after a successful probe and replay evictions skipped during the outage")
+    void testRecovery_ReplaysSkippedEvictions() throws Exception {
+        // Given - the circuit is open, so this eviction never reaches Redis
+        cache.put("1", "one");
+        server.pause();
+        cache.get("2", () -> "two");
+        assertThat(circuitBreaker.getState()).isEqualTo(CacheCircuitBreaker.State.OPEN);
+        cache.evict("1");
+        server.resume();
+        assertThat(server.contains("users::1")).isTrue();
+
+        // When
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        cache.get("3");
+
+        // Then
+        assertThat(circuitBreaker.isClosed()).isTrue();
+        assertThat(server.contains("users::1")).isFalse();
+        assertThat(cache.get("1")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should settle a half-open probe that reads a value it cannot decode")
+    void testRecovery_UndecodableValueSettlesProbe() throws Exception {
+        // Given - the circuit is open and the probe will read a truncated profile
+        server.pause();
+        cache.get("2", () -> "two");
+        assertThat(circuitBreaker.getState()).isEqualTo(CacheCircuitBreaker.State.OPEN);
+        server.resume();
+        server.put("users::5", Arrays.copyOf(serializer.serialize(profile(5L)), 6));
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        // When
+        Cache.ValueWrapper probed = cache.get("5");
+
+        // Then - a miss, and Redis answered, so the probe closes the circuit
+        assertThat(probed).isNull();
+        assertThat(circuitBreaker.isClosed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should treat corrupt entries as misses without opening the circuit")
+    void testCorruptEntries_DoNotOpenCircuit() {
+        // Given - a compressed profile cut short, more times than the failure threshold
+        byte[] compressed = serializer.serialize(profileWithAddresses(7L, 40));
+        assertThat(compressed[2] & 0x01).isNotZero();
+        server.put("users::7", Arrays.copyOf(compressed, compressed.length / 2));
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get("7")).isNull();
+        }
+
+        // Then
+        assertThat(circuitBreaker.isClosed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should load profiles without waiting on the load lease while the circuit is open")
+    void testHangingRedis_ProfileLoadsSkipLease() {
+        // Given - the cache read and the lease each wait out one command timeout and open the circuit
+        server.pause();
+        UserDto first = userProfileCache.getById(1L, () -> profile(1L));
+        assertThat(first.getId()).isEqualTo(1L);
+        assertThat(circuitBreaker.getState()).isEqualTo(CacheCircuitBreaker.State.OPEN);
+
+        // When
+        long start = System.nanoTime();
+        UserDto bypassed = userProfileCache.getById(2L, () -> profile(2L));
+        long bypassedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Then
+        assertThat(bypassed.getId()).isEqualTo(2L);
+        assertThat(bypassedMillis).isLessThan(COMMAND_TIMEOUT.toMillis());
+        assertThat(circuitBreaker.getState()).isEqualTo(CacheCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    @DisplayName("Should take and release the load lease once the circuit has closed again")
+    void testRecovery_ProfileLoadsUseLease() throws Exception {
+        // Given
+        server.pause();
+        userProfileCache.getById(1L, () -> profile(1L));
+        assertThat(circuitBreaker.getState()).isEqualTo(CacheCircuitBreaker.State.OPEN);
+        server.resume();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        int commandsBefore = server.commandCount();
+
+        // When
+        UserDto loaded = userProfileCache.getById(3L, () -> profile(3L));
+
+        // Then - read, SET NX, the store, then the release (EVALSHA falling back to EVAL)
+        assertThat(loaded.getId()).isEqualTo(3L);
+        assertThat(circuitBreaker.isClosed()).isTrue();
+        assertThat(server.commandCount() - commandsBefore).isGreaterThanOrEqualTo(4);
+        assertThat(server.contains("users::3")).isTrue();
+        assertThat(server.contains("lock:users:3")).isFalse();
+    }
+
+    private static UserDto profile(Long id) {
+        return UserDto.builder()
+                .id(id)
+                .username("user" + id)
+                .email("user" + id + "@example.com")
+                .updatedAt(LocalDateTime.now())
+                .addressRevision(0L)
+                .build();
+    }
+
+    private static UserDto profileWithAddresses(Long id, int addressCount) {
+        UserDto profile = profile(id);
+        List<AddressDto> addresses = new ArrayList<>();
+        for (int i = 0; i < addressCount; i++) {
+            addresses.add(AddressDto.builder()
+                    .id((long) i + 1)
+                    .label("Home " + i)
+                    .streetAddress(i + " Main St")
+                    .city("New York")
+                    .country("USA")
+                    .isDefault(i == 0)
+                    .build());
+        }
+        profile.setAddresses(addresses);
+        return profile;
+    }
+}
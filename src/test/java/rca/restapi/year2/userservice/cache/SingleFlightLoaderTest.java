@@ -0,0 +1,248 @@
+package rca.restapi.year2.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import rca.restapi.year2.userservice.exception.ResourceNotFoundException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SingleFlightLoader Unit Tests")
+class SingleFlightLoaderTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachePolicies cachePolicies;
+    private SingleFlightLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cachePolicies = new CachePolicies();
+        loader = new SingleFlightLoader(redisTemplate, cachePolicies, meterRegistry, 100, 1);
+    }
+
+    @Test
+    @DisplayName("Should run one loader for concurrent misses on the same key")
+    void testLoad_CoalescesConcurrentMisses() throws Exception {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> loader.load("users:1", () -> null, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "profile";
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> loader.load("users:1", () -> null, () -> {
+            loads.incrementAndGet();
+            return "duplicate";
+        }));
+        while (meterRegistry.get("cache.load.coalesced").counter().count() < 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("profile");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("profile");
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should rethrow the loader's exception")
+    void testLoad_PropagatesLoaderException() {
+        // When/Then
+        assertThatThrownBy(() -> loader.load("users:404", () -> null, () -> {
+            throw new ResourceNotFoundException("User not found");
+        }))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("User not found");
+    }
+
+    @Test
+    @DisplayName("Should wait for the lease holder instead of loading")
+    void testLoad_LeaseHeldByOtherNode() {
+        // Given
+        ReflectionTestUtils.setField(loader, "leaseEnabled", true);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("lock:users:1"), anyString(), any(Duration.class))).thenReturn(false);
+        AtomicInteger polls = new AtomicInteger();
+
+        // When
+        String result = loader.load("users:1",
+                () -> polls.incrementAndGet() < 3 ? null : "loaded elsewhere",
+                () -> "loaded here");
+
+        // Then
+        assertThat(result).isEqualTo("loaded elsewhere");
+        assertThat(meterRegistry.get("cache.load.lease.waits").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should load and release the lease when it is free")
+    void testLoad_AcquiresAndReleasesLease() {
+        // Given
+        ReflectionTestUtils.setField(loader, "leaseEnabled", true);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq("lock:users:1"), anyString(), any(Duration.class))).thenReturn(true);
+
+        // When
+        String result = loader.load("users:1", () -> null, () -> "loaded here");
+
+        // Then
+        assertThat(result).isEqualTo("loaded here");
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("lock:users:1")), anyString());
+    }
+
+    @Test
+    @DisplayName("Should load without a lease when Redis is unavailable")
+    void testLoad_RedisUnavailable() {
+        // Given
+        ReflectionTestUtils.setField(loader, "leaseEnabled", true);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        // When
+        String result = loader.load("users:1", () -> null, () -> "loaded here");
+
+        // Then
+        assertThat(result).isEqualTo("loaded here");
+        assertThat(meterRegistry.get("cache.load.lease.waits").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should refresh early only when the entry is close to expiry")
+    void testShouldRefreshEarly() {
+        // Given
+        loader.load("users:1", () -> null, () -> "fresh");
+        cachePolicies.setDefaultTtl(Duration.ZERO);
+        loader.load("users:2", () -> null, () -> "expiring");
+
+        // When/Then
+        assertThat(loader.shouldRefreshEarly("users:1")).isFalse();
+        assertThat(loader.shouldRefreshEarly("users:2")).isTrue();
+        assertThat(loader.shouldRefreshEarly("users:3")).isFalse();
+        assertThat(meterRegistry.get("cache.load.early.refreshes").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should track early refresh under the key derived from the loaded value")
+    void testLoad_RefreshKeyFromValue() {
+        // Given
+        cachePolicies.setDefaultTtl(Duration.ZERO);
+
+        // When
+        loader.load("users-by-email:test@example.com", () -> null, () -> 1L, id -> "users:" + id);
+
+        // Then
+        assertThat(loader.shouldRefreshEarly("users:1")).isTrue();
+        assertThat(loader.shouldRefreshEarly("users-by-email:test@example.com")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should schedule refresh-ahead only in the last part of the entry's life")
+    void testShouldRefreshAhead() {
+        // Given
+        cachePolicies.getPolicies().put("users", policy(Duration.ofHours(1), 0.5));
+        cachePolicies.getPolicies().put("stale", policy(Duration.ZERO, 0.5));
+        loader.load("users:1", () -> null, () -> "fresh");
+        loader.load("stale:1", () -> null, () -> "expiring");
+
+        // When/Then
+        assertThat(loader.shouldRefreshAhead("users:1")).isFalse();
+        assertThat(loader.shouldRefreshAhead("stale:1")).isTrue();
+        assertThat(loader.shouldRefreshAhead("users:2")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reload in the background once per key")
+    void testRefreshAsync_CoalescesAndRuns() throws Exception {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        loader.refreshAsync("users:1", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "refreshed";
+        });
+        loader.refreshAsync("users:1", () -> {
+            loads.incrementAndGet();
+            return "duplicate";
+        });
+        release.countDown();
+
+        // Then - a load issued now waits for the refresh instead of running its own loader
+        String value = loader.load("users:1", () -> null, () -> "loaded");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(value).isIn("refreshed", "loaded");
+        assertThat(meterRegistry.get("cache.load.ahead.refreshes").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should let a waiting load run its own loader when the refresh fails")
+    void testRefreshAsync_FailureFallsBackToLoad() {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        loader.refreshAsync("users:1", () -> {
+            await(release);
+            throw new IllegalStateException("db down");
+        });
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(
+                () -> loader.load("users:1", () -> null, () -> "loaded"));
+
+        // When
+        release.countDown();
+
+        // Then
+        assertThat(waiting.join()).isEqualTo("loaded");
+    }
+
+    private static CachePolicies.Policy policy(Duration ttl, double refreshAhead) {
+        CachePolicies.Policy policy = new CachePolicies.Policy();
+        policy.setTtl(ttl);
+        policy.setRefreshAhead(refreshAhead);
+        return policy;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package rca.restapi.year2.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TwoTierCacheManager Unit Tests")
+class TwoTierCacheManagerTest {
+
+    private static final String CHANNEL = "cache:invalidation";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private ConcurrentMapCacheManager remoteCacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private TwoTierCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        remoteCacheManager = new ConcurrentMapCacheManager("users");
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TwoTierCacheManager(remoteCacheManager,
+                new CacheInvalidationPublisher(stringRedisTemplate, CHANNEL,
+                        new CacheCircuitBreaker(5, Duration.ofSeconds(10), meterRegistry)),
+                meterRegistry, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads from L1 after an L2 hit")
+    void testGet_PromotesL2HitToL1() {
+        // Given
+        remoteCacheManager.getCache("users").put(1L, "profile");
+        Cache cache = cacheManager.getCache("users");
+
+        // When
+        Object first = cache.get(1L).get();
+        remoteCacheManager.getCache("users").evict(1L);
+        Object second = cache.get(1L).get();
+
+        // Then
+        assertThat(first).isEqualTo("profile");
+        assertThat(second).isEqualTo("profile");
+        assertThat(requests("l1", "hit")).isEqualTo(1.0);
+        assertThat(requests("l1", "miss")).isEqualTo(1.0);
+        assertThat(requests("l2", "hit")).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.tier.hit.ratio").tag("tier", "l1").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("Should write through to L2 and tell other nodes to drop their copy")
+    void testPut_WritesBothTiersAndPublishes() {
+        // Given
+        Cache cache = cacheManager.getCache("users");
+
+        // When
+        cache.put("test@example.com", "profile");
+
+        // Then
+        assertThat(remoteCacheManager.getCache("users").get("test@example.com").get()).isEqualTo("profile");
+        verify(stringRedisTemplate).convertAndSend(eq(CHANNEL), endsWith("|users|test@example.com"));
+    }
+
+    @Test
+    @DisplayName("Should evict both tiers and publish the eviction")
+    void testEvict_BothTiers() {
+        // Given
+        Cache cache = cacheManager.getCache("users");
+        cache.put(1L, "profile");
+
+        // When
+        cache.evict(1L);
+
+        // Then
+        assertThat(cache.get(1L)).isNull();
+        assertThat(remoteCacheManager.getCache("users").get(1L)).isNull();
+        verify(stringRedisTemplate, times(2)).convertAndSend(eq(CHANNEL), endsWith("|users|1"));
+    }
+
+    @Test
+    @DisplayName("Should drop only the local copy when another node invalidates a key")
+    void testOnMessage_RemoteInvalidation() {
+        // Given
+        Cache cache = cacheManager.getCache("users");
+        cache.put(1L, "stale");
+        remoteCacheManager.getCache("users").put(1L, "fresh");
+
+        // When
+        cacheManager.onMessage(message("other-node|users|1"), null);
+
+        // Then
+        assertThat(cache.get(1L).get()).isEqualTo("fresh");
+    }
+
+    @Test
+    @DisplayName("Should ignore invalidations published by this node")
+    void testOnMessage_OwnMessageIgnored() {
+        // Given
+        Cache cache = cacheManager.getCache("users");
+        cache.put(1L, "local");
+        remoteCacheManager.getCache("users").put(1L, "remote");
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(CHANNEL), published.capture());
+
+        // When
+        cacheManager.onMessage(message(published.getValue()), null);
+
+        // Then
+        assertThat(cache.get(1L).get()).isEqualTo("local");
+    }
+
+    @Test
+    @DisplayName("Should clear the local tier when another node clears the cache")
+    void testOnMessage_RemoteClear() {
+        // Given
+        Cache cache = cacheManager.getCache("users");
+        cache.put(1L, "profile");
+        remoteCacheManager.getCache("users").clear();
+
+        // When
+        cacheManager.onMessage(message("other-node|users"), null);
+
+        // Then
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    private double requests(String tier, String result) {
+        return meterRegistry.get("cache.tier.requests").tag("tier", tier).tag("result", result).counter().count();
+    }
+
+    private DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
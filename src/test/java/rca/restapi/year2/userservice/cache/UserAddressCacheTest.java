@@ -0,0 +1,75 @@
+package rca.restapi.year2.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rca.restapi.year2.userservice.dto.UserAddressesDto;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UserAddressCache Unit Tests")
+class UserAddressCacheTest {
+
+    private UserAddressCache userAddressCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        userAddressCache = new UserAddressCache(new ConcurrentMapCacheManager(UserAddressCache.ADDRESSES),
+                new SingleFlightLoader(null, new CachePolicies(), new SimpleMeterRegistry(), 100, 1));
+        loads = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should load once and serve later reads from the cache")
+    void testGet_CachesLoadedList() {
+        // Given
+        userAddressCache.get("test@example.com", loader(1L));
+
+        // When
+        UserAddressesDto result = userAddressCache.get("test@example.com", loader(2L));
+
+        // Then
+        assertThat(result.getRevision()).isEqualTo(1L);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should defer eviction until the surrounding transaction commits")
+    void testEvict_AfterCommit() {
+        // Given
+        userAddressCache.get("test@example.com", loader(1L));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        userAddressCache.evict("test@example.com");
+
+        // Then
+        assertThat(userAddressCache.get("test@example.com", loader(2L)).getRevision()).isEqualTo(1L);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(userAddressCache.get("test@example.com", loader(2L)).getRevision()).isEqualTo(2L);
+    }
+
+    private Supplier<UserAddressesDto> loader(Long revision) {
+        return () -> {
+            loads.incrementAndGet();
+            return UserAddressesDto.builder().userId(1L).revision(revision).addresses(List.of()).build();
+        };
+    }
+}
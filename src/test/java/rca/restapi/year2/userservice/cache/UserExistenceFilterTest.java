@@ -0,0 +1,218 @@
+package rca.restapi.year2.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.repository.projection.UserIdentityView;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserExistenceFilter Unit Tests")
+class UserExistenceFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserExistenceFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new UserExistenceFilter(userRepository, redisTemplate, meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "broadcastChannel", "user-filter:additions");
+    }
+
+    @Test
+    @DisplayName("Should answer maybe for everything until built")
+    void testMightContain_BeforeBuild() {
+        assertThat(filter.mightContainEmail("anyone@example.com")).isTrue();
+        assertThat(filter.mightContainUsername("anyone")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should rule out unknown emails and usernames after the scan")
+    void testRebuild_ScansIdentities() {
+        // Given
+        givenUsers(new UserIdentityView("Test@Example.com", "TestUser"));
+
+        // When
+        filter.rebuildIfStale();
+
+        // Then
+        assertThat(filter.mightContainEmail(" test@example.COM ")).isTrue();
+        assertThat(filter.mightContainUsername("testuser")).isTrue();
+        assertThat(filter.mightContainEmail("nobody@example.com")).isFalse();
+        assertThat(filter.mightContainUsername("test@example.com")).isFalse();
+        assertThat(meterRegistry.get("user.lookup.filter.negatives").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Should add registrations locally and broadcast them")
+    void testAdd_LocalAndBroadcast() {
+        // Given
+        givenUsers();
+        filter.rebuildIfStale();
+
+        // When
+        filter.add("new@example.com", "newuser");
+
+        // Then
+        assertThat(filter.mightContainEmail("new@example.com")).isTrue();
+        assertThat(filter.mightContainUsername("newuser")).isTrue();
+        verify(redisTemplate).convertAndSend(eq("user-filter:additions"), contains("\nnew@example.com\nnewuser"));
+    }
+
+    @Test
+    @DisplayName("Should add registrations broadcast by other nodes, ignoring its own")
+    void testOnMessage_RemoteAddition() {
+        // Given
+        givenUsers();
+        filter.rebuildIfStale();
+
+        // When
+        filter.onMessage(message("other-node\nremote@example.com\nremoteuser"), null);
+
+        // Then
+        assertThat(filter.mightContainEmail("remote@example.com")).isTrue();
+        assertThat(filter.mightContainUsername("remoteuser")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep additions made while a rebuild was scanning")
+    void testRebuild_ReplaysConcurrentAdditions() {
+        // Given - the registration lands after the scan has read its snapshot
+        when(userRepository.count()).thenReturn(1L);
+        when(userRepository.streamAllIdentities()).thenAnswer(invocation -> {
+            filter.add("racing@example.com", "racer");
+            return Stream.of(new UserIdentityView("test@example.com", "testuser"));
+        });
+
+        // When
+        filter.rebuildIfStale();
+
+        // Then
+        assertThat(filter.mightContainEmail("racing@example.com")).isTrue();
+        assertThat(filter.mightContainUsername("racer")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should rebuild only after removals")
+    void testRebuildIfStale_OnlyAfterRemovals() {
+        // Given
+        givenUsers(new UserIdentityView("test@example.com", "testuser"));
+        filter.rebuildIfStale();
+
+        // When
+        filter.rebuildIfStale();
+        filter.recordRemoval();
+        filter.rebuildIfStale();
+
+        // Then
+        verify(userRepository, times(2)).streamAllIdentities();
+    }
+
+    @Test
+    @DisplayName("Should rebuild once the filter is older than its maximum age")
+    void testRebuildIfStale_AfterMaxAge() {
+        // Given
+        givenUsers(new UserIdentityView("test@example.com", "testuser"));
+        ReflectionTestUtils.setField(filter, "maxAge", Duration.ZERO);
+        filter.rebuildIfStale();
+
+        // When
+        filter.rebuildIfStale();
+
+        // Then
+        verify(userRepository, times(2)).streamAllIdentities();
+    }
+
+    @Test
+    @DisplayName("Should rebuild after the broadcast subscription was re-established")
+    void testRebuildIfStale_AfterResubscribe() {
+        // Given
+        givenUsers(new UserIdentityView("test@example.com", "testuser"));
+        byte[] channel = "user-filter:additions".getBytes(StandardCharsets.UTF_8);
+        filter.onChannelSubscribed(channel, 1);
+        filter.rebuildIfStale();
+        filter.rebuildIfStale();
+
+        // When
+        filter.onChannelSubscribed(channel, 1);
+        filter.rebuildIfStale();
+        filter.rebuildIfStale();
+
+        // Then
+        verify(userRepository, times(2)).streamAllIdentities();
+    }
+
+    @Test
+    @DisplayName("Should resend broadcasts that failed on the next pass")
+    void testRebuildIfStale_ResendsFailedBroadcasts() {
+        // Given
+        givenUsers();
+        filter.rebuildIfStale();
+        doThrow(new RedisConnectionFailureException("down"))
+                .doReturn(1L)
+                .when(redisTemplate).convertAndSend(anyString(), anyString());
+        filter.add("new@example.com", "newuser");
+
+        // When
+        filter.rebuildIfStale();
+        filter.rebuildIfStale();
+
+        // Then
+        verify(redisTemplate, times(2)).convertAndSend(eq("user-filter:additions"),
+                contains("\nnew@example.com\nnewuser"));
+    }
+
+    @Test
+    @DisplayName("Should answer maybe for everything when disabled")
+    void testMightContain_Disabled() {
+        // Given
+        ReflectionTestUtils.setField(filter, "enabled", false);
+
+        // When
+        filter.rebuildIfStale();
+        filter.add("new@example.com", "newuser");
+
+        // Then
+        assertThat(filter.mightContainEmail("nobody@example.com")).isTrue();
+        verifyNoInteractions(userRepository, redisTemplate);
+    }
+
+    private void givenUsers(UserIdentityView... users) {
+        when(userRepository.count()).thenReturn((long) users.length);
+        when(userRepository.streamAllIdentities()).thenAnswer(invocation -> Stream.of(users));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("user-filter:additions".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String contains(String substring) {
+        return argThat(value -> value != null && value.contains(substring));
+    }
+}
@@ -0,0 +1,274 @@
+package rca.restapi.year2.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rca.restapi.year2.userservice.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UserProfileCache Unit Tests")
+class UserProfileCacheTest {
+
+    private ConcurrentMapCacheManager cacheManager;
+    private CachePolicies cachePolicies;
+    private UserProfileCache userProfileCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(UserProfileCache.USERS, UserProfileCache.EMAIL_INDEX);
+        cachePolicies = new CachePolicies();
+        userProfileCache = new UserProfileCache(cacheManager,
+                new SingleFlightLoader(null, cachePolicies, new SimpleMeterRegistry(), 100, 1),
+                new SimpleCacheBatchOperations(cacheManager),
+                new SimpleVersionedCacheWriter(cacheManager));
+        loads = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should store the profile once, under its ID, with an email index entry")
+    void testGetByEmail_StoresProfileByIdAndIndexesEmail() {
+        // When
+        userProfileCache.getByEmail("test@example.com", loader(1L, "test@example.com"));
+
+        // Then
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get(1L)).isNotNull();
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get("test@example.com")).isNull();
+        assertThat(cacheManager.getCache(UserProfileCache.EMAIL_INDEX).get("test@example.com").get()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should resolve email lookups through the index without reloading")
+    void testGetByEmail_IndexHit() {
+        // Given
+        userProfileCache.getById(1L, loader(1L, "test@example.com"));
+
+        // When
+        UserDto result = userProfileCache.getByEmail("test@example.com", loader(1L, "test@example.com"));
+
+        // Then
+        assertThat(result.getId()).isEqualTo(1L);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should accept index entries deserialized as Integer")
+    void testGetByEmail_IntegerIndexValue() {
+        // Given
+        userProfileCache.getById(1L, loader(1L, "test@example.com"));
+        cacheManager.getCache(UserProfileCache.EMAIL_INDEX).put("test@example.com", 1);
+
+        // When
+        userProfileCache.getByEmail("test@example.com", loader(1L, "test@example.com"));
+
+        // Then
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not trust an index entry pointing at a profile with another email")
+    void testGetByEmail_StaleIndexReloads() {
+        // Given
+        userProfileCache.getById(1L, loader(1L, "other@example.com"));
+        cacheManager.getCache(UserProfileCache.EMAIL_INDEX).put("test@example.com", 1L);
+
+        // When
+        UserDto result = userProfileCache.getByEmail("test@example.com", loader(2L, "test@example.com"));
+
+        // Then
+        assertThat(result.getId()).isEqualTo(2L);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should evict both the profile and the email index entry")
+    void testEvict_BothKeys() {
+        // Given
+        userProfileCache.getByEmail("test@example.com", loader(1L, "test@example.com"));
+
+        // When
+        userProfileCache.evict(1L, "test@example.com");
+
+        // Then
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get(1L)).isNull();
+        assertThat(cacheManager.getCache(UserProfileCache.EMAIL_INDEX).get("test@example.com")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should defer eviction until the surrounding transaction commits")
+    void testEvict_AfterCommit() {
+        // Given
+        userProfileCache.getById(1L, loader(1L, "test@example.com"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        userProfileCache.evict(1L, "test@example.com");
+
+        // Then
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get(1L)).isNotNull();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get(1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should write an updated profile through to both lookups once the transaction commits")
+    void testPut_AfterCommit() {
+        // Given
+        userProfileCache.getById(1L, loader(1L, "test@example.com"));
+        TransactionSynchronizationManager.initSynchronization();
+        UserDto updated = profile(1L, "test@example.com", LocalDateTime.of(2026, 1, 1, 12, 0), 0L);
+
+        // When
+        userProfileCache.put(updated);
+
+        // Then
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get(1L).get()).isNotEqualTo(updated);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(userProfileCache.getByEmail("test@example.com", loader(1L, "test@example.com")))
+                .isEqualTo(updated);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not let a profile loaded before an update replace the written-through one")
+    void testStore_StaleLoadLosesToNewerPut() {
+        // Given
+        LocalDateTime loadedAt = LocalDateTime.of(2026, 1, 1, 12, 0);
+        UserDto updated = profile(1L, "test@example.com", loadedAt.plusNanos(1_000), 0L);
+        userProfileCache.put(updated);
+        userProfileCache.evict(1L, "ignored@example.com");
+
+        // When - a reader that loaded the row before the update stores it late
+        userProfileCache.getById(1L, () -> profile(1L, "test@example.com", loadedAt, 0L));
+
+        // Then
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get(1L)).isNull();
+        userProfileCache.put(updated);
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get(1L).get()).isEqualTo(updated);
+    }
+
+    @Test
+    @DisplayName("Should refuse profiles older than the address revision an eviction recorded")
+    void testEvict_AddressRevisionFloor() {
+        // Given
+        LocalDateTime updatedAt = LocalDateTime.of(2026, 1, 1, 12, 0);
+        userProfileCache.put(profile(1L, "test@example.com", updatedAt, 1L));
+
+        // When
+        userProfileCache.evict(1L, "test@example.com", 2L);
+        userProfileCache.put(profile(1L, "test@example.com", updatedAt.plusSeconds(1), 1L));
+
+        // Then
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get(1L)).isNull();
+        userProfileCache.put(profile(1L, "test@example.com", updatedAt, 2L));
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get(1L)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should refuse profiles loaded before the update an eviction recorded")
+    void testEvict_UpdatedAtFloor() {
+        // Given
+        LocalDateTime updatedAt = LocalDateTime.of(2026, 1, 1, 12, 0);
+        userProfileCache.put(profile(1L, "test@example.com", updatedAt, 1L));
+
+        // When
+        userProfileCache.evict(1L, "test@example.com", updatedAt.plusSeconds(1), 1L);
+        userProfileCache.put(profile(1L, "test@example.com", updatedAt, 1L));
+
+        // Then
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get(1L)).isNull();
+        assertThat(cacheManager.getCache(UserProfileCache.EMAIL_INDEX).get("test@example.com")).isNull();
+        userProfileCache.put(profile(1L, "test@example.com", updatedAt.plusSeconds(1), 1L));
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get(1L)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should store warmed profiles so both lookups hit without loading")
+    void testStoreAll_IndexesEveryProfile() {
+        // Given
+        userProfileCache.storeAll(List.of(
+                UserDto.builder().id(1L).email("one@example.com").build(),
+                UserDto.builder().id(2L).email("two@example.com").build()));
+
+        // When
+        UserDto byId = userProfileCache.getById(1L, loader(1L, "one@example.com"));
+        UserDto byEmail = userProfileCache.getByEmail("two@example.com", loader(2L, "two@example.com"));
+
+        // Then
+        assertThat(byId.getEmail()).isEqualTo("one@example.com");
+        assertThat(byEmail.getId()).isEqualTo(2L);
+        assertThat(loads.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should batch-load only the misses and keep the requested order")
+    void testGetAllByIds_LoadsMissesTogether() {
+        // Given
+        userProfileCache.getById(2L, loader(2L, "two@example.com"));
+        List<Collection<Long>> batches = new ArrayList<>();
+
+        // When
+        List<UserDto> result = userProfileCache.getAllByIds(List.of(3L, 2L, 1L), ids -> {
+            batches.add(List.copyOf(ids));
+            return ids.stream()
+                    .filter(id -> id != 3L)
+                    .map(id -> UserDto.builder().id(id).email(id + "@example.com").build())
+                    .toList();
+        });
+
+        // Then
+        assertThat(result).extracting(UserDto::getId).containsExactly(2L, 1L);
+        assertThat(batches).containsExactly(List.of(3L, 1L));
+        assertThat(cacheManager.getCache(UserProfileCache.USERS).get(1L)).isNotNull();
+        assertThat(cacheManager.getCache(UserProfileCache.EMAIL_INDEX).get("1@example.com")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should serve a hit near expiry while reloading it in the background")
+    void testGetById_RefreshAhead() throws Exception {
+        // Given - every hit is inside the refresh-ahead window
+        cachePolicies.setRefreshAhead(1.0);
+        userProfileCache.getById(1L, loader(1L, "old@example.com"));
+
+        // When
+        UserDto result = userProfileCache.getById(1L, loader(1L, "new@example.com"));
+
+        // Then
+        assertThat(result.getEmail()).isEqualTo("old@example.com");
+        for (int i = 0; i < 200 && loads.get() < 2; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private static UserDto profile(Long id, String email, LocalDateTime updatedAt, Long addressRevision) {
+        return UserDto.builder().id(id).email(email).updatedAt(updatedAt).addressRevision(addressRevision).build();
+    }
+
+    private Supplier<UserDto> loader(Long id, String email) {
+        return () -> {
+            loads.incrementAndGet();
+            return UserDto.builder().id(id).email(email).build();
+        };
+    }
+}
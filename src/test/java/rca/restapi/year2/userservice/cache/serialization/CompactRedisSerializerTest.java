@@ -0,0 +1,254 @@
+package rca.restapi.year2.userservice.cache.serialization;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import rca.restapi.year2.userservice.config.RedisConfig;
+import rca.restapi.year2.userservice.dto.AddressDto;
+import rca.restapi.year2.userservice.dto.UserAddressesDto;
+import rca.restapi.year2.userservice.dto.UserDto;
+import rca.restapi.year2.userservice.model.DeviceSession;
+import rca.restapi.year2.userservice.types.Role;
+import rca.restapi.year2.userservice.types.UserStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("CompactRedisSerializer Unit Tests")
+class CompactRedisSerializerTest {
+
+    private GenericJackson2JsonRedisSerializer json;
+    private CompactRedisSerializer serializer;
+
+    @BeforeEach
+    void setUp() {
+        json = new GenericJackson2JsonRedisSerializer(RedisConfig.createRedisObjectMapper());
+        serializer = new CompactRedisSerializer(List.of(new UserDtoCodec(), new UserAddressesDtoCodec()), json, 1024);
+    }
+
+    @Test
+    @DisplayName("Should round-trip a full profile")
+    void testRoundTrip_UserDto() {
+        // Given
+        UserDto user = buildUser(2);
+
+        // When
+        byte[] bytes = serializer.serialize(user);
+        Object result = serializer.deserialize(bytes);
+
+        // Then
+        assertThat(bytes[0]).isEqualTo(CompactRedisSerializer.FORMAT_VERSION);
+        assertThat(bytes[1]).isEqualTo(UserDtoCodec.TAG);
+        assertThat(result).isEqualTo(user);
+    }
+
+    @Test
+    @DisplayName("Should keep null fields and a null address list")
+    void testRoundTrip_Nulls() {
+        // Given
+        UserDto user = UserDto.builder().id(7L).email("sparse@example.com").build();
+
+        // When
+        Object result = serializer.deserialize(serializer.serialize(user));
+
+        // Then
+        assertThat(result).isEqualTo(user);
+        assertThat(((UserDto) result).getAddresses()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should round-trip a cached address list with its default")
+    void testRoundTrip_UserAddressesDto() {
+        // Given
+        List<AddressDto> addresses = buildUser(3).getAddresses();
+        UserAddressesDto value = UserAddressesDto.builder()
+                .userId(1L)
+                .revision(5L)
+                .addresses(addresses)
+                .defaultAddress(addresses.get(0))
+                .build();
+
+        // When
+        byte[] bytes = serializer.serialize(value);
+
+        // Then
+        assertThat(bytes[1]).isEqualTo(UserAddressesDtoCodec.TAG);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(value);
+        UserAddressesDto empty = UserAddressesDto.builder().userId(2L).revision(0L).addresses(List.of()).build();
+        assertThat(serializer.deserialize(serializer.serialize(empty))).isEqualTo(empty);
+    }
+
+    @Test
+    @DisplayName("Should be much smaller than typed JSON")
+    void testSize_SmallerThanJson() {
+        // Given
+        UserDto user = buildUser(2);
+
+        // When
+        int compact = serializer.serialize(user).length;
+        int typedJson = json.serialize(user).length;
+
+        // Then
+        assertThat(compact).isLessThan(typedJson / 2);
+    }
+
+    @Test
+    @DisplayName("Should LZ4 compress payloads above the threshold")
+    void testCompression_AboveThreshold() {
+        // Given
+        UserDto user = buildUser(40);
+
+        // When
+        byte[] bytes = serializer.serialize(user);
+
+        // Then
+        assertThat(bytes[2] & CompactRedisSerializer.FLAG_LZ4).isNotZero();
+        assertThat(serializer.deserialize(bytes)).isEqualTo(user);
+    }
+
+    @Test
+    @DisplayName("Should not compress when disabled")
+    void testCompression_Disabled() {
+        // Given
+        CompactRedisSerializer uncompressed = new CompactRedisSerializer(List.of(new UserDtoCodec()), json, 0);
+
+        // When
+        byte[] bytes = uncompressed.serialize(buildUser(40));
+
+        // Then
+        assertThat(bytes[2]).isZero();
+    }
+
+    @Test
+    @DisplayName("Should fall back to JSON for types without a codec")
+    void testFallback_UnknownType() {
+        // Given
+        DeviceSession session = DeviceSession.builder().deviceId("laptop").deviceName("MacBook").build();
+
+        // When
+        byte[] bytes = serializer.serialize(session);
+
+        // Then
+        assertThat((char) bytes[0]).isEqualTo('{');
+        assertThat(serializer.deserialize(bytes)).isEqualTo(session);
+        assertThat(serializer.deserialize(serializer.serialize(42L))).isEqualTo(42);
+    }
+
+    @Test
+    @DisplayName("Should read session records indexed with their refresh token before it was dropped")
+    void testDeserialize_LegacyDeviceSession() {
+        // Given
+        byte[] legacy = ("{\"@class\":\"" + DeviceSession.class.getName() + "\",\"deviceId\":\"laptop\","
+                + "\"deviceName\":\"MacBook\",\"refreshToken\":\"token\"}").getBytes(StandardCharsets.UTF_8);
+
+        // When
+        Object result = serializer.deserialize(legacy);
+
+        // Then
+        assertThat(result).isEqualTo(DeviceSession.builder().deviceId("laptop").deviceName("MacBook").build());
+    }
+
+    @Test
+    @DisplayName("Should read profiles cached as JSON before the switch")
+    void testDeserialize_LegacyJson() {
+        // Given - the JSON date format has no fractional seconds
+        UserDto user = buildUser(1);
+        user.setLastLoginAt(user.getLastLoginAt().withNano(0));
+
+        // When
+        Object result = serializer.deserialize(json.serialize(user));
+
+        // Then
+        assertThat(result).isEqualTo(user);
+    }
+
+    @Test
+    @DisplayName("Should treat an unknown format version as a cache miss")
+    void testDeserialize_UnknownVersion() {
+        // Given
+        byte[] bytes = serializer.serialize(buildUser(1));
+        bytes[0] = CompactRedisSerializer.FORMAT_VERSION + 1;
+
+        // When/Then
+        assertThat(serializer.deserialize(bytes)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject a truncated compressed value as unreadable")
+    void testDeserialize_TruncatedCompressed() {
+        // Given
+        byte[] bytes = serializer.serialize(buildUser(40));
+        assertThat(bytes[2] & CompactRedisSerializer.FLAG_LZ4).isNotZero();
+
+        // When/Then
+        assertThatThrownBy(() -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length / 2)))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(Arrays.copyOf(bytes, CompactRedisSerializer.HEADER_LENGTH + 2)))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject a compressed value whose raw length header is out of range")
+    void testDeserialize_InvalidRawLength() {
+        // Given
+        byte[] bytes = serializer.serialize(buildUser(40));
+
+        // When/Then
+        ByteBuffer.wrap(bytes, CompactRedisSerializer.HEADER_LENGTH, Integer.BYTES).putInt(-1);
+        assertThatThrownBy(() -> serializer.deserialize(bytes)).isInstanceOf(SerializationException.class);
+        ByteBuffer.wrap(bytes, CompactRedisSerializer.HEADER_LENGTH, Integer.BYTES).putInt(Integer.MAX_VALUE);
+        assertThatThrownBy(() -> serializer.deserialize(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject a corrupt compressed block as unreadable")
+    void testDeserialize_CorruptCompressed() {
+        // Given
+        byte[] bytes = serializer.serialize(buildUser(40));
+        Arrays.fill(bytes, CompactRedisSerializer.HEADER_LENGTH + Integer.BYTES, bytes.length, (byte) 0xFF);
+
+        // When/Then
+        assertThatThrownBy(() -> serializer.deserialize(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+    private static UserDto buildUser(int addressCount) {
+        List<AddressDto> addresses = new ArrayList<>();
+        for (int i = 0; i < addressCount; i++) {
+            addresses.add(AddressDto.builder()
+                    .id((long) i + 1)
+                    .label("Home " + i)
+                    .streetAddress(i + " Main St")
+                    .city("New York")
+                    .state("NY")
+                    .postalCode("10001")
+                    .country("USA")
+                    .isDefault(i == 0)
+                    .build());
+        }
+        return UserDto.builder()
+                .id(1L)
+                .username("testuser")
+                .email("test@example.com")
+                .firstName("Test")
+                .lastName("User")
+                .phone("+1234567890")
+                .role(Role.USER)
+                .status(UserStatus.ACTIVE)
+                .emailVerified(true)
+                .createdAt(LocalDateTime.of(2025, 11, 12, 10, 30, 0))
+                .updatedAt(LocalDateTime.of(2026, 10, 1, 9, 0, 0))
+                .addressRevision(3L)
+                .lastLoginAt(LocalDateTime.of(2026, 10, 19, 8, 15, 42, 123_000_000))
+                .addresses(addresses)
+                .build();
+    }
+}
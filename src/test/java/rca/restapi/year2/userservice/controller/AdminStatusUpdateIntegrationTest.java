@@ -0,0 +1,172 @@
+package rca.restapi.year2.userservice.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import rca.restapi.year2.userservice.model.Address;
+import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.types.UserStatus;
+import rca.restapi.year2.userservice.util.TestDataBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Admin status and role changes run as one statement outside Hibernate, so they must neither load
+ * entities nor leave a stale profile in the cache: the single updates write the returned profile
+ * through, the bulk update evicts what it changed.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(roles = "ADMIN")
+@DisplayName("Admin status updates")
+class AdminStatusUpdateIntegrationTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        private Statistics statistics;
+
+        @BeforeEach
+        void setUp() {
+                statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        }
+
+        @AfterEach
+        void tearDown() {
+                userRepository.deleteAll();
+        }
+
+        @Test
+        @DisplayName("Should update the status without loading the user and return it with its addresses")
+        void testUpdateUserStatus_SingleStatement() throws Exception {
+                User user = seedUser("single", UserStatus.ACTIVE);
+                LocalDateTime before = updatedAt(user.getId());
+                mockMvc.perform(get("/admin/users/" + user.getId())).andExpect(status().isOk());
+                statistics.clear();
+
+                mockMvc.perform(put("/admin/users/" + user.getId() + "/status")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"status\":\"SUSPENDED\"}"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.status").value("SUSPENDED"))
+                                .andExpect(jsonPath("$.addresses.length()").value(2))
+                                .andExpect(jsonPath("$.addresses[0].city").isNotEmpty());
+
+                assertThat(statistics.getPrepareStatementCount()).isZero();
+                assertThat(updatedAt(user.getId())).isAfter(before);
+                mockMvc.perform(get("/admin/users/" + user.getId()))
+                                .andExpect(jsonPath("$.status").value("SUSPENDED"));
+        }
+
+        @Test
+        @DisplayName("Should update the role and serve it from the cache afterwards")
+        void testUpdateUserRole_WritesThrough() throws Exception {
+                User user = seedUser("promoted", UserStatus.ACTIVE);
+                mockMvc.perform(get("/admin/users/" + user.getId())).andExpect(status().isOk());
+
+                mockMvc.perform(put("/admin/users/" + user.getId() + "/role")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"role\":\"ADMIN\"}"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.role").value("ADMIN"));
+
+                mockMvc.perform(get("/admin/users/" + user.getId()))
+                                .andExpect(jsonPath("$.role").value("ADMIN"));
+        }
+
+        @Test
+        @DisplayName("Should return not found when updating the status of a missing user")
+        void testUpdateUserStatus_NotFound() throws Exception {
+                mockMvc.perform(put("/admin/users/999999/status")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"status\":\"SUSPENDED\"}"))
+                                .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("Should update many users at once and evict their cached profiles")
+        void testUpdateUsersStatus_Bulk() throws Exception {
+                User first = seedUser("bulk1", UserStatus.ACTIVE);
+                User second = seedUser("bulk2", UserStatus.ACTIVE);
+                User already = seedUser("bulk3", UserStatus.SUSPENDED);
+                mockMvc.perform(get("/admin/users/" + first.getId())).andExpect(status().isOk());
+                LocalDateTime untouched = updatedAt(already.getId());
+                statistics.clear();
+
+                mockMvc.perform(put("/admin/users/status")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"userIds\":[%d,%d,%d,999999],\"status\":\"SUSPENDED\"}"
+                                                        .formatted(first.getId(), second.getId(), already.getId())))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.requested").value(4))
+                                .andExpect(jsonPath("$.updated").value(2));
+
+                assertThat(statistics.getPrepareStatementCount()).isZero();
+                assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE status = 'SUSPENDED'",
+                                Long.class)).isEqualTo(3);
+                assertThat(updatedAt(already.getId())).isEqualTo(untouched);
+                mockMvc.perform(get("/admin/users/" + first.getId()))
+                                .andExpect(jsonPath("$.status").value("SUSPENDED"));
+        }
+
+        @Test
+        @DisplayName("Should reject a bulk status update without ids")
+        void testUpdateUsersStatus_NoIds() throws Exception {
+                mockMvc.perform(put("/admin/users/status")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"userIds\":[],\"status\":\"SUSPENDED\"}"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        private LocalDateTime updatedAt(Long id) {
+                Timestamp updatedAt = jdbcTemplate.queryForObject("SELECT updated_at FROM users WHERE id = ?",
+                                Timestamp.class, id);
+                return updatedAt == null ? LocalDateTime.MIN : updatedAt.toLocalDateTime();
+        }
+
+        private User seedUser(String username, UserStatus userStatus) {
+                User user = TestDataBuilder.buildUser();
+                user.setId(null);
+                user.setCreatedAt(null);
+                user.setUsername(username);
+                user.setEmail(username + "@example.com");
+                user.setStatus(userStatus);
+                for (int a = 0; a < 2; a++) {
+                        Address address = TestDataBuilder.buildAddress();
+                        address.setId(null);
+                        address.setIsDefault(a == 0);
+                        user.addAddress(address);
+                }
+                return userRepository.save(user);
+        }
+}
@@ -0,0 +1,438 @@
+package rca.restapi.year2.userservice.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import rca.restapi.year2.userservice.model.Address;
+import rca.restapi.year2.userservice.model.RefreshToken;
+import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.repository.RefreshTokenRepository;
+import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.service.EmailService;
+import rca.restapi.year2.userservice.util.TestDataBuilder;
+import rca.restapi.year2.userservice.util.querycount.MaxQueries;
+import rca.restapi.year2.userservice.util.querycount.QueryCounted;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets for every endpoint, reads called once with cold caches (the worst case) and once
+ * warm. Raising a budget should come with a reason; see target/query-count-report.txt for the counts.
+ * Only {@code GET /auth/verify-email} is left out, as nothing hands its token to a test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@QueryCounted
+@DisplayName("Endpoint statement budgets")
+class EndpointQueryBudgetIntegrationTest {
+
+        private static final String EMAIL = "budget@example.com";
+        private static final String PASSWORD = "password123";
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private RefreshTokenRepository refreshTokenRepository;
+
+        @Autowired
+        private PasswordEncoder passwordEncoder;
+
+        @Autowired
+        private EmailService emailService;
+
+        @Autowired
+        private CacheManager cacheManager;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        private User user;
+
+        @BeforeEach
+        void setUp() {
+                user = TestDataBuilder.buildUser();
+                user.setId(null);
+                user.setCreatedAt(null);
+                user.setUsername("budget");
+                user.setEmail(EMAIL);
+                user.setPassword(passwordEncoder.encode(PASSWORD));
+                for (int a = 0; a < 2; a++) {
+                        Address address = TestDataBuilder.buildAddress();
+                        address.setId(null);
+                        address.setIsDefault(a == 0);
+                        user.addAddress(address);
+                }
+                user = userRepository.save(user);
+                cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+                entityManagerFactory.getCache().evictAll();
+        }
+
+        @AfterEach
+        void tearDown() {
+                userRepository.deleteAll();
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should read the current user's profile within budget")
+        @MaxQueries(1)
+        void testGetCurrentUser() throws Exception {
+                twice(get("/users/me"));
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should list the current user's addresses within budget")
+        @MaxQueries(1)
+        void testGetAddresses() throws Exception {
+                twice(get("/users/me/addresses"));
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should read one address within budget")
+        @MaxQueries(1)
+        void testGetAddressById() throws Exception {
+                twice(get("/users/me/addresses/" + user.getAddresses().iterator().next().getId()));
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should read the default address within budget")
+        @MaxQueries(1)
+        void testGetDefaultAddress() throws Exception {
+                twice(get("/users/me/addresses/default"));
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should create an address within budget")
+        @MaxQueries(4)
+        void testCreateAddress() throws Exception {
+                mockMvc.perform(post("/users/me/addresses")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("""
+                                                {"label":"Office","streetAddress":"1 Main St","city":"Kigali",
+                                                 "country":"Rwanda","isDefault":false}"""))
+                                .andExpect(status().isCreated());
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should read a user as admin within budget")
+        @MaxQueries(1)
+        void testAdminGetUser() throws Exception {
+                twice(get("/admin/users/" + user.getId()));
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should page users as admin within budget")
+        @MaxQueries(2)
+        void testAdminGetUsers() throws Exception {
+                twice(get("/admin/users"));
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should list users by status within budget")
+        @MaxQueries(1)
+        void testAdminGetUsersByStatus() throws Exception {
+                twice(get("/admin/users/status/ACTIVE"));
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should update a user's status within budget")
+        @MaxQueries(1)
+        void testAdminUpdateStatus() throws Exception {
+                mockMvc.perform(put("/admin/users/" + user.getId() + "/status")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"status\":\"SUSPENDED\"}"))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should update many users' status within budget")
+        @MaxQueries(1)
+        void testAdminUpdateStatuses() throws Exception {
+                mockMvc.perform(put("/admin/users/status")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"userIds\":[%d],\"status\":\"SUSPENDED\"}".formatted(user.getId())))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("Should register within budget")
+        // Two existence checks, the insert, the authority lookup, the token, clearing the device's
+        // earlier ones and the session cap
+        @MaxQueries(7)
+        void testRegister() throws Exception {
+                mockMvc.perform(post("/auth/register")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("""
+                                                {"username":"newcomer","email":"newcomer@example.com",
+                                                 "password":"password123"}"""))
+                                .andExpect(status().isCreated());
+        }
+
+        @Test
+        @DisplayName("Should log in within budget")
+        // Locked read, the attempts reset, the authority lookup (twice: authentication and token), the
+        // token, replacing the device's previous one and the session cap
+        @MaxQueries(7)
+        void testLogin() throws Exception {
+                for (String device : List.of("laptop", "laptop", "phone")) {
+                        mockMvc.perform(post("/auth/login")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content("""
+                                                        {"email":"%s","password":"%s","deviceId":"%s"}"""
+                                                                .formatted(EMAIL, PASSWORD, device)))
+                                        .andExpect(status().isOk());
+                }
+        }
+
+        @Test
+        @DisplayName("Should refresh an access token within budget")
+        @MaxQueries(1)
+        void testRefresh() throws Exception {
+                saveRefreshToken("laptop", "budget-refresh-token");
+
+                mockMvc.perform(post("/auth/refresh")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"refreshToken\":\"budget-refresh-token\"}"))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should log out of one device and of all within budget")
+        @MaxQueries(2)
+        void testLogout() throws Exception {
+                saveRefreshToken("laptop", "laptop-token");
+                saveRefreshToken("phone", "phone-token");
+
+                mockMvc.perform(post("/auth/logout").param("deviceId", "laptop")).andExpect(status().isOk());
+                mockMvc.perform(post("/auth/logout")).andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should validate a token without statements")
+        @MaxQueries(0)
+        void testValidate() throws Exception {
+                mockMvc.perform(get("/auth/validate")).andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("Should request and complete a password reset within budget")
+        @MaxQueries(value = 1, endpoint = "POST /auth/forgot-password")
+        @MaxQueries(value = 2, endpoint = "POST /auth/reset-password")
+        void testPasswordReset() throws Exception {
+                mockMvc.perform(post("/auth/forgot-password")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"email\":\"%s\"}".formatted(EMAIL)))
+                                .andExpect(status().isOk());
+                String token = emailService.sendPasswordResetEmail(EMAIL, user.getUsername());
+
+                mockMvc.perform(post("/auth/reset-password")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("""
+                                                {"token":"%s","newPassword":"changed-password"}""".formatted(token)))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("Should resend the verification email within budget")
+        @MaxQueries(1)
+        void testResendVerification() throws Exception {
+                mockMvc.perform(post("/auth/resend-verification")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"email\":\"%s\"}".formatted(EMAIL)))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should update the current user's profile within budget")
+        // Locked read, the update and the write-through read of the addresses
+        @MaxQueries(3)
+        void testUpdateProfile() throws Exception {
+                mockMvc.perform(put("/users/me")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"firstName\":\"Budget\"}"))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should change the current user's password within budget")
+        @MaxQueries(2)
+        void testChangePassword() throws Exception {
+                mockMvc.perform(put("/users/me/password")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("""
+                                                {"currentPassword":"%s","newPassword":"changed-password"}"""
+                                                        .formatted(PASSWORD)))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should delete the current user's account within budget")
+        // The user, its addresses and tokens to cascade, their deletes and the user's
+        @MaxQueries(7)
+        void testDeleteAccount() throws Exception {
+                saveRefreshToken("laptop", "laptop-token");
+
+                mockMvc.perform(delete("/users/me")).andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should read a user by id within budget")
+        @MaxQueries(1)
+        void testGetUserById() throws Exception {
+                twice(get("/users/" + user.getId()));
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should update an address within budget")
+        // User, address and the other addresses to clear their default, that update, the address's own
+        // and the revision bump
+        @MaxQueries(6)
+        void testUpdateAddress() throws Exception {
+                mockMvc.perform(put("/users/me/addresses/" + addressId(false))
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("""
+                                                {"label":"Office","streetAddress":"2 Main St","city":"Kigali",
+                                                 "country":"Rwanda","isDefault":true}"""))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should set the default address within budget")
+        @MaxQueries(6)
+        void testSetDefaultAddress() throws Exception {
+                mockMvc.perform(put("/users/me/addresses/" + addressId(false) + "/default"))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should delete an address within budget")
+        @MaxQueries(4)
+        void testDeleteAddress() throws Exception {
+                mockMvc.perform(delete("/users/me/addresses/" + addressId(false)))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(username = EMAIL)
+        @DisplayName("Should list, revoke one and revoke all sessions within budget")
+        @MaxQueries(value = 2, endpoint = "GET /users/me/sessions")
+        @MaxQueries(value = 1, endpoint = "DELETE /users/me/sessions/{deviceId}")
+        @MaxQueries(value = 1, endpoint = "DELETE /users/me/sessions")
+        void testSessions() throws Exception {
+                saveRefreshToken("laptop", "laptop-token");
+                saveRefreshToken("phone", "phone-token");
+
+                twice(get("/users/me/sessions"));
+                mockMvc.perform(delete("/users/me/sessions/laptop")).andExpect(status().isOk());
+                mockMvc.perform(delete("/users/me/sessions")).andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should page users by cursor as admin within budget")
+        @MaxQueries(2)
+        void testAdminGetUsersByCursor() throws Exception {
+                twice(get("/admin/users").param("cursor", "").param("limit", "1"));
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should export users as admin within budget")
+        @MaxQueries(1)
+        void testAdminExportUsers() throws Exception {
+                MvcResult started = mockMvc.perform(get("/admin/users/export"))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+                mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should update a user's role within budget")
+        @MaxQueries(1)
+        void testAdminUpdateRole() throws Exception {
+                mockMvc.perform(put("/admin/users/" + user.getId() + "/role")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("{\"role\":\"ADMIN\"}"))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should delete a user as admin within budget")
+        @MaxQueries(7)
+        void testAdminDeleteUser() throws Exception {
+                saveRefreshToken("laptop", "laptop-token");
+
+                mockMvc.perform(delete("/admin/users/" + user.getId())).andExpect(status().isOk());
+        }
+
+        // Cold, then warm: the budget holds for both
+        private void twice(RequestBuilder request) throws Exception {
+                mockMvc.perform(request).andExpect(status().isOk());
+                mockMvc.perform(request).andExpect(status().isOk());
+        }
+
+        private Long addressId(boolean isDefault) {
+                return user.getAddresses().stream()
+                                .filter(address -> address.getIsDefault() == isDefault)
+                                .findFirst()
+                                .orElseThrow()
+                                .getId();
+        }
+
+        private void saveRefreshToken(String deviceId, String token) {
+                refreshTokenRepository.save(RefreshToken.builder()
+                                .user(user)
+                                .token(token)
+                                .deviceId(deviceId)
+                                .expiresAt(LocalDateTime.now().plusDays(7))
+                                .revoked(false)
+                                .build());
+        }
+}
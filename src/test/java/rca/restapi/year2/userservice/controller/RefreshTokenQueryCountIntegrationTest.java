@@ -0,0 +1,98 @@
+package rca.restapi.year2.userservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import rca.restapi.year2.userservice.dto.requests.RefreshTokenRequest;
+import rca.restapi.year2.userservice.model.RefreshToken;
+import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.repository.RefreshTokenRepository;
+import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.util.TestDataBuilder;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Token refresh query count")
+class RefreshTokenQueryCountIntegrationTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private RefreshTokenRepository refreshTokenRepository;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        private Statistics statistics;
+
+        @BeforeEach
+        void setUp() {
+                User user = TestDataBuilder.buildUser();
+                user.setId(null);
+                user.setCreatedAt(null);
+                user = userRepository.save(user);
+
+                refreshTokenRepository.save(RefreshToken.builder()
+                                .user(user)
+                                .token("refresh-token-query-count")
+                                .expiresAt(LocalDateTime.now().plusDays(7))
+                                .revoked(false)
+                                .build());
+
+                statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+                statistics.clear();
+        }
+
+        @AfterEach
+        void tearDown() {
+                refreshTokenRepository.deleteAll();
+                userRepository.deleteAll();
+        }
+
+        @Test
+        @DisplayName("Should refresh with a single read-only statement")
+        void testRefresh_SingleStatement() throws Exception {
+                RefreshTokenRequest request = RefreshTokenRequest.builder()
+                                .refreshToken("refresh-token-query-count")
+                                .build();
+
+                mockMvc.perform(post("/auth/refresh")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.accessToken").isNotEmpty())
+                                .andExpect(jsonPath("$.user.email").value("test@example.com"))
+                                .andExpect(jsonPath("$.user.role").value("USER"));
+
+                assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+                assertThat(statistics.getEntityLoadCount()).isZero();
+                assertThat(statistics.getEntityUpdateCount()).isZero();
+                assertThat(statistics.getEntityInsertCount()).isZero();
+        }
+}
@@ -18,6 +18,9 @@ import rca.restapi.year2.userservice.dto.requests.UpdateProfileRequest;
 import rca.restapi.year2.userservice.service.UserService;
 import rca.restapi.year2.userservice.util.TestDataBuilder;
 
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
@@ -170,4 +173,47 @@ class UserControllerIntegrationTest {
                                 .andExpect(jsonPath("$.id").value(1))
                                 .andExpect(jsonPath("$.email").value("test@example.com"));
         }
+
+        @Test
+        @DisplayName("Should answer 304 without a body when the profile ETag matches")
+        @WithMockUser(username = "test@example.com")
+        void testGetCurrentUser_NotModified() throws Exception {
+                // Given
+                userDto.setUpdatedAt(LocalDateTime.of(2026, 10, 1, 9, 0, 0, 123_456_000));
+                userDto.setAddressRevision(2L);
+                when(userService.getUserByEmail("test@example.com")).thenReturn(userDto);
+                String etag = mockMvc.perform(get("/users/me"))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getHeader("ETag");
+
+                // When/Then
+                mockMvc.perform(get("/users/me").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified())
+                                .andExpect(header().string("ETag", etag))
+                                .andExpect(content().string(""));
+        }
+
+        @Test
+        @DisplayName("Should change the profile ETag when addresses or the profile change")
+        @WithMockUser(username = "test@example.com")
+        void testGetUserById_ETagFollowsVersion() throws Exception {
+                // Given
+                userDto.setUpdatedAt(LocalDateTime.of(2026, 10, 1, 9, 0));
+                userDto.setAddressRevision(2L);
+                when(userService.getUserById(1L)).thenReturn(userDto);
+                String etag = mockMvc.perform(get("/users/1"))
+                                .andReturn().getResponse().getHeader("ETag");
+
+                // When/Then
+                userDto.setAddressRevision(3L);
+                mockMvc.perform(get("/users/1").header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", not(etag)));
+
+                userDto.setAddressRevision(2L);
+                userDto.setUpdatedAt(LocalDateTime.of(2026, 10, 1, 9, 0, 1));
+                mockMvc.perform(get("/users/1").header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.id").value(1));
+        }
 }
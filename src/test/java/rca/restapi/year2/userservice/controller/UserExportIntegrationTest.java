@@ -0,0 +1,134 @@
+package rca.restapi.year2.userservice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.types.UserStatus;
+import rca.restapi.year2.userservice.util.TestDataBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(roles = "ADMIN")
+@DisplayName("User export")
+class UserExportIntegrationTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @BeforeEach
+        void setUp() {
+                saveUser("active", UserStatus.ACTIVE, true, "Plain");
+                saveUser("quoted", UserStatus.ACTIVE, false, "Smith, \"Jr\"");
+                saveUser("suspended", UserStatus.SUSPENDED, true, "Plain");
+        }
+
+        @AfterEach
+        void tearDown() {
+                userRepository.deleteAll();
+        }
+
+        @Test
+        @DisplayName("Should stream matching users as NDJSON, one object per line, without passwords")
+        void testExport_NdjsonWithStatusFilter() throws Exception {
+                // When
+                String body = export("/admin/users/export?status=ACTIVE", "application/x-ndjson");
+
+                // Then
+                List<String> lines = body.lines().toList();
+                assertThat(lines).hasSize(2);
+                JsonNode first = objectMapper.readTree(lines.get(0));
+                assertThat(first.get("email").asText()).isEqualTo("active@example.com");
+                assertThat(first.get("email_verified").asBoolean()).isTrue();
+                assertThat(first.has("password")).isFalse();
+                assertThat(objectMapper.readTree(lines.get(1)).get("first_name").asText()).isEqualTo("Smith, \"Jr\"");
+        }
+
+        @Test
+        @DisplayName("Should stream CSV with a header, quoting fields that need it")
+        void testExport_CsvWithVerifiedAndCreatedRange() throws Exception {
+                // Given
+                String from = LocalDateTime.now().minusDays(1).toString();
+                String to = LocalDateTime.now().plusDays(1).toString();
+
+                // When
+                String body = export("/admin/users/export?format=csv&verified=false&createdFrom=" + from
+                                + "&createdTo=" + to, "text/csv");
+
+                // Then
+                List<String> lines = Arrays.asList(body.split("\r\n"));
+                assertThat(lines).hasSize(2);
+                assertThat(lines.get(0)).startsWith("id,username,email,first_name");
+                assertThat(lines.get(1)).contains(",quoted,quoted@example.com,\"Smith, \"\"Jr\"\"\",");
+        }
+
+        @Test
+        @DisplayName("Should return an empty export when nothing matches")
+        void testExport_NoMatches() throws Exception {
+                // When
+                String body = export("/admin/users/export?createdTo=2000-01-01T00:00:00", "application/x-ndjson");
+
+                // Then
+                assertThat(body).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should reject an unknown format")
+        void testExport_UnknownFormat() throws Exception {
+                mockMvc.perform(get("/admin/users/export").param("format", "xml"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        private String export(String url, String contentType) throws Exception {
+                MvcResult started = mockMvc.perform(get(url))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+                return mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentTypeCompatibleWith(contentType))
+                                .andExpect(header().string("Content-Disposition", org.hamcrest.Matchers.startsWith("attachment")))
+                                .andReturn().getResponse().getContentAsString();
+        }
+
+        private void saveUser(String name, UserStatus status, boolean verified, String firstName) {
+                User user = TestDataBuilder.buildUser();
+                user.setId(null);
+                user.setCreatedAt(null);
+                user.setUsername(name);
+                user.setEmail(name + "@example.com");
+                user.setStatus(status);
+                user.setEmailVerified(verified);
+                user.setFirstName(firstName);
+                userRepository.save(user);
+        }
+}
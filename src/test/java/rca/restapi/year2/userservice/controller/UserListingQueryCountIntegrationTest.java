@@ -0,0 +1,169 @@
+package rca.restapi.year2.userservice.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import rca.restapi.year2.userservice.model.Address;
+import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.util.TestDataBuilder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The number of statements admin listings run must not grow with the number of users listed (no
+ * N+1), whether they embed every user's addresses or not. Caches are cleared before each request, so every
+ * profile is loaded from the database.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(roles = "ADMIN")
+@DisplayName("User listing query count")
+class UserListingQueryCountIntegrationTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private CacheManager cacheManager;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        private Statistics statistics;
+        private int seeded;
+
+        @BeforeEach
+        void setUp() {
+                statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        }
+
+        @AfterEach
+        void tearDown() {
+                userRepository.deleteAll();
+        }
+
+        @Test
+        @DisplayName("Should page through users with the same number of statements for 2 or 20 users")
+        void testGetAllUsers_ConstantStatements() throws Exception {
+                seedUsers(2);
+                long few = statementsFor("/admin/users?size=50", 2);
+
+                seedUsers(18);
+                long many = statementsFor("/admin/users?size=50", 20);
+
+                assertThat(many).isEqualTo(few);
+                mockMvc.perform(get("/admin/users?size=50"))
+                                .andExpect(jsonPath("$.content[0].addresses[0].city").isNotEmpty());
+        }
+
+        @Test
+        @DisplayName("Should list users by status with the same number of statements for 2 or 20 users")
+        void testGetUsersByStatus_ConstantStatements() throws Exception {
+                seedUsers(2);
+                long few = statementsFor("/admin/users/status/ACTIVE", 2);
+
+                seedUsers(18);
+                long many = statementsFor("/admin/users/status/ACTIVE", 20);
+
+                assertThat(many).isEqualTo(few);
+                assertThat(many).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should page users by status with listing columns only")
+        void testGetUsersByStatus_PagesSummaries() throws Exception {
+                seedUsers(3);
+
+                mockMvc.perform(get("/admin/users/status/ACTIVE").param("limit", "2"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.items.length()").value(2))
+                                .andExpect(jsonPath("$.items[0].username").value("listed2"))
+                                .andExpect(jsonPath("$.items[0].addresses").doesNotExist())
+                                .andExpect(jsonPath("$.items[0].password").doesNotExist())
+                                .andExpect(jsonPath("$.nextCursor").isNotEmpty());
+        }
+
+        @Test
+        @DisplayName("Should walk every user exactly once by cursor, with constant statements per page")
+        void testGetUsersByCursor_WalksAllUsers() throws Exception {
+                seedUsers(20);
+                Set<Integer> seen = new HashSet<>();
+                Set<Long> statementsPerPage = new HashSet<>();
+
+                String cursor = "";
+                int pages = 0;
+                while (cursor != null) {
+                        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+                        statistics.clear();
+                        String content = mockMvc.perform(get("/admin/users")
+                                                .param("cursor", cursor)
+                                                .param("limit", "6"))
+                                        .andExpect(status().isOk())
+                                        .andReturn().getResponse().getContentAsString();
+                        statementsPerPage.add(statistics.getPrepareStatementCount());
+                        List<Integer> ids = JsonPath.read(content, "$.items[*].id");
+                        ids.forEach(id -> assertThat(seen.add(id)).isTrue());
+                        cursor = JsonPath.read(content, "$.nextCursor");
+                        pages++;
+                }
+
+                assertThat(seen).hasSize(20);
+                assertThat(pages).isEqualTo(4);
+                assertThat(statementsPerPage).hasSize(1);
+        }
+
+        private long statementsFor(String url, int expectedUsers) throws Exception {
+                cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+                statistics.clear();
+
+                String content = mockMvc.perform(get(url))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+
+                assertThat(content.split("\"username\"", -1)).hasSize(expectedUsers + 1);
+                return statistics.getPrepareStatementCount();
+        }
+
+        // Each user gets two addresses, so a per-user collection load would show
+        private void seedUsers(int count) {
+                for (int i = 0; i < count; i++) {
+                        int n = seeded++;
+                        User user = TestDataBuilder.buildUser();
+                        user.setId(null);
+                        user.setCreatedAt(null);
+                        user.setUsername("listed" + n);
+                        user.setEmail("listed" + n + "@example.com");
+                        for (int a = 0; a < 2; a++) {
+                                Address address = TestDataBuilder.buildAddress();
+                                address.setId(null);
+                                address.setIsDefault(a == 0);
+                                user.addAddress(address);
+                        }
+                        userRepository.save(user);
+                }
+        }
+}
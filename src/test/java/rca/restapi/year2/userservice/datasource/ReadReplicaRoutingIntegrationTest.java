@@ -0,0 +1,101 @@
+package rca.restapi.year2.userservice.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.util.TestDataBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The application wired with a replica pool. Both pools point at the same in-memory database (the
+ * schema is created through the primary), so routing shows in the per-pool meters rather than in
+ * the data.
+ */
+@SpringBootTest(properties = {
+                "spring.datasource.url=jdbc:h2:mem:replica-routing;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "datasource.replica.enabled=true",
+                "datasource.replica.url=jdbc:h2:mem:replica-routing;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "datasource.replica.lag-query=SELECT 0"
+})
+@ActiveProfiles("test")
+@DisplayName("Read replica routing")
+class ReadReplicaRoutingIntegrationTest {
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private ReplicationLagMonitor replicationLagMonitor;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @BeforeEach
+        void setUp() {
+                replicationLagMonitor.check();
+        }
+
+        @AfterEach
+        void tearDown() {
+                userRepository.deleteAll();
+        }
+
+        @Test
+        @DisplayName("Should keep separate Hikari metrics for the primary and replica pools")
+        void testPools_SeparateMetrics() {
+                userRepository.count();
+
+                assertThat(meterRegistry.find("hikaricp.connections.max").tag("pool", "primary").gauge()).isNotNull();
+                assertThat(meterRegistry.find("hikaricp.connections.max").tag("pool", "replica").gauge()).isNotNull();
+        }
+
+        @Test
+        @DisplayName("Should read through the replica pool and write through the primary pool")
+        void testRepository_ReadsOnReplica() {
+                double replicaBefore = routed("replica", "read-only");
+                double primaryBefore = routed("primary", "read-write");
+
+                User user = userRepository.save(user("reader@example.com"));
+                assertThat(userRepository.findByEmail("reader@example.com")).isPresent();
+                assertThat(userRepository.findCredentialsByEmail(user.getEmail())).isPresent();
+
+                assertThat(routed("replica", "read-only") - replicaBefore).isEqualTo(2.0);
+                assertThat(routed("primary", "read-write") - primaryBefore).isGreaterThanOrEqualTo(1.0);
+        }
+
+        @Test
+        @WithMockUser(username = "writer@example.com")
+        @DisplayName("Should read the current user's own write back from the primary")
+        void testRepository_ReadYourWrites() {
+                double stickyBefore = routed("primary", "read-your-writes");
+                double replicaBefore = routed("replica", "read-only");
+
+                userRepository.save(user("writer@example.com"));
+                assertThat(userRepository.findByEmail("writer@example.com")).isPresent();
+
+                assertThat(routed("primary", "read-your-writes") - stickyBefore).isEqualTo(1.0);
+                assertThat(routed("replica", "read-only")).isEqualTo(replicaBefore);
+        }
+
+        private double routed(String pool, String reason) {
+                return meterRegistry.get("datasource.routing").tag("pool", pool).tag("reason", reason).counter().count();
+        }
+
+        private static User user(String email) {
+                User user = TestDataBuilder.buildUser();
+                user.setId(null);
+                user.setCreatedAt(null);
+                user.setUsername(email.substring(0, email.indexOf('@')));
+                user.setEmail(email);
+                return user;
+        }
+}
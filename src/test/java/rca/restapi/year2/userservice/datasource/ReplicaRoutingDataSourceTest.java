@@ -0,0 +1,177 @@
+package rca.restapi.year2.userservice.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica; each holds a row naming
+ * itself, so a query shows which one a transaction was routed to.
+ */
+@DisplayName("ReplicaRoutingDataSource Unit Tests")
+class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicationLagMonitor lagMonitor;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource primary = database("routing-primary");
+        DriverManagerDataSource replica = database("routing-replica");
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        for (JdbcTemplate database : List.of(primaryJdbc, replicaJdbc)) {
+            database.execute("DROP TABLE IF EXISTS node");
+            database.execute("CREATE TABLE node (name VARCHAR(16))");
+        }
+        primaryJdbc.update("INSERT INTO node VALUES ('primary')");
+        replicaJdbc.update("INSERT INTO node VALUES ('replica')");
+        replicaJdbc.execute("DROP TABLE IF EXISTS replication_lag");
+        replicaJdbc.execute("CREATE TABLE replication_lag (seconds DOUBLE PRECISION)");
+        replicaJdbc.update("INSERT INTO replication_lag VALUES (0)");
+
+        meterRegistry = new SimpleMeterRegistry();
+        lagMonitor = new ReplicationLagMonitor(replica, "SELECT seconds FROM replication_lag",
+                Duration.ofSeconds(2), meterRegistry);
+        lagMonitor.check();
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, lagMonitor,
+                new ReadYourWritesTracker(Duration.ofMinutes(1), 100), meterRegistry);
+        routing.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should route read-only transactions to the replica")
+    void testReadOnly_Replica() {
+        // When
+        String node = readOnly.execute(status -> node());
+
+        // Then
+        assertThat(node).isEqualTo("replica");
+        assertThat(meterRegistry.get("datasource.routing").tag("pool", "replica").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should route read-write transactions and non-transactional work to the primary")
+    void testReadWrite_Primary() {
+        // When
+        String inTransaction = readWrite.execute(status -> node());
+        String withoutTransaction = node();
+
+        // Then
+        assertThat(inTransaction).isEqualTo("primary");
+        assertThat(withoutTransaction).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should keep a user's reads on the primary after their own write commits")
+    void testReadYourWrites_StickyForWriter() {
+        // Given
+        authenticate("writer@example.com");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE node SET name = 'primary'"));
+
+        // When
+        String writerReads = readOnly.execute(status -> node());
+        authenticate("other@example.com");
+        String otherReads = readOnly.execute(status -> node());
+
+        // Then
+        assertThat(writerReads).isEqualTo("primary");
+        assertThat(otherReads).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Should not pin a user to the primary after a rolled-back write")
+    void testReadYourWrites_RollbackNotSticky() {
+        // Given
+        authenticate("writer@example.com");
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE node SET name = 'primary'");
+            status.setRollbackOnly();
+        });
+
+        // When
+        String node = readOnly.execute(status -> node());
+
+        // Then
+        assertThat(node).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Should read from the primary while the replica lags and return once it catches up")
+    void testLagGuard_FallsBackWhileLagging() {
+        // Given
+        replicaJdbc.update("UPDATE replication_lag SET seconds = 10");
+        lagMonitor.check();
+
+        // When
+        String lagging = readOnly.execute(status -> node());
+        replicaJdbc.update("UPDATE replication_lag SET seconds = 0.5");
+        lagMonitor.check();
+        String caughtUp = readOnly.execute(status -> node());
+
+        // Then
+        assertThat(lagging).isEqualTo("primary");
+        assertThat(caughtUp).isEqualTo("replica");
+        assertThat(meterRegistry.get("datasource.replica.lag").gauge().value()).isEqualTo(500.0);
+    }
+
+    @Test
+    @DisplayName("Should read from the primary when the lag check fails")
+    void testLagGuard_CheckFailure() {
+        // Given
+        replicaJdbc.execute("DROP TABLE replication_lag");
+        lagMonitor.check();
+
+        // When
+        String node = readOnly.execute(status -> node());
+
+        // Then
+        assertThat(node).isEqualTo("primary");
+        assertThat(lagMonitor.isReplicaUsable()).isFalse();
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+
+    private static DriverManagerDataSource database(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
@@ -0,0 +1,145 @@
+package rca.restapi.year2.userservice.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import rca.restapi.year2.userservice.dto.DeviceSessionDto;
+import rca.restapi.year2.userservice.exception.ResourceNotFoundException;
+import rca.restapi.year2.userservice.model.RefreshToken;
+import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.service.SessionService;
+import rca.restapi.year2.userservice.util.TestDataBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Device sessions against the refresh token table with no Redis reachable, i.e. with the session
+ * index lost: replacing a device's token, the per-user cap, listing and revoking devices must still
+ * work.
+ */
+@SpringBootTest(properties = "security.sessions.max-per-user=2")
+@ActiveProfiles("test")
+@DisplayName("Device sessions without the Redis index")
+class DeviceSessionIntegrationTest {
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = TestDataBuilder.buildUser();
+        user.setId(null);
+        user.setCreatedAt(null);
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should replace the previous token of a device that signs in again")
+    void testOpenSession_ReplacesDeviceToken() {
+        // Given
+        signIn("laptop", "old-token", 1);
+
+        // When
+        signIn("laptop", "new-token", 2);
+
+        // Then
+        assertThat(tokens()).containsExactly("new-token");
+    }
+
+    @Test
+    @DisplayName("Should evict the device signed in longest ago once over the cap")
+    void testOpenSession_EnforcesCap() {
+        // Given
+        signIn("laptop", "laptop-token", 1);
+        signIn("phone", "phone-token", 2);
+
+        // When
+        signIn("tablet", "tablet-token", 3);
+
+        // Then
+        assertThat(tokens()).containsExactlyInAnyOrder("phone-token", "tablet-token");
+    }
+
+    @Test
+    @DisplayName("Should revoke a single device")
+    void testRevokeSession() {
+        // Given
+        signIn("laptop", "laptop-token", 1);
+        signIn("phone", "phone-token", 2);
+
+        // When
+        sessionService.revokeSession(user.getEmail(), "laptop");
+
+        // Then
+        assertThat(tokens()).containsExactly("phone-token");
+        assertThatThrownBy(() -> sessionService.revokeSession(user.getEmail(), "laptop"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Should list the devices signed in, most recent first")
+    void testGetSessions() {
+        // Given
+        signIn("laptop", "laptop-token", 1);
+        signIn("phone", "phone-token", 2);
+
+        // When/Then
+        assertThat(sessionService.getSessions(user.getEmail()))
+                .extracting(DeviceSessionDto::getDeviceId)
+                .containsExactly("phone", "laptop");
+    }
+
+    // Saves the token the way login does, sign-ins ordered by order, then opens the session
+    private void signIn(String deviceId, String token, int order) {
+        RefreshToken saved = transactionTemplate.execute(status -> {
+            RefreshToken refreshToken = refreshTokenRepository.save(RefreshToken.builder()
+                    .user(user)
+                    .token(token)
+                    .deviceId(deviceId)
+                    .expiresAt(LocalDateTime.now().plusDays(7))
+                    .revoked(false)
+                    .build());
+            refreshTokenRepository.deleteOtherDeviceTokens(user.getId(), deviceId, token);
+            return refreshToken;
+        });
+        jdbcTemplate.update("UPDATE refresh_tokens SET created_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1).plusMinutes(order)), saved.getId());
+        sessionService.openSession(user.getId(), deviceId, null);
+    }
+
+    private List<String> tokens() {
+        return jdbcTemplate.queryForList("SELECT token FROM refresh_tokens WHERE user_id = ?", String.class,
+                user.getId());
+    }
+}
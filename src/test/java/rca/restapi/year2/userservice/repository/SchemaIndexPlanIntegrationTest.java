@@ -0,0 +1,167 @@
+package rca.restapi.year2.userservice.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the Flyway migrations against a real Postgres and checks that the hot-path queries are
+ * planned on the indexes meant for them. H2 cannot run partial or covering indexes, so this needs
+ * Docker and is skipped without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Schema index plans")
+class SchemaIndexPlanIntegrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .load()
+                .migrate();
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            // 1% suspended, 2% unverified: the shapes the admin listing and the purge look for
+            statement.execute("""
+                    INSERT INTO users (username, email, password, role, status, email_verified, created_at)
+                    SELECT 'user' || i, 'user' || i || '@example.com', 'hash', 'USER',
+                           CASE WHEN i % 100 = 0 THEN 'SUSPENDED' ELSE 'ACTIVE' END,
+                           i % 50 <> 0, now() - i * interval '1 hour'
+                    FROM generate_series(1, 20000) i""");
+            statement.execute("""
+                    INSERT INTO addresses (user_id, street_address, city, country, is_default, created_at)
+                    SELECT u.id, n || ' Main St', 'Kigali', 'Rwanda', n = 1, now()
+                    FROM users u CROSS JOIN generate_series(1, 2) n""");
+            statement.execute("VACUUM ANALYZE users");
+            statement.execute("VACUUM ANALYZE addresses");
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer credential lookups from the login index alone")
+    void testLoginLookup_IndexOnlyScan() throws SQLException {
+        // When
+        String plan = explain("SELECT email, password, role FROM users WHERE email = 'user42@example.com'");
+
+        // Then
+        assertThat(plan).contains("Index Only Scan using idx_users_login");
+    }
+
+    @Test
+    @DisplayName("Should find a user's addresses through the user_id index")
+    void testAddressesByUser_UsesIndex() throws SQLException {
+        // When
+        String plan = explain("SELECT * FROM addresses WHERE user_id = 42");
+
+        // Then
+        assertThat(plan).contains("idx_addresses_user_id");
+    }
+
+    @Test
+    @DisplayName("Should find the default address without a sequential scan")
+    void testDefaultAddress_UsesIndex() throws SQLException {
+        // When
+        String plan = explain("SELECT * FROM addresses WHERE user_id = 42 AND is_default = true");
+
+        // Then
+        assertThat(plan).containsAnyOf("uq_addresses_user_default", "idx_addresses_user_id");
+        assertThat(plan).doesNotContain("Seq Scan");
+    }
+
+    @Test
+    @DisplayName("Should page users by status on the status index, newest first, without sorting")
+    void testUsersByStatus_UsesIndex() throws SQLException {
+        // When
+        String plan = explain("""
+                SELECT id, username, email, first_name, last_name, role, status, email_verified, created_at
+                FROM users WHERE status = 'ACTIVE'
+                ORDER BY created_at DESC, id DESC LIMIT 21""");
+
+        // Then
+        assertThat(plan).contains("idx_users_status_created_at_id");
+        assertThat(plan).doesNotContain("Sort");
+    }
+
+    @Test
+    @DisplayName("Should find purge candidates through the partial unverified index")
+    void testUnverifiedPurge_UsesPartialIndex() throws SQLException {
+        // When
+        String plan = explain(
+                "SELECT * FROM users WHERE email_verified = false AND created_at < now() - interval '30 days'");
+
+        // Then
+        assertThat(plan).contains("idx_users_unverified_created_at");
+    }
+
+    @Test
+    @DisplayName("Should seek deep keyset pages on the (created_at, id) index without sorting")
+    void testKeysetPage_SeeksOnIndex() throws SQLException {
+        // When - a cursor 15,000 users deep
+        String plan = explain("""
+                SELECT id, created_at FROM users
+                WHERE created_at <= now() - interval '15000 hours'
+                  AND (created_at < now() - interval '15000 hours' OR id < 15000)
+                ORDER BY created_at DESC, id DESC LIMIT 51""");
+
+        // Then
+        assertThat(plan).contains("idx_users_created_at_id");
+        assertThat(plan).doesNotContain("Sort");
+    }
+
+    @Test
+    @DisplayName("Should reject a second default address for the same user")
+    void testSecondDefaultAddress_Rejected() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            // When/Then
+            assertThatThrownBy(() -> statement.execute("""
+                    INSERT INTO addresses (user_id, street_address, city, country, is_default, created_at)
+                    SELECT id, '3 Main St', 'Kigali', 'Rwanda', true, now() FROM users WHERE username = 'user7'"""))
+                    .isInstanceOf(SQLException.class)
+                    .hasMessageContaining("uq_addresses_user_default");
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject an email that is not stored lower-cased")
+    void testMixedCaseEmail_Rejected() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            // When/Then
+            assertThatThrownBy(() -> statement.execute("""
+                    INSERT INTO users (username, email, password, role, status, email_verified, created_at)
+                    VALUES ('mixedcase', 'Mixed@Example.com', 'hash', 'USER', 'ACTIVE', true, now())"""))
+                    .isInstanceOf(SQLException.class)
+                    .hasMessageContaining("ck_users_email_normalized");
+        }
+    }
+
+    private static String explain(String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Connection connection = connect();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+            while (rows.next()) {
+                plan.append(rows.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+}
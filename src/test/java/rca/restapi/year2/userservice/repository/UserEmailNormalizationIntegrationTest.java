@@ -0,0 +1,88 @@
+package rca.restapi.year2.userservice.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.util.TestDataBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("User email normalization")
+class UserEmailNormalizationIntegrationTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should store emails trimmed and lower-cased")
+    void testSave_NormalizesEmail() {
+        // When
+        User saved = userRepository.save(user("mixed", " Mixed.Case@Example.COM "));
+
+        // Then
+        assertThat(saved.getEmail()).isEqualTo("mixed.case@example.com");
+        assertThat(jdbcTemplate.queryForObject("SELECT email FROM users WHERE id = ?", String.class, saved.getId()))
+                .isEqualTo("mixed.case@example.com");
+    }
+
+    @Test
+    @DisplayName("Should find a user by email whatever the case it is given in")
+    void testLookups_IgnoreCase() {
+        // Given
+        userRepository.save(user("mixed", "mixed.case@example.com"));
+
+        // When/Then
+        assertThat(userRepository.findByEmail("Mixed.Case@Example.com")).isPresent();
+        assertThat(userRepository.findCredentialsByEmail("MIXED.CASE@EXAMPLE.COM")).isPresent();
+        assertThat(userRepository.findWithAddressesByEmail(" mixed.case@EXAMPLE.com")).isPresent();
+        assertThat(userRepository.existsByEmail("Mixed.Case@example.com")).isTrue();
+        assertThat(userRepository.existsByEmail("other@example.com")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reject a second account whose email differs only in case")
+    void testSave_DuplicateInOtherCaseRejected() {
+        // Given
+        userRepository.save(user("first", "taken@example.com"));
+
+        // When/Then
+        assertThatThrownBy(() -> userRepository.saveAndFlush(user("second", "Taken@Example.com")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject a mixed-case email written around the entity")
+    void testInsert_MixedCaseRejectedByCheck() {
+        // When/Then
+        assertThatThrownBy(() -> jdbcTemplate.update("""
+                INSERT INTO users (username, email, password, role, status, email_verified, address_revision, created_at)
+                VALUES ('raw', 'Raw@Example.com', 'hash', 'USER', 'ACTIVE', true, 0, CURRENT_TIMESTAMP)"""))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private static User user(String username, String email) {
+        User user = TestDataBuilder.buildUser();
+        user.setId(null);
+        user.setCreatedAt(null);
+        user.setUsername(username);
+        user.setEmail(email);
+        return user;
+    }
+}
@@ -0,0 +1,195 @@
+package rca.restapi.year2.userservice.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import rca.restapi.year2.userservice.dto.requests.CreateAddressRequest;
+import rca.restapi.year2.userservice.dto.requests.UpdateProfileRequest;
+import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.service.AddressService;
+import rca.restapi.year2.userservice.service.UserService;
+import rca.restapi.year2.userservice.types.Role;
+import rca.restapi.year2.userservice.types.UserStatus;
+import rca.restapi.year2.userservice.util.TestDataBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("User second-level cache")
+class UserSecondLevelCacheIntegrationTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserColumnUpdates userColumnUpdates;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should resolve a user by email without SQL once cached")
+    void testFindByEmail_HitSkipsSql() {
+        // Given
+        userRepository.save(user("cached"));
+        entityManagerFactory.getCache().evictAll();
+        assertThat(userRepository.findByEmail("cached@example.com")).isPresent();
+        statistics.clear();
+
+        // When
+        User found = userRepository.findByEmail("Cached@Example.com").orElseThrow();
+
+        // Then
+        assertThat(found.getUsername()).isEqualTo("cached");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should serve the new state after an update through the entity")
+    void testFindByEmail_AfterEntityUpdate() {
+        // Given
+        User user = userRepository.save(user("renamed"));
+        userRepository.findByEmail("renamed@example.com").orElseThrow();
+
+        // When
+        user.setFirstName("Changed");
+        userRepository.save(user);
+
+        // Then
+        assertThat(userRepository.findByEmail("renamed@example.com").orElseThrow().getFirstName())
+                .isEqualTo("Changed");
+    }
+
+    @Test
+    @DisplayName("Should not find a deleted user by email")
+    void testFindByEmail_AfterDelete() {
+        // Given
+        User user = userRepository.save(user("deleted"));
+        userRepository.findByEmail("deleted@example.com").orElseThrow();
+
+        // When
+        userRepository.delete(user);
+
+        // Then
+        assertThat(userRepository.findByEmail("deleted@example.com")).isEmpty();
+        assertThat(userRepository.findById(user.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should serve the new status after an admin update that bypasses Hibernate")
+    void testFindByEmail_AfterStatementUpdate() {
+        // Given
+        User user = userRepository.save(user("suspended"));
+        userRepository.findByEmail("suspended@example.com").orElseThrow();
+
+        // When
+        userService.updateUserStatus(user.getId(), UserStatus.SUSPENDED);
+
+        // Then
+        assertThat(userRepository.findByEmail("suspended@example.com").orElseThrow().getStatus())
+                .isEqualTo(UserStatus.SUSPENDED);
+    }
+
+    @Test
+    @DisplayName("Should serve the new address revision after a bulk increment")
+    void testFindByEmail_AfterAddressRevisionIncrement() {
+        // Given
+        User user = userRepository.save(user("revised"));
+        long revision = userRepository.findByEmail("revised@example.com").orElseThrow().getAddressRevision();
+
+        // When
+        userColumnUpdates.incrementAddressRevision(user.getId());
+
+        // Then
+        assertThat(userRepository.findByEmail("revised@example.com").orElseThrow().getAddressRevision())
+                .isEqualTo(revision + 1);
+    }
+
+    @Test
+    @DisplayName("Should keep other users cached across an address write")
+    void testAddressWrite_EvictsOnlyThatUser() {
+        // Given
+        User writer = userRepository.save(user("writer"));
+        userRepository.save(user("bystander"));
+        entityManagerFactory.getCache().evictAll();
+        long revision = userRepository.findByEmail("writer@example.com").orElseThrow().getAddressRevision();
+        userRepository.findByEmail("bystander@example.com").orElseThrow();
+
+        // When
+        addressService.createAddress("writer@example.com", CreateAddressRequest.builder()
+                .label("Home").streetAddress("1 Main St").city("New York").country("USA").build());
+
+        // Then
+        statistics.clear();
+        assertThat(userRepository.findByEmail("bystander@example.com")).isPresent();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(userRepository.findByEmail("writer@example.com").orElseThrow().getAddressRevision())
+                .isEqualTo(revision + 1);
+        assertThat(entityManagerFactory.getCache().contains(User.class, writer.getId())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not write a stale cached copy back over a newer row")
+    void testUpdateProfile_StaleCachedEntity() {
+        // Given a cached user whose row another node has since changed
+        User user = userRepository.save(user("stale"));
+        userRepository.findByEmail("stale@example.com").orElseThrow();
+        jdbcTemplate.update("UPDATE users SET status = ?, role = ?, password = ? WHERE id = ?",
+                UserStatus.BANNED.name(), Role.ADMIN.name(), "rotated-hash", user.getId());
+        assertThat(userRepository.findByEmail("stale@example.com").orElseThrow().getStatus())
+                .isEqualTo(UserStatus.ACTIVE);
+
+        // When
+        userService.updateProfile("stale@example.com", UpdateProfileRequest.builder().firstName("Fresh").build());
+
+        // Then
+        assertThat(jdbcTemplate.queryForMap("SELECT first_name, status, role, password FROM users WHERE id = ?",
+                user.getId()))
+                .containsEntry("FIRST_NAME", "Fresh")
+                .containsEntry("STATUS", UserStatus.BANNED.name())
+                .containsEntry("ROLE", Role.ADMIN.name())
+                .containsEntry("PASSWORD", "rotated-hash");
+    }
+
+    private static User user(String username) {
+        User user = TestDataBuilder.buildUser();
+        user.setId(null);
+        user.setCreatedAt(null);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+}
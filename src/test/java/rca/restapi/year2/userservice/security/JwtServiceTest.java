@@ -152,6 +152,24 @@ class JwtServiceTest {
         assertThat(isValid).isFalse();
     }
 
+    @Test
+    @DisplayName("Should accept a token whose subject differs from the stored email only in case")
+    void testValidateToken_SubjectInOtherCase() {
+        // Given - issued before emails were stored lower-cased
+        UserDetails typed = org.springframework.security.core.userdetails.User.builder()
+                .username(userDetails.getUsername().toUpperCase())
+                .password("password")
+                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")))
+                .build();
+        String token = jwtService.generateAccessToken(typed);
+
+        // When
+        Boolean isValid = jwtService.validateToken(token, userDetails);
+
+        // Then
+        assertThat(isValid).isTrue();
+    }
+
     @Test
     @DisplayName("Should return false for token signed with different secret")
     void testValidateToken_DifferentSecret() {
@@ -1,22 +1,30 @@
 package rca.restapi.year2.userservice.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import rca.restapi.year2.userservice.cache.CachePolicies;
+import rca.restapi.year2.userservice.cache.SingleFlightLoader;
+import rca.restapi.year2.userservice.cache.UserAddressCache;
+import rca.restapi.year2.userservice.cache.UserProfileCache;
 import rca.restapi.year2.userservice.dto.AddressDto;
+import rca.restapi.year2.userservice.dto.UserAddressesDto;
 import rca.restapi.year2.userservice.dto.requests.CreateAddressRequest;
 import rca.restapi.year2.userservice.exception.ResourceNotFoundException;
 import rca.restapi.year2.userservice.model.Address;
 import rca.restapi.year2.userservice.model.User;
 import rca.restapi.year2.userservice.repository.AddressRepository;
+import rca.restapi.year2.userservice.repository.UserColumnUpdates;
 import rca.restapi.year2.userservice.repository.UserRepository;
 import rca.restapi.year2.userservice.util.TestDataBuilder;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,6 +43,17 @@ class AddressServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserColumnUpdates userColumnUpdates;
+
+    @Mock
+    private UserProfileCache userProfileCache;
+
+    @Spy
+    private UserAddressCache userAddressCache = new UserAddressCache(
+            new ConcurrentMapCacheManager(UserAddressCache.ADDRESSES),
+            new SingleFlightLoader(null, new CachePolicies(), new SimpleMeterRegistry(), 100, 1));
+
     @InjectMocks
     private AddressService addressService;
 
@@ -53,9 +72,8 @@ class AddressServiceTest {
     void testGetUserAddresses_Success() {
         // Given
         String email = "test@example.com";
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
-        when(addressRepository.findByUserId(testUser.getId()))
-                .thenReturn(Arrays.asList(testAddress));
+        testUser.getAddresses().add(testAddress);
+        when(userRepository.findWithAddressesByEmail(email)).thenReturn(Optional.of(testUser));
 
         // When
         List<AddressDto> result = addressService.getUserAddresses(email);
@@ -63,8 +81,8 @@ class AddressServiceTest {
         // Then
         assertThat(result).isNotNull();
         assertThat(result).hasSize(1);
-        verify(userRepository).findByEmail(email);
-        verify(addressRepository).findByUserId(testUser.getId());
+        verify(userRepository).findWithAddressesByEmail(email);
+        verifyNoInteractions(addressRepository);
     }
 
     @Test
@@ -72,7 +90,7 @@ class AddressServiceTest {
     void testGetUserAddresses_UserNotFound() {
         // Given
         String email = "nonexistent@example.com";
-        when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
+        when(userRepository.findWithAddressesByEmail(email)).thenReturn(Optional.empty());
 
         // When/Then
         assertThatThrownBy(() -> addressService.getUserAddresses(email))
@@ -80,14 +98,47 @@ class AddressServiceTest {
                 .hasMessage("User not found");
     }
 
+    @Test
+    @DisplayName("Should serve repeated reads from the address cache")
+    void testGetUserAddresses_CacheHit() {
+        // Given
+        String email = "test@example.com";
+        testUser.getAddresses().add(testAddress);
+        when(userRepository.findWithAddressesByEmail(email)).thenReturn(Optional.of(testUser));
+        addressService.getUserAddresses(email);
+
+        // When
+        List<AddressDto> result = addressService.getUserAddresses(email);
+
+        // Then
+        assertThat(result).hasSize(1);
+        verify(userRepository, times(1)).findWithAddressesByEmail(email);
+    }
+
+    @Test
+    @DisplayName("Should carry the user's address revision with the list")
+    void testGetUserAddressList_CarriesRevision() {
+        // Given
+        String email = "test@example.com";
+        testUser.setAddressRevision(4L);
+        when(userRepository.findWithAddressesByEmail(email)).thenReturn(Optional.of(testUser));
+
+        // When
+        UserAddressesDto result = addressService.getUserAddressList(email);
+
+        // Then
+        assertThat(result.getUserId()).isEqualTo(testUser.getId());
+        assertThat(result.getRevision()).isEqualTo(4L);
+    }
+
     @Test
     @DisplayName("Should get address by ID successfully")
     void testGetAddressById_Success() {
         // Given
         String email = "test@example.com";
         Long addressId = 1L;
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
-        when(addressRepository.findById(addressId)).thenReturn(Optional.of(testAddress));
+        testUser.getAddresses().add(testAddress);
+        when(userRepository.findWithAddressesByEmail(email)).thenReturn(Optional.of(testUser));
 
         // When
         AddressDto result = addressService.getAddressById(email, addressId);
@@ -95,20 +146,17 @@ class AddressServiceTest {
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(addressId);
-        verify(userRepository).findByEmail(email);
-        verify(addressRepository).findById(addressId);
+        verify(userRepository).findWithAddressesByEmail(email);
     }
 
     @Test
     @DisplayName("Should throw exception when address belongs to different user")
     void testGetAddressById_DifferentUser() {
-        // Given
+        // Given - the address is not in this user's list
         String email = "test@example.com";
         Long addressId = 1L;
-        User differentUser = TestDataBuilder.buildAdminUser();
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
-        when(addressRepository.findById(addressId)).thenReturn(Optional.of(testAddress));
-        testAddress.setUser(differentUser);
+        testAddress.setUser(TestDataBuilder.buildAdminUser());
+        when(userRepository.findWithAddressesByEmail(email)).thenReturn(Optional.of(testUser));
 
         // When/Then
         assertThatThrownBy(() -> addressService.getAddressById(email, addressId))
@@ -116,6 +164,39 @@ class AddressServiceTest {
                 .hasMessage("Address not found");
     }
 
+    @Test
+    @DisplayName("Should serve the default address from the cached list without querying")
+    void testGetDefaultAddress_FromCache() {
+        // Given
+        String email = "test@example.com";
+        testUser.getAddresses().add(testAddress);
+        when(userRepository.findWithAddressesByEmail(email)).thenReturn(Optional.of(testUser));
+        addressService.getUserAddresses(email);
+
+        // When
+        AddressDto result = addressService.getDefaultAddress(email);
+
+        // Then
+        assertThat(result.getId()).isEqualTo(testAddress.getId());
+        verify(userRepository, times(1)).findWithAddressesByEmail(email);
+        verifyNoInteractions(addressRepository);
+    }
+
+    @Test
+    @DisplayName("Should throw exception when the user has no default address")
+    void testGetDefaultAddress_NoDefault() {
+        // Given
+        String email = "test@example.com";
+        testAddress.setIsDefault(false);
+        testUser.getAddresses().add(testAddress);
+        when(userRepository.findWithAddressesByEmail(email)).thenReturn(Optional.of(testUser));
+
+        // When/Then
+        assertThatThrownBy(() -> addressService.getDefaultAddress(email))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("No default address found");
+    }
+
     @Test
     @DisplayName("Should create address successfully")
     void testCreateAddress_Success() {
@@ -132,6 +213,7 @@ class AddressServiceTest {
                 .build();
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
         when(addressRepository.save(any(Address.class))).thenReturn(testAddress);
+        when(userColumnUpdates.incrementAddressRevision(testUser.getId())).thenReturn(4L);
 
         // When
         AddressDto result = addressService.createAddress(email, request);
@@ -140,6 +222,29 @@ class AddressServiceTest {
         assertThat(result).isNotNull();
         verify(userRepository).findByEmail(email);
         verify(addressRepository).save(any(Address.class));
+        verify(userAddressCache).evict(testUser.getEmail());
+        verify(userProfileCache).evict(testUser.getId(), testUser.getEmail(), 4L);
+    }
+
+    @Test
+    @DisplayName("Should reload the cached list after an address write")
+    void testCreateAddress_InvalidatesCachedList() {
+        // Given
+        String email = "test@example.com";
+        when(userRepository.findWithAddressesByEmail(email)).thenReturn(Optional.of(testUser));
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
+        when(addressRepository.save(any(Address.class))).thenAnswer(invocation -> {
+            testUser.getAddresses().add(testAddress);
+            return testAddress;
+        });
+        assertThat(addressService.getUserAddresses(email)).isEmpty();
+
+        // When
+        addressService.createAddress(email, CreateAddressRequest.builder().label("Home").build());
+
+        // Then
+        assertThat(addressService.getUserAddresses(email)).hasSize(1);
+        verify(userRepository, times(2)).findWithAddressesByEmail(email);
     }
 
     @Test
@@ -159,6 +264,9 @@ class AddressServiceTest {
         verify(userRepository).findByEmail(email);
         verify(addressRepository).findById(addressId);
         verify(addressRepository).delete(testAddress);
+        verify(userColumnUpdates).incrementAddressRevision(testUser.getId());
+        verify(userAddressCache).evict(testUser.getEmail());
+        verify(userProfileCache).evict(testUser.getId(), testUser.getEmail(), 0L);
     }
 }
 
@@ -1,11 +1,13 @@
 package rca.restapi.year2.userservice.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -14,6 +16,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import rca.restapi.year2.userservice.cache.UserExistenceFilter;
+import rca.restapi.year2.userservice.cache.UserProfileCache;
 import rca.restapi.year2.userservice.dto.requests.LoginRequest;
 import rca.restapi.year2.userservice.dto.requests.RefreshTokenRequest;
 import rca.restapi.year2.userservice.dto.requests.RegisterRequest;
@@ -25,6 +29,7 @@ import rca.restapi.year2.userservice.model.RefreshToken;
 import rca.restapi.year2.userservice.model.User;
 import rca.restapi.year2.userservice.repository.RefreshTokenRepository;
 import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.repository.projection.RefreshTokenView;
 import rca.restapi.year2.userservice.security.CustomUserDetailsService;
 import rca.restapi.year2.userservice.security.JwtService;
 import rca.restapi.year2.userservice.util.TestDataBuilder;
@@ -61,6 +66,16 @@ class AuthenticationServiceTest {
     @Mock
     private CustomUserDetailsService userDetailsService;
 
+    @Mock
+    private SessionService sessionService;
+
+    @Mock
+    private UserProfileCache userProfileCache;
+
+    // Not built, so it answers "maybe" until a test stubs it
+    @Spy
+    private UserExistenceFilter userExistenceFilter = new UserExistenceFilter(null, null, new SimpleMeterRegistry());
+
     @InjectMocks
     private AuthenticationService authenticationService;
 
@@ -116,6 +131,26 @@ class AuthenticationServiceTest {
         verify(jwtService).generateAccessToken(userDetails);
         verify(jwtService).generateRefreshToken(userDetails);
         verify(refreshTokenRepository).save(any(RefreshToken.class));
+        verify(userExistenceFilter).add(testUser.getEmail(), testUser.getUsername());
+    }
+
+    @Test
+    @DisplayName("Should skip existence queries the filter rules out")
+    void testRegister_FilterRulesOutExisting() {
+        // Given
+        doReturn(false).when(userExistenceFilter).mightContainEmail(registerRequest.getEmail());
+        doReturn(false).when(userExistenceFilter).mightContainUsername(registerRequest.getUsername());
+        when(passwordEncoder.encode(registerRequest.getPassword())).thenReturn("encodedPassword");
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(jwtService.getRefreshTokenExpiration()).thenReturn(604800000L);
+
+        // When
+        authenticationService.register(registerRequest);
+
+        // Then
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository).save(any(User.class));
     }
 
     @Test
@@ -154,7 +189,7 @@ class AuthenticationServiceTest {
     @DisplayName("Should login successfully with valid credentials")
     void testLogin_Success() {
         // Given
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(userRepository.findForUpdateByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
         Authentication auth = mock(Authentication.class);
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(auth);
@@ -168,7 +203,7 @@ class AuthenticationServiceTest {
         when(jwtService.generateAccessToken(userDetails)).thenReturn("accessToken");
         when(jwtService.generateRefreshToken(userDetails)).thenReturn("refreshToken");
         when(jwtService.getRefreshTokenExpiration()).thenReturn(604800000L);
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
         when(refreshTokenRepository.save(any(RefreshToken.class))).thenReturn(mock(RefreshToken.class));
 
         // When
@@ -179,41 +214,114 @@ class AuthenticationServiceTest {
         assertThat(response.getAccessToken()).isEqualTo("accessToken");
         assertThat(response.getRefreshToken()).isEqualTo("refreshToken");
 
-        verify(userRepository).findByEmail(loginRequest.getEmail());
+        verify(userRepository).findForUpdateByEmail(loginRequest.getEmail());
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(userRepository).save(any(User.class));
-        verify(refreshTokenRepository).deleteAllByUserId(testUser.getId());
+        verify(userRepository).saveAndFlush(any(User.class));
+        verify(refreshTokenRepository, never()).deleteAllByUserId(any());
         verify(refreshTokenRepository).save(any(RefreshToken.class));
+        verify(sessionService).openSession(testUser.getId(), SessionService.DEFAULT_DEVICE_ID, null);
+        verify(userProfileCache).evict(testUser.getId(), testUser.getEmail(), testUser.getUpdatedAt(), testUser.getAddressRevision());
+    }
+
+    @Test
+    @DisplayName("Should open a session for the device given at login")
+    void testLogin_WithDevice_OpensDeviceSession() {
+        // Given
+        loginRequest.setDeviceId("phone-123");
+        loginRequest.setDeviceName("Pixel 8");
+        when(userRepository.findForUpdateByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(mock(Authentication.class));
+
+        UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
+                .username(testUser.getEmail())
+                .password(testUser.getPassword())
+                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")))
+                .build();
+        when(userDetailsService.loadUserByUsername(testUser.getEmail())).thenReturn(userDetails);
+        when(jwtService.generateAccessToken(userDetails)).thenReturn("accessToken");
+        when(jwtService.generateRefreshToken(userDetails)).thenReturn("refreshToken");
+        when(jwtService.getRefreshTokenExpiration()).thenReturn(604800000L);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
+
+        // When
+        authenticationService.login(loginRequest);
+
+        // Then
+        verify(refreshTokenRepository).save(argThat(token -> "phone-123".equals(token.getDeviceId())));
+        verify(refreshTokenRepository).deleteOtherDeviceTokens(testUser.getId(), "phone-123", "refreshToken");
+        verify(sessionService).openSession(testUser.getId(), "phone-123", "Pixel 8");
+    }
+
+    @Test
+    @DisplayName("Should not count a failure after authentication as a failed login")
+    void testLogin_SessionFailure_NotCountedAsFailedAttempt() {
+        // Given
+        when(userRepository.findForUpdateByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(mock(Authentication.class));
+
+        UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
+                .username(testUser.getEmail())
+                .password(testUser.getPassword())
+                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")))
+                .build();
+        when(userDetailsService.loadUserByUsername(testUser.getEmail())).thenReturn(userDetails);
+        when(jwtService.generateAccessToken(userDetails)).thenReturn("accessToken");
+        when(jwtService.generateRefreshToken(userDetails)).thenReturn("refreshToken");
+        when(jwtService.getRefreshTokenExpiration()).thenReturn(604800000L);
+        doThrow(new IllegalStateException("session store failure"))
+                .when(sessionService).openSession(anyLong(), anyString(), any());
+
+        // When/Then
+        assertThatThrownBy(() -> authenticationService.login(loginRequest))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(testUser.getFailedLoginAttempts()).isZero();
+        assertThat(testUser.isAccountNonLocked()).isTrue();
     }
 
     @Test
     @DisplayName("Should throw exception when user not found")
     void testLogin_UserNotFound() {
         // Given
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.empty());
+        when(userRepository.findForUpdateByEmail(loginRequest.getEmail())).thenReturn(Optional.empty());
 
         // When/Then
         assertThatThrownBy(() -> authenticationService.login(loginRequest))
                 .isInstanceOf(UnauthorizedException.class)
                 .hasMessage("Invalid credentials");
 
-        verify(userRepository).findByEmail(loginRequest.getEmail());
+        verify(userRepository).findForUpdateByEmail(loginRequest.getEmail());
         verify(authenticationManager, never()).authenticate(any());
     }
 
+    @Test
+    @DisplayName("Should reject an unknown email without querying")
+    void testLogin_FilterRulesOutEmail() {
+        // Given
+        doReturn(false).when(userExistenceFilter).mightContainEmail(loginRequest.getEmail());
+
+        // When/Then
+        assertThatThrownBy(() -> authenticationService.login(loginRequest))
+                .isInstanceOf(UnauthorizedException.class)
+                .hasMessage("Invalid credentials");
+
+        verify(userRepository, never()).findForUpdateByEmail(anyString());
+    }
+
     @Test
     @DisplayName("Should throw exception when account is locked")
     void testLogin_AccountLocked() {
         // Given
         testUser.setAccountLockedUntil(LocalDateTime.now().plusMinutes(15));
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(userRepository.findForUpdateByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
 
         // When/Then
         assertThatThrownBy(() -> authenticationService.login(loginRequest))
                 .isInstanceOf(UnauthorizedException.class)
                 .hasMessage("Account is locked. Try again later.");
 
-        verify(userRepository).findByEmail(loginRequest.getEmail());
+        verify(userRepository).findForUpdateByEmail(loginRequest.getEmail());
         verify(authenticationManager, never()).authenticate(any());
     }
 
@@ -222,7 +330,7 @@ class AuthenticationServiceTest {
     void testLogin_InvalidCredentials_IncrementAttempts() {
         // Given
         User user = spy(testUser);
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.findForUpdateByEmail(loginRequest.getEmail())).thenReturn(Optional.of(user));
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenThrow(new BadCredentialsException("Bad credentials"));
         when(userRepository.save(any(User.class))).thenReturn(user);
@@ -232,7 +340,7 @@ class AuthenticationServiceTest {
                 .isInstanceOf(UnauthorizedException.class)
                 .hasMessage("Invalid credentials");
 
-        verify(userRepository).findByEmail(loginRequest.getEmail());
+        verify(userRepository).findForUpdateByEmail(loginRequest.getEmail());
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(user).incrementFailedLoginAttempts();
         verify(userRepository).save(user);
@@ -244,7 +352,7 @@ class AuthenticationServiceTest {
         // Given
         User user = spy(testUser);
         user.setFailedLoginAttempts(4);
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.findForUpdateByEmail(loginRequest.getEmail())).thenReturn(Optional.of(user));
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenThrow(new BadCredentialsException("Bad credentials"));
         when(userRepository.save(any(User.class))).thenReturn(user);
@@ -254,7 +362,7 @@ class AuthenticationServiceTest {
                 .isInstanceOf(UnauthorizedException.class)
                 .hasMessageContaining("Account locked due to 5 failed login attempts");
 
-        verify(userRepository).findByEmail(loginRequest.getEmail());
+        verify(userRepository).findForUpdateByEmail(loginRequest.getEmail());
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(user).incrementFailedLoginAttempts();
         verify(user).lockAccount(anyInt());
@@ -267,7 +375,7 @@ class AuthenticationServiceTest {
         // Given
         User user = spy(testUser);
         user.setFailedLoginAttempts(3);
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.findForUpdateByEmail(loginRequest.getEmail())).thenReturn(Optional.of(user));
         Authentication auth = mock(Authentication.class);
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(auth);
@@ -281,7 +389,7 @@ class AuthenticationServiceTest {
         when(jwtService.generateAccessToken(userDetails)).thenReturn("accessToken");
         when(jwtService.generateRefreshToken(userDetails)).thenReturn("refreshToken");
         when(jwtService.getRefreshTokenExpiration()).thenReturn(604800000L);
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
         when(refreshTokenRepository.save(any(RefreshToken.class))).thenReturn(mock(RefreshToken.class));
 
         // When
@@ -289,26 +397,25 @@ class AuthenticationServiceTest {
 
         // Then
         verify(user).resetFailedLoginAttempts();
-        verify(userRepository).save(user);
+        verify(userRepository).saveAndFlush(user);
     }
 
     @Test
     @DisplayName("Should refresh token successfully")
     void testRefreshToken_Success() {
         // Given
-        RefreshToken refreshToken = TestDataBuilder.buildRefreshToken(testUser);
         RefreshTokenRequest request = TestDataBuilder.buildRefreshTokenRequest();
-        refreshToken.setToken(request.getRefreshToken());
+        RefreshTokenView refreshToken = TestDataBuilder.buildRefreshTokenView(testUser);
 
-        when(refreshTokenRepository.findByToken(request.getRefreshToken()))
+        when(refreshTokenRepository.findViewByToken(request.getRefreshToken()))
                 .thenReturn(Optional.of(refreshToken));
 
         UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
                 .username(testUser.getEmail())
-                .password(testUser.getPassword())
+                .password("")
                 .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")))
                 .build();
-        when(userDetailsService.loadUserByUsername(testUser.getEmail())).thenReturn(userDetails);
+        when(userDetailsService.toUserDetails(testUser.getEmail(), testUser.getRole())).thenReturn(userDetails);
         when(jwtService.generateAccessToken(userDetails)).thenReturn("newAccessToken");
 
         // When
@@ -318,8 +425,14 @@ class AuthenticationServiceTest {
         assertThat(response).isNotNull();
         assertThat(response.getAccessToken()).isEqualTo("newAccessToken");
         assertThat(response.getRefreshToken()).isEqualTo(request.getRefreshToken());
-        verify(refreshTokenRepository).findByToken(request.getRefreshToken());
+        assertThat(response.getUser().getId()).isEqualTo(testUser.getId());
+        assertThat(response.getUser().getEmail()).isEqualTo(testUser.getEmail());
+        assertThat(response.getUser().getRole()).isEqualTo(testUser.getRole());
+        verify(refreshTokenRepository).findViewByToken(request.getRefreshToken());
         verify(jwtService).generateAccessToken(userDetails);
+        verify(sessionService).touch(testUser.getId(), SessionService.DEFAULT_DEVICE_ID);
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
     }
 
     @Test
@@ -327,7 +440,7 @@ class AuthenticationServiceTest {
     void testRefreshToken_TokenNotFound() {
         // Given
         RefreshTokenRequest request = TestDataBuilder.buildRefreshTokenRequest();
-        when(refreshTokenRepository.findByToken(request.getRefreshToken()))
+        when(refreshTokenRepository.findViewByToken(request.getRefreshToken()))
                 .thenReturn(Optional.empty());
 
         // When/Then
@@ -340,12 +453,12 @@ class AuthenticationServiceTest {
     @DisplayName("Should throw exception when refresh token is expired")
     void testRefreshToken_TokenExpired() {
         // Given
-        RefreshToken refreshToken = TestDataBuilder.buildRefreshToken(testUser);
-        refreshToken.setExpiresAt(LocalDateTime.now().minusDays(1));
         RefreshTokenRequest request = TestDataBuilder.buildRefreshTokenRequest();
-        refreshToken.setToken(request.getRefreshToken());
+        RefreshTokenView refreshToken = new RefreshTokenView(
+                LocalDateTime.now().minusDays(1), false, "default", testUser.getId(), testUser.getUsername(),
+                testUser.getEmail(), testUser.getRole(), testUser.getStatus());
 
-        when(refreshTokenRepository.findByToken(request.getRefreshToken()))
+        when(refreshTokenRepository.findViewByToken(request.getRefreshToken()))
                 .thenReturn(Optional.of(refreshToken));
 
         // When/Then
@@ -358,12 +471,12 @@ class AuthenticationServiceTest {
     @DisplayName("Should throw exception when refresh token is revoked")
     void testRefreshToken_TokenRevoked() {
         // Given
-        RefreshToken refreshToken = TestDataBuilder.buildRefreshToken(testUser);
-        refreshToken.setRevoked(true);
         RefreshTokenRequest request = TestDataBuilder.buildRefreshTokenRequest();
-        refreshToken.setToken(request.getRefreshToken());
+        RefreshTokenView refreshToken = new RefreshTokenView(
+                LocalDateTime.now().plusDays(7), true, "default", testUser.getId(), testUser.getUsername(),
+                testUser.getEmail(), testUser.getRole(), testUser.getStatus());
 
-        when(refreshTokenRepository.findByToken(request.getRefreshToken()))
+        when(refreshTokenRepository.findViewByToken(request.getRefreshToken()))
                 .thenReturn(Optional.of(refreshToken));
 
         // When/Then
@@ -378,14 +491,24 @@ class AuthenticationServiceTest {
         // Given
         String email = "test@example.com";
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
-        doNothing().when(refreshTokenRepository).deleteAllByUserId(testUser.getId());
 
         // When
         authenticationService.logout(email);
 
         // Then
         verify(userRepository).findByEmail(email);
-        verify(refreshTokenRepository).deleteAllByUserId(testUser.getId());
+        verify(sessionService).revokeAllSessions(testUser.getId());
+    }
+
+    @Test
+    @DisplayName("Should logout a single device")
+    void testLogout_SingleDevice() {
+        // When
+        authenticationService.logout("test@example.com", "phone-123");
+
+        // Then
+        verify(sessionService).revokeSession("test@example.com", "phone-123");
+        verify(sessionService, never()).revokeAllSessions(any());
     }
 
     @Test
@@ -401,6 +524,6 @@ class AuthenticationServiceTest {
                 .hasMessage("User not found");
 
         verify(userRepository).findByEmail(email);
-        verify(refreshTokenRepository, never()).deleteAllByUserId(any());
+        verify(sessionService, never()).revokeAllSessions(any());
     }
 }
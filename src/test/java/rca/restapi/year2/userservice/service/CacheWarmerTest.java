@@ -0,0 +1,137 @@
+package rca.restapi.year2.userservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import rca.restapi.year2.userservice.cache.UserProfileCache;
+import rca.restapi.year2.userservice.dto.UserDto;
+import rca.restapi.year2.userservice.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CacheWarmer Unit Tests")
+class CacheWarmerTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private UserProfileCache userProfileCache;
+
+    private CacheWarmer cacheWarmer;
+
+    @BeforeEach
+    void setUp() {
+        cacheWarmer = new CacheWarmer(userRepository, userService, userProfileCache);
+        ReflectionTestUtils.setField(cacheWarmer, "maxUsers", 5);
+        ReflectionTestUtils.setField(cacheWarmer, "batchSize", 2);
+        ReflectionTestUtils.setField(cacheWarmer, "parallelism", 2);
+        ReflectionTestUtils.setField(cacheWarmer, "timeBudget", Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Should warm the most recently active users in batches")
+    void testWarm_AllBatches() {
+        // Given
+        when(userRepository.findRecentlyActiveUserIds(PageRequest.of(0, 5))).thenReturn(List.of(5L, 4L, 3L, 2L, 1L));
+        when(userService.loadProfiles(anyCollection())).thenAnswer(invocation -> profiles(invocation.getArgument(0)));
+
+        // When
+        cacheWarmer.start();
+
+        // Then
+        verify(userService).loadProfiles(List.of(5L, 4L));
+        verify(userService).loadProfiles(List.of(3L, 2L));
+        verify(userService).loadProfiles(List.of(1L));
+        verify(userProfileCache, times(3)).storeAll(anyCollection());
+        CacheWarmupProgress.Snapshot progress = cacheWarmer.getProgress().snapshot();
+        assertThat(progress.state()).isEqualTo(CacheWarmupProgress.State.COMPLETED);
+        assertThat(progress.targetUsers()).isEqualTo(5);
+        assertThat(progress.warmedUsers()).isEqualTo(5);
+        assertThat(progress.completedBatches()).isEqualTo(3);
+        assertThat(cacheWarmer.isRunning()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should stop waiting once the time budget is spent")
+    void testWarm_BudgetExceeded() {
+        // Given
+        ReflectionTestUtils.setField(cacheWarmer, "timeBudget", Duration.ofMillis(100));
+        when(userRepository.findRecentlyActiveUserIds(any())).thenReturn(List.of(1L, 2L, 3L, 4L));
+        when(userService.loadProfiles(anyCollection())).thenAnswer(invocation -> {
+            Thread.sleep(1_000);
+            return profiles(invocation.getArgument(0));
+        });
+
+        // When
+        cacheWarmer.start();
+
+        // Then
+        CacheWarmupProgress.Snapshot progress = cacheWarmer.getProgress().snapshot();
+        assertThat(progress.state()).isEqualTo(CacheWarmupProgress.State.BUDGET_EXCEEDED);
+        assertThat(progress.warmedUsers()).isZero();
+        assertThat(progress.durationMillis()).isLessThan(1_000L);
+    }
+
+    @Test
+    @DisplayName("Should keep warming other batches when one batch fails")
+    void testWarm_BatchFailure() {
+        // Given
+        when(userRepository.findRecentlyActiveUserIds(any())).thenReturn(List.of(1L, 2L, 3L));
+        when(userService.loadProfiles(anyCollection())).thenAnswer(invocation -> profiles(invocation.getArgument(0)));
+        doThrow(new RedisConnectionFailureException("down"))
+                .doNothing()
+                .when(userProfileCache).storeAll(anyCollection());
+
+        // When
+        cacheWarmer.start();
+
+        // Then
+        CacheWarmupProgress.Snapshot progress = cacheWarmer.getProgress().snapshot();
+        assertThat(progress.state()).isEqualTo(CacheWarmupProgress.State.COMPLETED);
+        assertThat(progress.completedBatches()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not fail startup when the user query fails")
+    void testWarm_QueryFailure() {
+        // Given
+        when(userRepository.findRecentlyActiveUserIds(any())).thenThrow(new IllegalStateException("db down"));
+
+        // When
+        cacheWarmer.start();
+
+        // Then
+        assertThat(cacheWarmer.getProgress().snapshot().state()).isEqualTo(CacheWarmupProgress.State.FAILED);
+        verifyNoInteractions(userProfileCache);
+    }
+
+    @Test
+    @DisplayName("Should run before Eureka registration")
+    void testPhase_BeforeServiceRegistration() {
+        assertThat(cacheWarmer.getPhase()).isLessThan(0);
+    }
+
+    private static List<UserDto> profiles(Collection<Long> ids) {
+        return ids.stream()
+                .map(id -> UserDto.builder().id(id).email("user" + id + "@example.com").build())
+                .toList();
+    }
+}
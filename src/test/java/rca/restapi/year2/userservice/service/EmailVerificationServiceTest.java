@@ -1,12 +1,16 @@
 package rca.restapi.year2.userservice.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import rca.restapi.year2.userservice.cache.UserExistenceFilter;
+import rca.restapi.year2.userservice.cache.UserProfileCache;
 import rca.restapi.year2.userservice.exception.ResourceNotFoundException;
 import rca.restapi.year2.userservice.exception.UnauthorizedException;
 import rca.restapi.year2.userservice.model.User;
@@ -29,6 +33,12 @@ class EmailVerificationServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private UserProfileCache userProfileCache;
+
+    @Spy
+    private UserExistenceFilter userExistenceFilter = new UserExistenceFilter(null, null, new SimpleMeterRegistry());
+
     @InjectMocks
     private EmailVerificationService emailVerificationService;
 
@@ -90,16 +100,17 @@ class EmailVerificationServiceTest {
         // Given
         String token = "valid-token";
         when(emailService.verifyEmailToken(token)).thenReturn(testUser.getEmail());
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(userRepository.findForUpdateByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
 
         // When
         emailVerificationService.verifyEmail(token);
 
         // Then
         verify(emailService).verifyEmailToken(token);
-        verify(userRepository).findByEmail(testUser.getEmail());
-        verify(userRepository).save(testUser);
+        verify(userRepository).findForUpdateByEmail(testUser.getEmail());
+        verify(userRepository).saveAndFlush(testUser);
+        verify(userProfileCache).evict(testUser.getId(), testUser.getEmail(), testUser.getUpdatedAt(), testUser.getAddressRevision());
     }
 
     @Test
@@ -1,13 +1,17 @@
 package rca.restapi.year2.userservice.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import rca.restapi.year2.userservice.cache.UserExistenceFilter;
+import rca.restapi.year2.userservice.cache.UserProfileCache;
 import rca.restapi.year2.userservice.dto.requests.PasswordResetConfirm;
 import rca.restapi.year2.userservice.dto.requests.PasswordResetRequest;
 import rca.restapi.year2.userservice.exception.ResourceNotFoundException;
@@ -36,6 +40,12 @@ class PasswordResetServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserProfileCache userProfileCache;
+
+    @Spy
+    private UserExistenceFilter userExistenceFilter = new UserExistenceFilter(null, null, new SimpleMeterRegistry());
+
     @InjectMocks
     private PasswordResetService passwordResetService;
 
@@ -79,6 +89,21 @@ class PasswordResetServiceTest {
         verify(emailService, never()).sendPasswordResetEmail(anyString(), anyString());
     }
 
+    @Test
+    @DisplayName("Should reject an unknown email without querying")
+    void testRequestPasswordReset_FilterRulesOutEmail() {
+        // Given
+        PasswordResetRequest request = TestDataBuilder.buildPasswordResetRequest();
+        doReturn(false).when(userExistenceFilter).mightContainEmail(request.getEmail());
+
+        // When/Then
+        assertThatThrownBy(() -> passwordResetService.requestPasswordReset(request))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("User not found");
+
+        verify(userRepository, never()).findByEmail(anyString());
+    }
+
     @Test
     @DisplayName("Should verify reset token successfully")
     void testVerifyResetToken_Success() {
@@ -115,18 +140,19 @@ class PasswordResetServiceTest {
         // Given
         PasswordResetConfirm request = TestDataBuilder.buildPasswordResetConfirm();
         when(emailService.verifyPasswordResetToken(request.getToken())).thenReturn(testUser.getEmail());
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(userRepository.findForUpdateByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
         when(passwordEncoder.encode(request.getNewPassword())).thenReturn("newEncodedPassword");
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
 
         // When
         passwordResetService.resetPassword(request);
 
         // Then
         verify(emailService).verifyPasswordResetToken(request.getToken());
-        verify(userRepository).findByEmail(testUser.getEmail());
+        verify(userRepository).findForUpdateByEmail(testUser.getEmail());
         verify(passwordEncoder).encode(request.getNewPassword());
-        verify(userRepository).save(testUser);
+        verify(userRepository).saveAndFlush(testUser);
+        verify(userProfileCache).evict(testUser.getId(), testUser.getEmail(), testUser.getUpdatedAt(), testUser.getAddressRevision());
         verify(emailService).invalidatePasswordResetToken(request.getToken());
     }
 
@@ -136,7 +162,7 @@ class PasswordResetServiceTest {
         // Given
         PasswordResetConfirm request = TestDataBuilder.buildPasswordResetConfirm();
         when(emailService.verifyPasswordResetToken(request.getToken())).thenReturn(testUser.getEmail());
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.empty());
+        when(userRepository.findForUpdateByEmail(testUser.getEmail())).thenReturn(Optional.empty());
 
         // When/Then
         assertThatThrownBy(() -> passwordResetService.resetPassword(request))
@@ -144,7 +170,7 @@ class PasswordResetServiceTest {
                 .hasMessage("User not found");
         
         verify(emailService).verifyPasswordResetToken(request.getToken());
-        verify(userRepository).findByEmail(testUser.getEmail());
+        verify(userRepository).findForUpdateByEmail(testUser.getEmail());
         verify(passwordEncoder, never()).encode(anyString());
     }
 }
@@ -0,0 +1,140 @@
+package rca.restapi.year2.userservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RefreshTokenPartitionMaintainer Unit Tests")
+class RefreshTokenPartitionMaintainerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshTokenPartitionMaintainer maintainer;
+
+    // A Wednesday; its partition week starts on Monday 2026-10-19
+    private final LocalDate today = LocalDate.of(2026, 10, 21);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        maintainer = new RefreshTokenPartitionMaintainer(jdbcTemplate, meterRegistry);
+        ReflectionTestUtils.setField(maintainer, "weeksAhead", 2);
+    }
+
+    @Test
+    @DisplayName("Should create missing future partitions and drop fully expired ones")
+    void testMaintain_CreatesAndDrops() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("refresh_tokens")))
+                .thenReturn(List.of(
+                        "refresh_tokens_p20261005",
+                        "refresh_tokens_p20261012",
+                        "refresh_tokens_p20261019",
+                        "refresh_tokens_default_unrelated"));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("refresh_tokens")))
+                .thenReturn(1234L);
+        when(jdbcTemplate.queryForObject(RefreshTokenPartitionMaintainer.COUNT_DEFAULT_ROWS_SQL, Long.class))
+                .thenReturn(0L);
+
+        // When
+        maintainer.maintain(today);
+
+        // Then
+        verify(jdbcTemplate).execute(
+                "CREATE TABLE IF NOT EXISTS refresh_tokens_p20261026 PARTITION OF refresh_tokens "
+                        + "FOR VALUES FROM ('2026-10-26') TO ('2026-11-02')");
+        verify(jdbcTemplate).execute(
+                "CREATE TABLE IF NOT EXISTS refresh_tokens_p20261102 PARTITION OF refresh_tokens "
+                        + "FOR VALUES FROM ('2026-11-02') TO ('2026-11-09')");
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS refresh_tokens_p20261005");
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS refresh_tokens_p20261012");
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS refresh_tokens_p20261019");
+
+        assertThat(meterRegistry.get("refresh_tokens.partitions").gauge().value()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("refresh_tokens.rows").gauge().value()).isEqualTo(1234.0);
+        assertThat(meterRegistry.get("refresh_tokens.partitions.created").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("refresh_tokens.partitions.dropped").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("refresh_tokens.default.rows").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should move tokens out of the default partition into the partition created for them")
+    void testMaintain_MovesDefaultPartitionRows() {
+        // Given - tokens were issued while the partitions ahead were missing
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("refresh_tokens")))
+                .thenReturn(List.of("refresh_tokens_p20261019", "refresh_tokens_p20261026"));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("refresh_tokens")))
+                .thenReturn(10L);
+        when(jdbcTemplate.queryForObject(RefreshTokenPartitionMaintainer.COUNT_DEFAULT_ROWS_SQL, Long.class))
+                .thenReturn(3L, 1L);
+
+        // When
+        maintainer.maintain(today);
+
+        // Then
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute(
+                "CREATE TEMP TABLE refresh_tokens_moved AS WITH moved AS (DELETE FROM refresh_tokens_default "
+                        + "WHERE expires_at >= '2026-11-02' AND expires_at < '2026-11-09' RETURNING *) "
+                        + "SELECT * FROM moved");
+        inOrder.verify(jdbcTemplate).execute(
+                "CREATE TABLE IF NOT EXISTS refresh_tokens_p20261102 PARTITION OF refresh_tokens "
+                        + "FOR VALUES FROM ('2026-11-02') TO ('2026-11-09')");
+        inOrder.verify(jdbcTemplate).execute("INSERT INTO refresh_tokens SELECT * FROM refresh_tokens_moved");
+        inOrder.verify(jdbcTemplate).execute("DROP TABLE refresh_tokens_moved");
+        verify(jdbcTemplate).update("DELETE FROM refresh_tokens_default WHERE expires_at < ?",
+                LocalDate.of(2026, 10, 19));
+        assertThat(meterRegistry.get("refresh_tokens.default.rows").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should do nothing when partitions are already in place")
+    void testMaintain_NothingToDo() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("refresh_tokens")))
+                .thenReturn(List.of(
+                        "refresh_tokens_p20261019",
+                        "refresh_tokens_p20261026",
+                        "refresh_tokens_p20261102"));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("refresh_tokens")))
+                .thenReturn(0L);
+        when(jdbcTemplate.queryForObject(RefreshTokenPartitionMaintainer.COUNT_DEFAULT_ROWS_SQL, Long.class))
+                .thenReturn(0L);
+
+        // When
+        maintainer.maintain(today);
+
+        // Then
+        verify(jdbcTemplate, never()).execute(anyString());
+        assertThat(meterRegistry.get("refresh_tokens.partitions").gauge().value()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("Should map weeks to partition names and back")
+    void testPartitionNames() {
+        LocalDate week = LocalDate.of(2026, 10, 19);
+
+        assertThat(RefreshTokenPartitionMaintainer.partitionName(week)).isEqualTo("refresh_tokens_p20261019");
+        assertThat(RefreshTokenPartitionMaintainer.parseWeek("refresh_tokens_p20261019")).contains(week);
+        assertThat(RefreshTokenPartitionMaintainer.parseWeek("refresh_tokens_pxyz")).isEmpty();
+        assertThat(RefreshTokenPartitionMaintainer.parseWeek("users")).isEmpty();
+    }
+}
@@ -0,0 +1,270 @@
+package rca.restapi.year2.userservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import rca.restapi.year2.userservice.dto.DeviceSessionDto;
+import rca.restapi.year2.userservice.exception.ResourceNotFoundException;
+import rca.restapi.year2.userservice.model.DeviceSession;
+import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.repository.RefreshTokenRepository;
+import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.util.TestDataBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SessionService Unit Tests")
+class SessionServiceTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private ZSetOperations<String, Object> zSetOperations;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private SessionService sessionService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = TestDataBuilder.buildUser();
+        ReflectionTestUtils.setField(sessionService, "maxSessionsPerUser", 2);
+        lenient().when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+    }
+
+    @Test
+    @DisplayName("Should open a session without touching other devices")
+    void testOpenSession_NewDevice() {
+        // Given
+        when(refreshTokenRepository.findActiveDeviceIds(eq(1L), any(LocalDateTime.class)))
+                .thenReturn(List.of("phone", "laptop"));
+
+        // When
+        sessionService.openSession(1L, "laptop", "MacBook");
+
+        // Then
+        verify(hashOperations).put(eq("user:sessions:1"), eq("laptop"),
+                argThat(session -> "MacBook".equals(((DeviceSession) session).getDeviceName())));
+        verify(zSetOperations).add(eq("user:sessions:last-used:1"), eq("laptop"), anyDouble());
+        verify(refreshTokenRepository, never()).deleteByUserIdAndDeviceId(any(), anyString());
+        verify(refreshTokenRepository, never()).deleteAllByUserId(any());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used device when over the cap")
+    void testOpenSession_OverCap_EvictsLeastRecentlyUsed() {
+        // Given
+        when(refreshTokenRepository.findActiveDeviceIds(eq(1L), any(LocalDateTime.class)))
+                .thenReturn(List.of("laptop", "phone", "tablet"));
+        when(zSetOperations.range("user:sessions:last-used:1", 0, -1))
+                .thenReturn(new LinkedHashSet<>(List.of("phone", "laptop", "tablet")));
+        when(refreshTokenRepository.deleteByUserIdAndDeviceId(1L, "phone")).thenReturn(1);
+
+        // When
+        sessionService.openSession(1L, "tablet", "iPad");
+
+        // Then
+        verify(refreshTokenRepository).deleteByUserIdAndDeviceId(1L, "phone");
+        verify(refreshTokenRepository, never()).deleteByUserIdAndDeviceId(1L, "laptop");
+        verify(hashOperations).delete("user:sessions:1", "phone");
+        verify(zSetOperations).remove("user:sessions:last-used:1", "phone");
+    }
+
+    @Test
+    @DisplayName("Should enforce the cap from the database when Redis has lost the index")
+    void testOpenSession_OverCap_IndexLost() {
+        // Given
+        when(refreshTokenRepository.findActiveDeviceIds(eq(1L), any(LocalDateTime.class)))
+                .thenReturn(List.of("laptop", "phone", "tablet"));
+        when(zSetOperations.range("user:sessions:last-used:1", 0, -1)).thenReturn(new LinkedHashSet<>());
+        when(refreshTokenRepository.deleteByUserIdAndDeviceId(1L, "laptop")).thenReturn(1);
+
+        // When
+        sessionService.openSession(1L, "tablet", "iPad");
+
+        // Then
+        verify(refreshTokenRepository).deleteByUserIdAndDeviceId(1L, "laptop");
+        verify(refreshTokenRepository, never()).deleteByUserIdAndDeviceId(1L, "phone");
+    }
+
+    @Test
+    @DisplayName("Should list sessions most recently used first")
+    void testGetSessions_Success() {
+        // Given
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(refreshTokenRepository.findActiveDeviceIds(eq(1L), any(LocalDateTime.class)))
+                .thenReturn(List.of("phone", "laptop"));
+        LinkedHashSet<ZSetOperations.TypedTuple<Object>> byLastUse = new LinkedHashSet<>();
+        byLastUse.add(new DefaultTypedTuple<>("laptop", 2000.0));
+        byLastUse.add(new DefaultTypedTuple<>("phone", 1000.0));
+        when(zSetOperations.reverseRangeWithScores("user:sessions:last-used:1", 0, -1)).thenReturn(byLastUse);
+        when(hashOperations.multiGet("user:sessions:1", List.of("laptop", "phone")))
+                .thenReturn(Arrays.asList(session("laptop"), session("phone")));
+
+        // When
+        List<DeviceSessionDto> result = sessionService.getSessions("test@example.com");
+
+        // Then
+        assertThat(result).extracting(DeviceSessionDto::getDeviceId).containsExactly("laptop", "phone");
+        assertThat(result.get(0).getLastUsedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should list sessions from the refresh tokens, skipping revoked ones the index still has")
+    void testGetSessions_IndexOutOfStep() {
+        // Given - the index has lost the tablet and still has the revoked phone
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(refreshTokenRepository.findActiveDeviceIds(eq(1L), any(LocalDateTime.class)))
+                .thenReturn(List.of("laptop", "tablet"));
+        LinkedHashSet<ZSetOperations.TypedTuple<Object>> byLastUse = new LinkedHashSet<>();
+        byLastUse.add(new DefaultTypedTuple<>("phone", 3000.0));
+        byLastUse.add(new DefaultTypedTuple<>("laptop", 2000.0));
+        when(zSetOperations.reverseRangeWithScores("user:sessions:last-used:1", 0, -1)).thenReturn(byLastUse);
+        when(hashOperations.multiGet("user:sessions:1", List.of("phone", "laptop")))
+                .thenReturn(Arrays.asList(session("phone"), session("laptop")));
+
+        // When
+        List<DeviceSessionDto> result = sessionService.getSessions("test@example.com");
+
+        // Then
+        assertThat(result).extracting(DeviceSessionDto::getDeviceId).containsExactly("laptop", "tablet");
+        assertThat(result.get(1).getLastUsedAt()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should list sessions without names when Redis is unavailable")
+    void testGetSessions_RedisUnavailable() {
+        // Given
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(refreshTokenRepository.findActiveDeviceIds(eq(1L), any(LocalDateTime.class)))
+                .thenReturn(List.of("laptop", "phone"));
+        when(zSetOperations.reverseRangeWithScores(anyString(), anyLong(), anyLong()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        // When
+        List<DeviceSessionDto> result = sessionService.getSessions("test@example.com");
+
+        // Then
+        assertThat(result).extracting(DeviceSessionDto::getDeviceId).containsExactly("phone", "laptop");
+    }
+
+    @Test
+    @DisplayName("Should revoke a single device session")
+    void testRevokeSession_Success() {
+        // Given
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(refreshTokenRepository.deleteByUserIdAndDeviceId(1L, "phone")).thenReturn(1);
+
+        // When
+        sessionService.revokeSession("test@example.com", "phone");
+
+        // Then
+        verify(refreshTokenRepository).deleteByUserIdAndDeviceId(1L, "phone");
+        verify(hashOperations).delete("user:sessions:1", "phone");
+        verify(zSetOperations).remove("user:sessions:last-used:1", "phone");
+    }
+
+    @Test
+    @DisplayName("Should revoke a device session when Redis is unavailable")
+    void testRevokeSession_RedisUnavailable() {
+        // Given
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(refreshTokenRepository.deleteByUserIdAndDeviceId(1L, "phone")).thenReturn(1);
+        when(hashOperations.delete("user:sessions:1", "phone"))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        // When/Then
+        assertThatCode(() -> sessionService.revokeSession("test@example.com", "phone"))
+                .doesNotThrowAnyException();
+        verify(refreshTokenRepository).deleteByUserIdAndDeviceId(1L, "phone");
+    }
+
+    @Test
+    @DisplayName("Should throw exception when revoking an unknown device")
+    void testRevokeSession_NotFound() {
+        // Given
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(refreshTokenRepository.deleteByUserIdAndDeviceId(1L, "unknown")).thenReturn(0);
+
+        // When/Then
+        assertThatThrownBy(() -> sessionService.revokeSession("test@example.com", "unknown"))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Session not found");
+    }
+
+    @Test
+    @DisplayName("Should revoke all sessions")
+    void testRevokeAllSessions() {
+        // When
+        sessionService.revokeAllSessions(1L);
+
+        // Then
+        verify(redisTemplate).delete(List.of("user:sessions:1", "user:sessions:last-used:1"));
+        verify(refreshTokenRepository).deleteAllByUserId(1L);
+    }
+
+    @Test
+    @DisplayName("Should not fail to open a session when Redis is unavailable")
+    void testOpenSession_RedisUnavailable() {
+        // Given
+        when(refreshTokenRepository.findActiveDeviceIds(eq(1L), any(LocalDateTime.class)))
+                .thenReturn(List.of("laptop"));
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(hashOperations).put(anyString(), any(), any());
+
+        // When/Then
+        assertThatCode(() -> sessionService.openSession(1L, "laptop", "MacBook"))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should not fail when the last-used index cannot be updated")
+    void testTouch_RedisUnavailable() {
+        // Given
+        when(zSetOperations.add(anyString(), any(), anyDouble()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        // When/Then
+        assertThatCode(() -> sessionService.touch(1L, "laptop")).doesNotThrowAnyException();
+    }
+
+    private DeviceSession session(String deviceId) {
+        return DeviceSession.builder()
+                .deviceId(deviceId)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -1,30 +1,48 @@
 package rca.restapi.year2.userservice.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import rca.restapi.year2.userservice.cache.CachePolicies;
+import rca.restapi.year2.userservice.cache.SimpleCacheBatchOperations;
+import rca.restapi.year2.userservice.cache.SimpleVersionedCacheWriter;
+import rca.restapi.year2.userservice.cache.UserAddressCache;
+import rca.restapi.year2.userservice.cache.UserExistenceFilter;
+import rca.restapi.year2.userservice.cache.SingleFlightLoader;
+import rca.restapi.year2.userservice.cache.UserProfileCache;
+import rca.restapi.year2.userservice.dto.CursorPageDto;
 import rca.restapi.year2.userservice.dto.UserDto;
+import rca.restapi.year2.userservice.dto.UserSummaryDto;
 import rca.restapi.year2.userservice.dto.requests.ChangePasswordRequest;
 import rca.restapi.year2.userservice.dto.requests.UpdateProfileRequest;
+import rca.restapi.year2.userservice.exception.BadRequestException;
 import rca.restapi.year2.userservice.exception.ResourceNotFoundException;
 import rca.restapi.year2.userservice.exception.UnauthorizedException;
 import rca.restapi.year2.userservice.model.Address;
 import rca.restapi.year2.userservice.model.User;
 import rca.restapi.year2.userservice.repository.AddressRepository;
+import rca.restapi.year2.userservice.repository.UserColumnUpdates;
 import rca.restapi.year2.userservice.repository.UserRepository;
+import rca.restapi.year2.userservice.repository.projection.UserKeyView;
+import rca.restapi.year2.userservice.repository.projection.UserSummaryView;
 import rca.restapi.year2.userservice.types.Role;
 import rca.restapi.year2.userservice.types.UserStatus;
 import rca.restapi.year2.userservice.util.TestDataBuilder;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -32,6 +50,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -42,12 +61,31 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserColumnUpdates userColumnUpdates;
+
     @Mock
     private AddressRepository addressRepository;
 
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    private final ConcurrentMapCacheManager cacheManager =
+            new ConcurrentMapCacheManager(UserProfileCache.USERS, UserProfileCache.EMAIL_INDEX);
+
+    @Spy
+    private UserProfileCache userProfileCache = new UserProfileCache(
+            cacheManager,
+            new SingleFlightLoader(null, new CachePolicies(), new SimpleMeterRegistry(), 100, 1),
+            new SimpleCacheBatchOperations(cacheManager),
+            new SimpleVersionedCacheWriter(cacheManager));
+
+    @Mock
+    private UserAddressCache userAddressCache;
+
+    @Mock
+    private UserExistenceFilter userExistenceFilter;
+
     @InjectMocks
     private UserService userService;
 
@@ -63,7 +101,7 @@ class UserServiceTest {
     void testGetUserByEmail_Success() {
         // Given
         String email = "test@example.com";
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
+        when(userRepository.findWithAddressesByEmail(email)).thenReturn(Optional.of(testUser));
 
         // When
         UserDto result = userService.getUserByEmail(email);
@@ -72,7 +110,7 @@ class UserServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getEmail()).isEqualTo(email);
         assertThat(result.getUsername()).isEqualTo(testUser.getUsername());
-        verify(userRepository).findByEmail(email);
+        verify(userRepository).findWithAddressesByEmail(email);
     }
 
     @Test
@@ -80,14 +118,14 @@ class UserServiceTest {
     void testGetUserByEmail_NotFound() {
         // Given
         String email = "nonexistent@example.com";
-        when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
+        when(userRepository.findWithAddressesByEmail(email)).thenReturn(Optional.empty());
 
         // When/Then
         assertThatThrownBy(() -> userService.getUserByEmail(email))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("User not found");
 
-        verify(userRepository).findByEmail(email);
+        verify(userRepository).findWithAddressesByEmail(email);
     }
 
     @Test
@@ -95,7 +133,7 @@ class UserServiceTest {
     void testGetUserById_Success() {
         // Given
         Long userId = 1L;
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(userRepository.findWithAddressesById(userId)).thenReturn(Optional.of(testUser));
 
         // When
         UserDto result = userService.getUserById(userId);
@@ -103,7 +141,7 @@ class UserServiceTest {
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(userId);
-        verify(userRepository).findById(userId);
+        verify(userRepository).findWithAddressesById(userId);
     }
 
     @Test
@@ -111,14 +149,14 @@ class UserServiceTest {
     void testGetUserById_NotFound() {
         // Given
         Long userId = 999L;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.findWithAddressesById(userId)).thenReturn(Optional.empty());
 
         // When/Then
         assertThatThrownBy(() -> userService.getUserById(userId))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("User not found");
 
-        verify(userRepository).findById(userId);
+        verify(userRepository).findWithAddressesById(userId);
     }
 
     @Test
@@ -127,16 +165,17 @@ class UserServiceTest {
         // Given
         String email = "test@example.com";
         UpdateProfileRequest request = TestDataBuilder.buildUpdateProfileRequest();
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(userRepository.findForUpdateByEmail(email)).thenReturn(Optional.of(testUser));
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
 
         // When
         UserDto result = userService.updateProfile(email, request);
 
         // Then
         assertThat(result).isNotNull();
-        verify(userRepository).findByEmail(email);
-        verify(userRepository).save(testUser);
+        verify(userRepository).findForUpdateByEmail(email);
+        verify(userRepository).saveAndFlush(testUser);
+        verify(userProfileCache).put(result);
     }
 
     @Test
@@ -147,15 +186,15 @@ class UserServiceTest {
         UpdateProfileRequest request = UpdateProfileRequest.builder()
                 .firstName("Updated")
                 .build();
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(userRepository.findForUpdateByEmail(email)).thenReturn(Optional.of(testUser));
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
 
         // When
         userService.updateProfile(email, request);
 
         // Then
-        verify(userRepository).findByEmail(email);
-        verify(userRepository).save(testUser);
+        verify(userRepository).findForUpdateByEmail(email);
+        verify(userRepository).saveAndFlush(testUser);
     }
 
     @Test
@@ -164,15 +203,15 @@ class UserServiceTest {
         // Given
         String email = "nonexistent@example.com";
         UpdateProfileRequest request = TestDataBuilder.buildUpdateProfileRequest();
-        when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
+        when(userRepository.findForUpdateByEmail(email)).thenReturn(Optional.empty());
 
         // When/Then
         assertThatThrownBy(() -> userService.updateProfile(email, request))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("User not found");
 
-        verify(userRepository).findByEmail(email);
-        verify(userRepository, never()).save(any());
+        verify(userRepository).findForUpdateByEmail(email);
+        verify(userRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -181,22 +220,23 @@ class UserServiceTest {
         // Given
         String email = "test@example.com";
         ChangePasswordRequest request = TestDataBuilder.buildChangePasswordRequest();
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
+        when(userRepository.findForUpdateByEmail(email)).thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches(request.getCurrentPassword(), testUser.getPassword()))
                 .thenReturn(true);
         when(passwordEncoder.encode(request.getNewPassword())).thenReturn("newEncodedPassword");
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
 
         // When
         userService.changePassword(email, request);
 
         // Then
-        verify(userRepository).findByEmail(email);
+        verify(userRepository).findForUpdateByEmail(email);
         // testUser.getPassword() returns "$2a$12$encodedPasswordHash" from
         // TestDataBuilder
         verify(passwordEncoder).matches("oldPassword", "$2a$12$encodedPasswordHash");
         verify(passwordEncoder).encode("newPassword123");
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).saveAndFlush(any(User.class));
+        verify(userProfileCache).evict(testUser.getId(), testUser.getEmail(), testUser.getUpdatedAt(), testUser.getAddressRevision());
     }
 
     @Test
@@ -205,7 +245,7 @@ class UserServiceTest {
         // Given
         String email = "test@example.com";
         ChangePasswordRequest request = TestDataBuilder.buildChangePasswordRequest();
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
+        when(userRepository.findForUpdateByEmail(email)).thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches(request.getCurrentPassword(), testUser.getPassword()))
                 .thenReturn(false);
 
@@ -214,7 +254,7 @@ class UserServiceTest {
                 .isInstanceOf(UnauthorizedException.class)
                 .hasMessage("Current password is incorrect");
 
-        verify(userRepository).findByEmail(email);
+        verify(userRepository).findForUpdateByEmail(email);
         verify(passwordEncoder).matches(request.getCurrentPassword(), testUser.getPassword());
         verify(passwordEncoder, never()).encode(any());
         verify(userRepository, never()).save(any());
@@ -234,6 +274,8 @@ class UserServiceTest {
         // Then
         verify(userRepository).findByEmail(email);
         verify(userRepository).delete(testUser);
+        verify(userAddressCache).evict(email);
+        verify(userExistenceFilter).recordRemoval();
     }
 
     @Test
@@ -241,34 +283,105 @@ class UserServiceTest {
     void testGetAllUsers_Success() {
         // Given
         Pageable pageable = PageRequest.of(0, 10);
-        List<User> users = Arrays.asList(testUser, TestDataBuilder.buildAdminUser());
-        Page<User> userPage = new PageImpl<>(users, pageable, users.size());
-        when(userRepository.findAll(pageable)).thenReturn(userPage);
+        User admin = TestDataBuilder.buildAdminUser();
+        List<Long> ids = List.of(testUser.getId(), admin.getId());
+        when(userRepository.findAllIds(pageable)).thenReturn(new PageImpl<>(ids, pageable, ids.size()));
+        when(userRepository.findAllWithAddressesByIdIn(any())).thenReturn(Arrays.asList(admin, testUser));
 
         // When
         Page<UserDto> result = userService.getAllUsers(pageable);
 
         // Then
         assertThat(result).isNotNull();
-        assertThat(result.getContent()).hasSize(2);
-        verify(userRepository).findAll(pageable);
+        assertThat(result.getContent()).extracting(UserDto::getId).containsExactlyElementsOf(ids);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        verify(userRepository).findAllIds(pageable);
+    }
+
+    @Test
+    @DisplayName("Should load only cache misses, with one query, when fetching users by ID")
+    void testGetUsersByIds_LoadsMissesOnce() {
+        // Given
+        User admin = TestDataBuilder.buildAdminUser();
+        when(userRepository.findWithAddressesById(testUser.getId())).thenReturn(Optional.of(testUser));
+        userService.getUserById(testUser.getId());
+        when(userRepository.findAllWithAddressesByIdIn(any())).thenReturn(List.of(admin));
+
+        // When
+        List<UserDto> result = userService.getUsersByIds(List.of(admin.getId(), testUser.getId(), 404L));
+
+        // Then
+        assertThat(result).extracting(UserDto::getId).containsExactly(admin.getId(), testUser.getId());
+        verify(userRepository).findAllWithAddressesByIdIn(
+                argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(admin.getId(), 404L))));
+        assertThat(userService.getUsersByIds(List.of(admin.getId()))).hasSize(1);
+        verify(userRepository, times(1)).findAllWithAddressesByIdIn(any());
+    }
+
+    @Test
+    @DisplayName("Should return a page and a cursor that seeks past its last user")
+    void testGetUsersAfter_FirstPageAndCursor() {
+        // Given
+        User admin = TestDataBuilder.buildAdminUser();
+        LocalDateTime createdAt = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123_456_000);
+        when(userRepository.findFirstKeys(Limit.of(2))).thenReturn(List.of(
+                new UserKeyView(admin.getId(), createdAt.plusDays(1)),
+                new UserKeyView(testUser.getId(), createdAt)));
+        when(userRepository.findAllWithAddressesByIdIn(any())).thenReturn(List.of(admin));
+
+        // When
+        CursorPageDto<UserDto> first = userService.getUsersAfter("", 1, false);
+        userService.getUsersAfter(first.getNextCursor(), 1, false);
+
+        // Then
+        assertThat(first.getItems()).extracting(UserDto::getId).containsExactly(admin.getId());
+        assertThat(first.getEstimatedTotal()).isNull();
+        verify(userRepository).findKeysAfter(createdAt.plusDays(1), admin.getId(), Limit.of(2));
+    }
+
+    @Test
+    @DisplayName("Should end the listing without a cursor and estimate the total on request")
+    void testGetUsersAfter_LastPageWithEstimate() {
+        // Given
+        when(userRepository.findFirstKeys(Limit.of(21))).thenReturn(List.of());
+        when(userRepository.estimateCount()).thenReturn(-1L);
+        when(userRepository.count()).thenReturn(0L);
+
+        // When
+        CursorPageDto<UserDto> result = userService.getUsersAfter(null, 20, true);
+
+        // Then
+        assertThat(result.getItems()).isEmpty();
+        assertThat(result.getNextCursor()).isNull();
+        assertThat(result.getEstimatedTotal()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject a cursor it did not issue")
+    void testGetUsersAfter_InvalidCursor() {
+        // When/Then
+        assertThatThrownBy(() -> userService.getUsersAfter("not-a-cursor", 20, false))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Invalid cursor");
     }
 
     @Test
-    @DisplayName("Should get users by status")
+    @DisplayName("Should page users by status from the summary projection")
     void testGetUsersByStatus_Success() {
         // Given
         UserStatus status = UserStatus.ACTIVE;
-        List<User> users = Arrays.asList(testUser);
-        when(userRepository.findByStatus(status)).thenReturn(users);
+        LocalDateTime createdAt = LocalDateTime.of(2026, 1, 1, 12, 0);
+        when(userRepository.findSummariesByStatus(status, Limit.of(2))).thenReturn(List.of(
+                summary(2L, createdAt.plusHours(1)), summary(1L, createdAt)));
 
         // When
-        List<UserDto> result = userService.getUsersByStatus(status);
+        CursorPageDto<UserSummaryDto> result = userService.getUsersByStatus(status, null, 1);
+        userService.getUsersByStatus(status, result.getNextCursor(), 1);
 
         // Then
-        assertThat(result).isNotNull();
-        assertThat(result).hasSize(1);
-        verify(userRepository).findByStatus(status);
+        assertThat(result.getItems()).extracting(UserSummaryDto::getId).containsExactly(2L);
+        verify(userRepository).findSummariesByStatusAfter(status, createdAt.plusHours(1), 2L, Limit.of(2));
+        verify(userRepository, never()).findAllWithAddressesByIdIn(any());
     }
 
     @Test
@@ -277,16 +390,19 @@ class UserServiceTest {
         // Given
         Long userId = 1L;
         UserStatus newStatus = UserStatus.SUSPENDED;
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(userColumnUpdates.updateStatus(eq(userId), eq(newStatus), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(testUser));
 
         // When
         UserDto result = userService.updateUserStatus(userId, newStatus);
 
         // Then
         assertThat(result).isNotNull();
-        verify(userRepository).findById(userId);
-        verify(userRepository).save(testUser);
+        verify(userColumnUpdates).updateStatus(eq(userId), eq(newStatus), any(LocalDateTime.class));
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).saveAndFlush(any());
+        verify(userProfileCache).put(result);
+        verify(userProfileCache, never()).evict(any(), any());
     }
 
     @Test
@@ -295,16 +411,45 @@ class UserServiceTest {
         // Given
         Long userId = 1L;
         Role newRole = Role.ADMIN;
-        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(userColumnUpdates.updateRole(eq(userId), eq(newRole), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(testUser));
 
         // When
         UserDto result = userService.updateUserRole(userId, newRole);
 
         // Then
         assertThat(result).isNotNull();
-        verify(userRepository).findById(userId);
-        verify(userRepository).save(testUser);
+        verify(userColumnUpdates).updateRole(eq(userId), eq(newRole), any(LocalDateTime.class));
+        verify(userProfileCache).put(result);
+    }
+
+    @Test
+    @DisplayName("Should throw exception when updating the status of a missing user")
+    void testUpdateUserStatus_NotFound() {
+        // Given
+        when(userColumnUpdates.updateStatus(eq(99L), eq(UserStatus.SUSPENDED), any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
+
+        // When/Then
+        assertThatThrownBy(() -> userService.updateUserStatus(99L, UserStatus.SUSPENDED))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(userProfileCache, never()).put(any());
+    }
+
+    @Test
+    @DisplayName("Should evict the profiles of the users a bulk status update changed")
+    void testUpdateUsersStatus_EvictsChanged() {
+        // Given
+        List<Long> ids = List.of(1L, 2L, 3L);
+        when(userColumnUpdates.updateStatuses(eq(ids), eq(UserStatus.SUSPENDED), any(LocalDateTime.class)))
+                .thenReturn(List.of(1L, 3L));
+
+        // When
+        int updated = userService.updateUsersStatus(ids, UserStatus.SUSPENDED);
+
+        // Then
+        assertThat(updated).isEqualTo(2);
+        verify(userProfileCache).evictAll(eq(List.of(1L, 3L)), any(LocalDateTime.class));
     }
 
     @Test
@@ -321,6 +466,9 @@ class UserServiceTest {
         // Then
         verify(userRepository).findById(userId);
         verify(userRepository).delete(testUser);
+        verify(userProfileCache).evict(testUser.getId(), testUser.getEmail());
+        verify(userAddressCache).evict(testUser.getEmail());
+        verify(userExistenceFilter).recordRemoval();
     }
 
     @Test
@@ -329,7 +477,7 @@ class UserServiceTest {
         // Given
         Address address = TestDataBuilder.buildAddress();
         testUser.getAddresses().add(address);
-        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(userRepository.findWithAddressesByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
 
         // When
         UserDto result = userService.getUserByEmail(testUser.getEmail());
@@ -339,4 +487,45 @@ class UserServiceTest {
         assertThat(result.getAddresses()).isNotEmpty();
         assertThat(result.getAddresses().get(0).getStreetAddress()).isEqualTo(address.getStreetAddress());
     }
+
+    @Test
+    @DisplayName("Should serve a profile cached by email to a lookup by ID")
+    void testGetUser_SharesCacheEntryAcrossKeys() {
+        // Given
+        when(userRepository.findWithAddressesByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+
+        // When
+        UserDto byEmail = userService.getUserByEmail(testUser.getEmail());
+        UserDto byId = userService.getUserById(testUser.getId());
+
+        // Then
+        assertThat(byId).isSameAs(byEmail);
+        verify(userRepository, never()).findWithAddressesById(any());
+    }
+
+    @Test
+    @DisplayName("Should serve the updated profile by email from the cache after an admin update")
+    void testUpdateUserStatus_WritesThroughEmailLookup() {
+        // Given
+        when(userRepository.findWithAddressesByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        User suspended = TestDataBuilder.buildUser();
+        suspended.setStatus(UserStatus.SUSPENDED);
+        suspended.setUpdatedAt(LocalDateTime.now());
+        when(userColumnUpdates.updateStatus(eq(testUser.getId()), eq(UserStatus.SUSPENDED), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(suspended));
+        userService.getUserByEmail(testUser.getEmail());
+
+        // When
+        userService.updateUserStatus(testUser.getId(), UserStatus.SUSPENDED);
+        UserDto result = userService.getUserByEmail(testUser.getEmail());
+
+        // Then
+        assertThat(result.getStatus()).isEqualTo(UserStatus.SUSPENDED);
+        verify(userRepository, times(1)).findWithAddressesByEmail(testUser.getEmail());
+    }
+
+    private static UserSummaryView summary(Long id, LocalDateTime createdAt) {
+        return new UserSummaryView(id, "user" + id, "user" + id + "@example.com", "First", "Last",
+                Role.USER, UserStatus.ACTIVE, true, createdAt);
+    }
 }
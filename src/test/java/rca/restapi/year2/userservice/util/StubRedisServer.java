@@ -0,0 +1,251 @@
+package rca.restapi.year2.userservice.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * A local stand-in for Redis that speaks enough RESP2 for the cache (GET, MGET, SET [NX], DEL, KEYS,
+ * PUBLISH, PING, and EVAL of the load lease release script only) and can be made to hang: while paused, connections stop answering, the way a stalled
+ * Redis does, and answer everything in order once resumed.
+ */
+public class StubRedisServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final Map<String, byte[]> data = new ConcurrentHashMap<>();
+    private final List<Socket> clients = new ArrayList<>();
+    private final Object pauseLock = new Object();
+    private volatile boolean paused;
+    private final AtomicInteger commands = new AtomicInteger();
+    private volatile boolean running = true;
+
+    public StubRedisServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "stub-redis-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public boolean contains(String key) {
+        return data.containsKey(key);
+    }
+
+    public void put(String key, byte[] value) {
+        data.put(key, value);
+    }
+
+    public int commandCount() {
+        return commands.get();
+    }
+
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        synchronized (pauseLock) {
+            paused = false;
+            pauseLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        resume();
+        serverSocket.close();
+        synchronized (clients) {
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket client = serverSocket.accept();
+                synchronized (clients) {
+                    clients.add(client);
+                }
+                Thread handler = new Thread(() -> serve(client), "stub-redis-client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try (client) {
+            InputStream in = new BufferedInputStream(client.getInputStream());
+            OutputStream out = new BufferedOutputStream(client.getOutputStream());
+            while (running) {
+                List<byte[]> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                awaitResume();
+                commands.incrementAndGet();
+                out.write(execute(command));
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Connection closed
+        }
+    }
+
+    private void awaitResume() throws InterruptedException {
+        synchronized (pauseLock) {
+            while (paused && running) {
+                pauseLock.wait();
+            }
+        }
+    }
+
+    private byte[] execute(List<byte[]> command) {
+        String name = new String(command.get(0), StandardCharsets.UTF_8).toUpperCase();
+        switch (name) {
+            case "PING":
+                return simple("PONG");
+            case "CLIENT":
+            case "SELECT":
+            case "QUIT":
+                return simple("OK");
+            case "GET": {
+                byte[] value = data.get(key(command, 1));
+                return value != null ? bulk(value) : "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+            }
+            case "MGET": {
+                ByteArrayOutputStream reply = new ByteArrayOutputStream();
+                reply.writeBytes(("*" + (command.size() - 1) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                for (int i = 1; i < command.size(); i++) {
+                    byte[] value = data.get(key(command, i));
+                    reply.writeBytes(value != null ? bulk(value) : "$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+                }
+                return reply.toByteArray();
+            }
+            case "SET": {
+                // Expiry options are ignored
+                boolean ifAbsent = command.stream().skip(3)
+                        .anyMatch(option -> "NX".equalsIgnoreCase(new String(option, StandardCharsets.UTF_8)));
+                if (ifAbsent) {
+                    return data.putIfAbsent(key(command, 1), command.get(2)) == null
+                            ? simple("OK") : "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+                }
+                data.put(key(command, 1), command.get(2));
+                return simple("OK");
+            }
+            case "EVALSHA":
+                return "-NOSCRIPT No matching script\r\n".getBytes(StandardCharsets.US_ASCII);
+            case "EVAL": {
+                // Delete KEYS[1] if it holds ARGV[1]: the lease release script, whatever the script body
+                String key = key(command, 3);
+                byte[] expected = command.get(4);
+                byte[] current = data.get(key);
+                return integer(current != null && Arrays.equals(current, expected) && data.remove(key, current)
+                        ? 1 : 0);
+            }
+            case "DEL": {
+                int removed = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    removed += data.remove(key(command, i)) != null ? 1 : 0;
+                }
+                return integer(removed);
+            }
+            case "KEYS": {
+                Pattern pattern = glob(key(command, 1));
+                List<String> keys = data.keySet().stream().filter(k -> pattern.matcher(k).matches()).toList();
+                StringBuilder reply = new StringBuilder("*").append(keys.size()).append("\r\n");
+                keys.forEach(k -> reply.append('$').append(k.getBytes(StandardCharsets.UTF_8).length)
+                        .append("\r\n").append(k).append("\r\n"));
+                return reply.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            case "PUBLISH":
+                return integer(0);
+            default:
+                return ("-ERR unknown command '" + name + "'\r\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header == null) {
+            return null;
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<byte[]> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            parts.add(in.readNBytes(length));
+            in.readNBytes(2);
+        }
+        return parts;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\r') {
+                in.read();
+                return line.toString();
+            }
+            line.append((char) c);
+        }
+        return null;
+    }
+
+    // Only '*' wildcards, which is all the cache uses
+    private static Pattern glob(String pattern) {
+        String[] parts = pattern.split("\\*", -1);
+        StringBuilder regex = new StringBuilder(Pattern.quote(parts[0]));
+        for (int i = 1; i < parts.length; i++) {
+            regex.append(".*").append(Pattern.quote(parts[i]));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static String key(List<byte[]> command, int index) {
+        return new String(command.get(index), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] simple(String value) {
+        return ("+" + value + "\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] integer(long value) {
+        return (":" + value + "\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] bulk(byte[] value) {
+        byte[] header = ("$" + value.length + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] reply = new byte[header.length + value.length + 2];
+        System.arraycopy(header, 0, reply, 0, header.length);
+        System.arraycopy(value, 0, reply, header.length, value.length);
+        reply[reply.length - 2] = '\r';
+        reply[reply.length - 1] = '\n';
+        return reply;
+    }
+}
@@ -4,6 +4,7 @@ import rca.restapi.year2.userservice.dto.requests.*;
 import rca.restapi.year2.userservice.model.Address;
 import rca.restapi.year2.userservice.model.RefreshToken;
 import rca.restapi.year2.userservice.model.User;
+import rca.restapi.year2.userservice.repository.projection.RefreshTokenView;
 import rca.restapi.year2.userservice.types.Role;
 import rca.restapi.year2.userservice.types.UserStatus;
 
@@ -107,6 +108,18 @@ public class TestDataBuilder {
                 .build();
     }
 
+    public static RefreshTokenView buildRefreshTokenView(User user) {
+        return new RefreshTokenView(
+                LocalDateTime.now().plusDays(7),
+                false,
+                "default",
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getRole(),
+                user.getStatus());
+    }
+
     public static RefreshTokenRequest buildRefreshTokenRequest() {
         return RefreshTokenRequest.builder()
                 .refreshToken("refresh-token-123")
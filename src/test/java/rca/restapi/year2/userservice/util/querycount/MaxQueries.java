@@ -0,0 +1,33 @@
+package rca.restapi.year2.userservice.util.querycount;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Statement budget for the MockMvc requests a {@link QueryCounted} test makes: each request may run
+ * at most {@link #value()} SQL statements. Without {@link #endpoint()} the budget covers every
+ * request; with it, only requests to that endpoint, written as the method and mapping pattern, e.g.
+ * {@code "GET /users/me/addresses/{addressId}"}. A budget on the test method beats one on the class,
+ * an endpoint budget beats a blanket one.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Repeatable(MaxQueries.List.class)
+public @interface MaxQueries {
+
+    int value();
+
+    String endpoint() default "";
+
+    @Documented
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.TYPE, ElementType.METHOD})
+    @interface List {
+        MaxQueries[] value();
+    }
+}
@@ -0,0 +1,37 @@
+package rca.restapi.year2.userservice.util.querycount;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Counts statements on every data source and records them per MockMvc request; see {@link QueryCounted}.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+class QueryCountConfiguration {
+
+    @Bean
+    static QueryCountRecorder queryCountRecorder() {
+        return new QueryCountRecorder();
+    }
+
+    @Bean
+    static BeanPostProcessor statementCountingDataSources(QueryCountRecorder queryCountRecorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource
+                        ? StatementCountingDataSource.wrap(dataSource, queryCountRecorder)
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    MockMvcBuilderCustomizer queryCountFilter(QueryCountRecorder queryCountRecorder) {
+        return builder -> builder.addFilters(new QueryCountFilter(queryCountRecorder));
+    }
+}
@@ -0,0 +1,68 @@
+package rca.restapi.year2.userservice.util.querycount;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the requests each test method made against its {@link MaxQueries} budgets, and writes the
+ * report after each test class. Requests made in {@code @BeforeEach} methods are not checked.
+ */
+class QueryCountExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback, AfterAllCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        recorder(context).drain();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        List<MaxQueries> methodBudgets = budgets(context.getRequiredTestMethod());
+        List<MaxQueries> classBudgets = budgets(context.getRequiredTestClass());
+        List<String> overBudget = recorder(context).drain().stream()
+                .map(request -> {
+                    Integer budget = budgetFor(request.endpoint(), methodBudgets)
+                            .or(() -> budgetFor(request.endpoint(), classBudgets))
+                            .orElse(null);
+                    QueryCountReport.record(request.endpoint(), request.statements(), budget);
+                    return budget != null && request.statements() > budget
+                            ? "%s ran %d statements, budget %d".formatted(request.endpoint(),
+                                    request.statements(), budget)
+                            : null;
+                })
+                .filter(message -> message != null)
+                .collect(Collectors.toList());
+        if (!overBudget.isEmpty()) {
+            throw new AssertionError("Statement budget exceeded:\n  " + String.join("\n  ", overBudget));
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        QueryCountReport.write();
+    }
+
+    private static Optional<Integer> budgetFor(String endpoint, List<MaxQueries> budgets) {
+        return budgets.stream()
+                .filter(budget -> budget.endpoint().equals(endpoint))
+                .findFirst()
+                .or(() -> budgets.stream().filter(budget -> budget.endpoint().isEmpty()).findFirst())
+                .map(MaxQueries::value);
+    }
+
+    private static List<MaxQueries> budgets(AnnotatedElement element) {
+        return AnnotationSupport.findRepeatableAnnotations(element, MaxQueries.class);
+    }
+
+    private static QueryCountRecorder recorder(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(QueryCountRecorder.class);
+    }
+}
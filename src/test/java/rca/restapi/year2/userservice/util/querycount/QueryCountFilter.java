@@ -0,0 +1,51 @@
+package rca.restapi.year2.userservice.util.querycount;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records the statements each request ran under its endpoint: the method and the mapping pattern
+ * that handled it, or the request URI when no handler matched. An async request (e.g. a streamed
+ * export) is recorded once, at its async dispatch, with everything it ran from the start, the
+ * streaming included.
+ */
+class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final String STARTED_AT = QueryCountFilter.class.getName() + ".STARTED_AT";
+
+    private final QueryCountRecorder recorder;
+
+    QueryCountFilter(QueryCountRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long before = isAsyncDispatch(request) && request.getAttribute(STARTED_AT) instanceof Long started
+                ? started
+                : recorder.statements();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.setAttribute(STARTED_AT, before);
+            } else {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                recorder.record(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()),
+                        recorder.statements() - before);
+            }
+        }
+    }
+}
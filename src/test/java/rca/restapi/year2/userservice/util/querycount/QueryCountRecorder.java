@@ -0,0 +1,36 @@
+package rca.restapi.year2.userservice.util.querycount;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statements run through the counted data source, and the requests recorded since the last
+ * {@link #drain()} with the statements each ran. Tests run one at a time, so the count is global.
+ */
+public class QueryCountRecorder {
+
+    private final AtomicLong statements = new AtomicLong();
+    private final List<RecordedRequest> requests = new ArrayList<>();
+
+    void statementPrepared() {
+        statements.incrementAndGet();
+    }
+
+    long statements() {
+        return statements.get();
+    }
+
+    synchronized void record(String endpoint, long statements) {
+        requests.add(new RecordedRequest(endpoint, statements));
+    }
+
+    synchronized List<RecordedRequest> drain() {
+        List<RecordedRequest> drained = List.copyOf(requests);
+        requests.clear();
+        return drained;
+    }
+
+    record RecordedRequest(String endpoint, long statements) {
+    }
+}
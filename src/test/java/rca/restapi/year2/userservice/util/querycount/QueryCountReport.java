@@ -0,0 +1,62 @@
+package rca.restapi.year2.userservice.util.querycount;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Statements per request for every endpoint called by a {@link QueryCounted} test in this JVM,
+ * rewritten to {@code target/query-count-report.txt} after each such test class.
+ */
+final class QueryCountReport {
+
+    static final Path FILE = Path.of("target", "query-count-report.txt");
+
+    private static final Map<String, EndpointCounts> ENDPOINTS = new TreeMap<>();
+
+    private QueryCountReport() {
+    }
+
+    static synchronized void record(String endpoint, long statements, Integer budget) {
+        ENDPOINTS.computeIfAbsent(endpoint, e -> new EndpointCounts()).add(statements, budget);
+    }
+
+    static synchronized String render() {
+        StringBuilder report = new StringBuilder("Statements per request, by endpoint\n\n");
+        report.append("%-48s %6s %6s %6s %8s %7s%n".formatted("ENDPOINT", "CALLS", "MIN", "MAX", "AVG", "BUDGET"));
+        ENDPOINTS.forEach((endpoint, counts) -> report.append("%-48s %6d %6d %6d %8.1f %7s%n".formatted(endpoint,
+                counts.calls, counts.min, counts.max, (double) counts.total / counts.calls,
+                counts.budget == null ? "-" : counts.budget)));
+        return report.toString();
+    }
+
+    static void write() {
+        try {
+            Files.createDirectories(FILE.getParent());
+            Files.writeString(FILE, render());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class EndpointCounts {
+        private long calls;
+        private long total;
+        private long min = Long.MAX_VALUE;
+        private long max;
+        private Integer budget;
+
+        void add(long statements, Integer requestBudget) {
+            calls++;
+            total += statements;
+            min = Math.min(min, statements);
+            max = Math.max(max, statements);
+            if (requestBudget != null) {
+                budget = budget == null ? requestBudget : Math.min(budget, requestBudget);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package rca.restapi.year2.userservice.util.querycount;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.context.annotation.Import;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Counts the SQL statements each MockMvc request of a {@code @SpringBootTest @AutoConfigureMockMvc}
+ * test runs, enforces {@link MaxQueries} budgets and adds the counts to the per-endpoint report
+ * ({@link QueryCountReport}). Statements are counted at the JDBC level, so {@code JdbcTemplate} work
+ * counts as much as Hibernate's.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@ExtendWith(QueryCountExtension.class)
+@Import(QueryCountConfiguration.class)
+public @interface QueryCounted {
+}
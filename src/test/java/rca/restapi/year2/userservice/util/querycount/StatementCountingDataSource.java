@@ -0,0 +1,51 @@
+package rca.restapi.year2.userservice.util.querycount;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Set;
+
+/**
+ * Wraps a data source so every statement prepared or created on its connections is counted. A
+ * prepared statement counts once however often it is executed, as in Hibernate's statistics.
+ */
+final class StatementCountingDataSource {
+
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall",
+            "createStatement");
+
+    private StatementCountingDataSource() {
+    }
+
+    static DataSource wrap(DataSource dataSource, QueryCountRecorder recorder) {
+        return proxy(DataSource.class, dataSource, (method, result) ->
+                result instanceof Connection connection && method.getName().startsWith("getConnection")
+                        ? proxy(Connection.class, connection, (connectionMethod, connectionResult) -> {
+                            if (STATEMENT_METHODS.contains(connectionMethod.getName())) {
+                                recorder.statementPrepared();
+                            }
+                            return connectionResult;
+                        })
+                        : result);
+    }
+
+    private static <T> T proxy(Class<T> type, T target, ResultMapper mapper) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return mapper.map(method, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, handler));
+    }
+
+    @FunctionalInterface
+    private interface ResultMapper {
+        Object map(Method method, Object result);
+    }
+}